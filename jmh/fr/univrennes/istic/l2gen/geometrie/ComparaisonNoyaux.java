@@ -0,0 +1,93 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare les {@link Noyaux} scalaires et vectoriels sur les mêmes coordonnées. La JVM
+ * mesurée est lancée avec le module jdk.incubator.vector : les noyaux vectoriels sont
+ * ceux de {@link Noyaux#ACTIFS}, et le banc d'essai échoue s'ils ne sont pas disponibles.
+ * </br>
+ * Le banc est rangé dans le paquetage des noyaux, qui ne sont pas publics.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class ComparaisonNoyaux {
+    @Param({"scalaires", "vectoriels"})
+    public String noyaux;
+
+    @Param({"1000", "1000000"})
+    public int sommets;
+
+    private Noyaux n;
+    private double[] coords;
+    private final double[] sommes = new double[8];
+    private final int[] sommesTronquees = new int[2];
+    private final double[] bornes = new double[4];
+
+    @Setup
+    public void preparer() {
+        if (noyaux.equals("scalaires")) {
+            n = new Noyaux();
+        } else if (Noyaux.ACTIFS.vectoriels()) {
+            n = Noyaux.ACTIFS;
+        } else {
+            throw new IllegalStateException("Les noyaux vectoriels ne sont pas disponibles.");
+        }
+        Random random = new Random(42);
+        coords = new double[2 * sommets];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = random.nextDouble() * 1000;
+        }
+    }
+
+    @Benchmark
+    public double[] translater() {
+        n.translater(coords, coords, coords.length, 1, -1);
+        return coords;
+    }
+
+    @Benchmark
+    public double[] transformer() {
+        n.transformer(coords, coords, coords.length, 500, 500, 1, 1, 1, -1);
+        return coords;
+    }
+
+    @Benchmark
+    public double[] sommer() {
+        n.sommer(coords, coords.length, sommes);
+        return sommes;
+    }
+
+    @Benchmark
+    public int[] sommerTronque() {
+        n.sommerTronque(coords, coords.length, sommesTronquees);
+        return sommesTronquees;
+    }
+
+    @Benchmark
+    public double[] borner() {
+        bornes[0] = coords[0];
+        bornes[1] = coords[1];
+        bornes[2] = coords[0];
+        bornes[3] = coords[1];
+        n.borner(coords, coords.length, bornes);
+        return bornes;
+    }
+}
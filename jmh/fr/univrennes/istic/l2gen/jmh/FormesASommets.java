@@ -0,0 +1,24 @@
+package fr.univrennes.istic.l2gen.jmh;
+
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Ligne;
+import fr.univrennes.istic.l2gen.geometrie.Polygone;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Opérations des polygones et des polylignes, jusqu'à un million de sommets.
+ */
+public class FormesASommets extends OperationsForme {
+    @Param({"Polygone", "Ligne"})
+    public String classe;
+
+    @Param({"10", "1000", "1000000"})
+    public int sommets;
+
+    @Override
+    IForme construire() {
+        double[] coords = coordonnees(sommets);
+        return classe.equals("Polygone") ? new Polygone(coords) : new Ligne(coords);
+    }
+}
@@ -0,0 +1,26 @@
+package fr.univrennes.istic.l2gen.jmh;
+
+import fr.univrennes.istic.l2gen.geometrie.Cercle;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Rectangle;
+import fr.univrennes.istic.l2gen.geometrie.Triangle;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Opérations des formes de taille fixe : cercle, rectangle et triangle.
+ */
+public class FormesSimples extends OperationsForme {
+    @Param({"Cercle", "Rectangle", "Triangle"})
+    public String classe;
+
+    @Override
+    IForme construire() {
+        if (classe.equals("Cercle")) {
+            return new Cercle(50, 50, 20);
+        } else if (classe.equals("Rectangle")) {
+            return new Rectangle(50, 50, 40, 20);
+        }
+        return new Triangle(0, 0, 40, 0, 20, 30);
+    }
+}
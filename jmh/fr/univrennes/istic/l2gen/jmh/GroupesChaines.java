@@ -0,0 +1,25 @@
+package fr.univrennes.istic.l2gen.jmh;
+
+import fr.univrennes.istic.l2gen.geometrie.Cercle;
+import fr.univrennes.istic.l2gen.geometrie.Groupe;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Rectangle;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Opérations d'une chaîne de groupes imbriqués, chacun contenant le suivant et un cercle.
+ */
+public class GroupesChaines extends OperationsForme {
+    @Param({"10", "100", "1000"})
+    public int profondeur;
+
+    @Override
+    IForme construire() {
+        Groupe groupe = new Groupe(new Rectangle(10, 10, 4, 4));
+        for (int i = 1; i < profondeur; i++) {
+            groupe = new Groupe(groupe, new Cercle(i, i, 2));
+        }
+        return groupe;
+    }
+}
@@ -0,0 +1,21 @@
+package fr.univrennes.istic.l2gen.jmh;
+
+import fr.univrennes.istic.l2gen.geometrie.Fractale;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Rectangle;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Opérations des arbres de groupes d'une fractale développée : 4^profondeur rectangles
+ * répartis dans un arbre de la profondeur donnée.
+ */
+public class GroupesFractals extends OperationsForme {
+    @Param({"2", "4", "6"})
+    public int profondeur;
+
+    @Override
+    IForme construire() {
+        return Fractale.quadrants(new Rectangle(256, 256, 256, 128), profondeur, 256, 128).developper();
+    }
+}
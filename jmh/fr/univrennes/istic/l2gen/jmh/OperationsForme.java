@@ -0,0 +1,113 @@
+package fr.univrennes.istic.l2gen.jmh;
+
+import fr.univrennes.istic.l2gen.geometrie.Fractale;
+import fr.univrennes.istic.l2gen.geometrie.Groupe;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Point;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bancs d'essai des opérations de {@link IForme}, communs à toutes les formes : chaque
+ * sous-classe construit la forme mesurée à partir de ses paramètres ({@code @Param}).
+ * </br>
+ * {@code centre()} et {@code boite()} sont en cache : {@link #centre()} mesure la lecture
+ * du cache, {@link #deplacerCentre()} inclut le recalcul après une modification. Les
+ * opérations qui modifient la forme l'appliquent à la même instance à chaque appel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public abstract class OperationsForme {
+    protected IForme forme;
+
+    /**
+     * @return La forme mesurée, construite à partir des paramètres du banc d'essai.
+     */
+    abstract IForme construire();
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        forme = construire();
+    }
+
+    @Benchmark
+    public String enSVG() {
+        return forme.enSVG();
+    }
+
+    @Benchmark
+    public String description() {
+        return forme.description(0);
+    }
+
+    @Benchmark
+    public IForme dupliquer() {
+        return forme.dupliquer();
+    }
+
+    @Benchmark
+    public void deplacer() {
+        forme.deplacer(1, -1);
+    }
+
+    @Benchmark
+    public void redimensionner() {
+        forme.redimensionner(1, 1);
+    }
+
+    @Benchmark
+    public Point centre() {
+        return forme.centre();
+    }
+
+    @Benchmark
+    public Point deplacerCentre() {
+        forme.deplacer(1, -1);
+        return forme.centre();
+    }
+
+    @Benchmark
+    public double hauteurLargeur() {
+        return forme.hauteur() + forme.largeur();
+    }
+
+    /**
+     * Développe entièrement une fractale de profondeur 2 ayant la forme pour motif :
+     * {@link IForme#fractale} ne fait rien pour la plupart des formes, le coût mesuré est
+     * celui de {@link Fractale#developper()}, qui duplique et place le motif à chaque niveau.
+     */
+    @Benchmark
+    public Groupe fractale() {
+        return Fractale.quadrants(forme, 2, forme.largeur(), forme.hauteur()).developper();
+    }
+
+    /**
+     * @param sommets Nombre de sommets.
+     * @return Les coordonnées entrelacées de sommets répartis sur un cercle.
+     */
+    static double[] coordonnees(int sommets) {
+        double[] coords = new double[2 * sommets];
+        for (int i = 0; i < sommets; i++) {
+            double angle = 2 * Math.PI * i / sommets;
+            coords[2 * i] = 500 + 400 * Math.cos(angle);
+            coords[2 * i + 1] = 500 + 400 * Math.sin(angle);
+        }
+        return coords;
+    }
+}
@@ -0,0 +1,417 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * R-tree d'identifiants entiers, chacun associé à une boîte englobante.
+ * </br>
+ * L'arbre peut être chargé d'un coup ({@link #charger}, tri par tranches « Sort-Tile-Recursive »
+ * en O(n log n)), puis tenu à jour élément par élément ({@link #inserer}, {@link #supprimer}).
+ * Une insertion descend vers le nœud dont la boîte grandit le moins ; un nœud plein est
+ * coupé en deux selon l'axe où les centres de ses entrées sont les plus étalés. Une
+ * suppression ne rééquilibre pas l'arbre : seuls les nœuds vides sont retirés.
+ * </br>
+ * Une requête ne visite que les nœuds dont la boîte touche la zone cherchée : O(log n + k)
+ * pour k résultats sur des boîtes bien réparties.
+ */
+final class ArbreR {
+    static final int CAPACITE = 16;
+
+    private Noeud racine = new Noeud(true);
+    private Noeud[] feuilleDe = new Noeud[0];
+    private int taille;
+
+    /**
+     * Nœud de l'arbre : les boîtes de ses entrées (identifiants dans une feuille, nœuds fils
+     * sinon), rangées coordonnée par coordonnée.
+     */
+    private static final class Noeud {
+        final boolean feuille;
+        Noeud parent;
+        int n;
+        final double[] minX = new double[CAPACITE + 1];
+        final double[] minY = new double[CAPACITE + 1];
+        final double[] maxX = new double[CAPACITE + 1];
+        final double[] maxY = new double[CAPACITE + 1];
+        final int[] ids;
+        final Noeud[] enfants;
+
+        Noeud(boolean feuille) {
+            this.feuille = feuille;
+            this.ids = feuille ? new int[CAPACITE + 1] : null;
+            this.enfants = feuille ? null : new Noeud[CAPACITE + 1];
+        }
+
+        void definir(int i, double x0, double y0, double x1, double y1) {
+            minX[i] = x0;
+            minY[i] = y0;
+            maxX[i] = x1;
+            maxY[i] = y1;
+        }
+
+        void copier(int i, Noeud source, int j) {
+            definir(i, source.minX[j], source.minY[j], source.maxX[j], source.maxY[j]);
+            if (feuille) {
+                ids[i] = source.ids[j];
+            } else {
+                enfants[i] = source.enfants[j];
+            }
+        }
+
+        int position(Noeud enfant) {
+            for (int i = 0; i < n; i++) {
+                if (enfants[i] == enfant) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("noeud absent de son parent");
+        }
+    }
+
+    /**
+     * @return Le nombre d'identifiants dans l'arbre.
+     */
+    int taille() {
+        return taille;
+    }
+
+    /**
+     * @param id Un identifiant positif ou nul.
+     * @return true si l'identifiant est dans l'arbre.
+     */
+    boolean contient(int id) {
+        return id < feuilleDe.length && feuilleDe[id] != null;
+    }
+
+    /**
+     * Remplace le contenu de l'arbre par les identifiants donnés, rangés par tranches.
+     *
+     * @param ids    Les identifiants, tous distincts.
+     * @param boites La boîte de chaque identifiant, dans le même ordre.
+     */
+    void charger(int[] ids, Boite[] boites) {
+        int n = ids.length;
+        racine = new Noeud(true);
+        taille = n;
+        int maxId = -1;
+        for (int id : ids) {
+            maxId = Math.max(maxId, id);
+        }
+        feuilleDe = new Noeud[maxId + 1];
+        if (n == 0) {
+            return;
+        }
+
+        double[] x0 = new double[n], y0 = new double[n], x1 = new double[n], y1 = new double[n];
+        for (int i = 0; i < n; i++) {
+            x0[i] = boites[i].minX();
+            y0[i] = boites[i].minY();
+            x1[i] = boites[i].maxX();
+            y1[i] = boites[i].maxY();
+        }
+
+        // feuilles
+        Noeud[] niveau = paver(n, x0, y0, x1, y1, true, ids, null);
+        // niveaux supérieurs, jusqu'à une seule racine
+        while (niveau.length > 1) {
+            int m = niveau.length;
+            double[] nx0 = new double[m], ny0 = new double[m], nx1 = new double[m], ny1 = new double[m];
+            for (int i = 0; i < m; i++) {
+                double[] b = bornes(niveau[i]);
+                nx0[i] = b[0];
+                ny0[i] = b[1];
+                nx1[i] = b[2];
+                ny1[i] = b[3];
+            }
+            niveau = paver(m, nx0, ny0, nx1, ny1, false, null, niveau);
+        }
+        racine = niveau[0];
+        racine.parent = null;
+    }
+
+    /**
+     * Range n entrées dans des nœuds de {@link #CAPACITE} entrées : tri des centres en x,
+     * découpage en tranches verticales, puis tri de chaque tranche en y.
+     */
+    private Noeud[] paver(int n, double[] x0, double[] y0, double[] x1, double[] y1,
+                          boolean feuilles, int[] ids, Noeud[] enfants) {
+        int nombreNoeuds = (n + CAPACITE - 1) / CAPACITE;
+        int tranches = (int) Math.ceil(Math.sqrt(nombreNoeuds));
+        int parTranche = tranches * CAPACITE;
+
+        double[] cx = new double[n];
+        double[] cy = new double[n];
+        int[] ordre = new int[n];
+        for (int i = 0; i < n; i++) {
+            cx[i] = x0[i] + x1[i];
+            cy[i] = y0[i] + y1[i];
+            ordre[i] = i;
+        }
+        trier(ordre, 0, n, cx);
+        for (int debut = 0; debut < n; debut += parTranche) {
+            trier(ordre, debut, Math.min(n, debut + parTranche), cy);
+        }
+
+        Noeud[] noeuds = new Noeud[nombreNoeuds];
+        for (int k = 0; k < nombreNoeuds; k++) {
+            Noeud noeud = new Noeud(feuilles);
+            int debut = k * CAPACITE;
+            int fin = Math.min(n, debut + CAPACITE);
+            for (int j = debut; j < fin; j++) {
+                int i = ordre[j];
+                noeud.definir(noeud.n, x0[i], y0[i], x1[i], y1[i]);
+                if (feuilles) {
+                    noeud.ids[noeud.n] = ids[i];
+                    feuilleDe[ids[i]] = noeud;
+                } else {
+                    noeud.enfants[noeud.n] = enfants[i];
+                    enfants[i].parent = noeud;
+                }
+                noeud.n++;
+            }
+            noeuds[k] = noeud;
+        }
+        return noeuds;
+    }
+
+    /**
+     * Trie ordre[debut, fin) selon cle[ordre[i]]. Chaque clé est réduite en float et rangée
+     * avec son indice dans un long, pour trier un tableau primitif contigu : la perte de
+     * précision ne change que la qualité du pavage, pas le contenu de l'arbre.
+     */
+    private static void trier(int[] ordre, int debut, int fin, double[] cle) {
+        long[] paires = new long[fin - debut];
+        for (int j = debut; j < fin; j++) {
+            int i = ordre[j];
+            int bits = Float.floatToIntBits((float) cle[i]);
+            // les flottants négatifs sont rangés à l'envers de leurs bits
+            int triable = bits ^ ((bits >> 31) & 0x7fffffff);
+            paires[j - debut] = ((long) triable << 32) | (i & 0xffffffffL);
+        }
+        Arrays.sort(paires);
+        for (int j = debut; j < fin; j++) {
+            ordre[j] = (int) paires[j - debut];
+        }
+    }
+
+    /**
+     * Ajoute un identifiant qui n'est pas encore dans l'arbre.
+     *
+     * @param id    L'identifiant, positif ou nul.
+     * @param boite Sa boîte englobante.
+     */
+    void inserer(int id, Boite boite) {
+        if (id >= feuilleDe.length) {
+            feuilleDe = Arrays.copyOf(feuilleDe, Math.max(id + 1, feuilleDe.length * 2));
+        }
+        double x0 = boite.minX(), y0 = boite.minY(), x1 = boite.maxX(), y1 = boite.maxY();
+
+        Noeud noeud = racine;
+        while (!noeud.feuille) {
+            int meilleur = 0;
+            double meilleurAgrandissement = Double.POSITIVE_INFINITY;
+            double meilleureAire = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < noeud.n; i++) {
+                double aire = (noeud.maxX[i] - noeud.minX[i]) * (noeud.maxY[i] - noeud.minY[i]);
+                double agrandie = (Math.max(x1, noeud.maxX[i]) - Math.min(x0, noeud.minX[i]))
+                        * (Math.max(y1, noeud.maxY[i]) - Math.min(y0, noeud.minY[i]));
+                double agrandissement = agrandie - aire;
+                if (agrandissement < meilleurAgrandissement
+                        || (agrandissement == meilleurAgrandissement && aire < meilleureAire)) {
+                    meilleur = i;
+                    meilleurAgrandissement = agrandissement;
+                    meilleureAire = aire;
+                }
+            }
+            noeud = noeud.enfants[meilleur];
+        }
+
+        noeud.definir(noeud.n, x0, y0, x1, y1);
+        noeud.ids[noeud.n] = id;
+        noeud.n++;
+        feuilleDe[id] = noeud;
+        taille++;
+        if (noeud.n > CAPACITE) {
+            diviser(noeud);
+        } else {
+            ajusterBornes(noeud);
+        }
+    }
+
+    /**
+     * Retire un identifiant de l'arbre ; sans effet s'il n'y est pas.
+     *
+     * @param id L'identifiant.
+     */
+    void supprimer(int id) {
+        if (!contient(id)) {
+            return;
+        }
+        Noeud feuille = feuilleDe[id];
+        feuilleDe[id] = null;
+        taille--;
+        int i = 0;
+        while (feuille.ids[i] != id) {
+            i++;
+        }
+        feuille.n--;
+        feuille.copier(i, feuille, feuille.n);
+
+        Noeud noeud = feuille;
+        while (noeud.n == 0 && noeud.parent != null) {
+            Noeud parent = noeud.parent;
+            int j = parent.position(noeud);
+            parent.n--;
+            parent.copier(j, parent, parent.n);
+            parent.enfants[parent.n] = null;
+            noeud = parent;
+        }
+        ajusterBornes(noeud);
+        while (!racine.feuille && racine.n == 1) {
+            racine = racine.enfants[0];
+            racine.parent = null;
+        }
+        if (!racine.feuille && racine.n == 0) {
+            racine = new Noeud(true);
+        }
+    }
+
+    /**
+     * Coupe en deux un nœud ayant une entrée de trop, et remonte la coupe si le parent
+     * déborde à son tour.
+     */
+    private void diviser(Noeud noeud) {
+        int n = noeud.n;
+        double[] cx = new double[n];
+        double[] cy = new double[n];
+        double minCx = Double.POSITIVE_INFINITY, maxCx = Double.NEGATIVE_INFINITY;
+        double minCy = Double.POSITIVE_INFINITY, maxCy = Double.NEGATIVE_INFINITY;
+        int[] ordre = new int[n];
+        for (int i = 0; i < n; i++) {
+            cx[i] = noeud.minX[i] + noeud.maxX[i];
+            cy[i] = noeud.minY[i] + noeud.maxY[i];
+            minCx = Math.min(minCx, cx[i]);
+            maxCx = Math.max(maxCx, cx[i]);
+            minCy = Math.min(minCy, cy[i]);
+            maxCy = Math.max(maxCy, cy[i]);
+            ordre[i] = i;
+        }
+        trier(ordre, 0, n, maxCx - minCx >= maxCy - minCy ? cx : cy);
+
+        Noeud copie = new Noeud(noeud.feuille);
+        for (int i = 0; i < n; i++) {
+            copie.copier(i, noeud, ordre[i]);
+        }
+        copie.n = n;
+
+        Noeud frere = new Noeud(noeud.feuille);
+        int moitie = n / 2;
+        noeud.n = 0;
+        for (int i = 0; i < n; i++) {
+            Noeud cible = i < moitie ? noeud : frere;
+            cible.copier(cible.n, copie, i);
+            if (cible.feuille) {
+                feuilleDe[cible.ids[cible.n]] = cible;
+            } else {
+                cible.enfants[cible.n].parent = cible;
+            }
+            cible.n++;
+        }
+        if (!noeud.feuille) {
+            Arrays.fill(noeud.enfants, noeud.n, noeud.enfants.length, null);
+        }
+
+        Noeud parent = noeud.parent;
+        if (parent == null) {
+            racine = new Noeud(false);
+            racine.enfants[0] = noeud;
+            racine.enfants[1] = frere;
+            racine.n = 2;
+            noeud.parent = racine;
+            frere.parent = racine;
+            mettreAJourBornes(racine, 0, noeud);
+            mettreAJourBornes(racine, 1, frere);
+            return;
+        }
+        mettreAJourBornes(parent, parent.position(noeud), noeud);
+        parent.enfants[parent.n] = frere;
+        frere.parent = parent;
+        mettreAJourBornes(parent, parent.n, frere);
+        parent.n++;
+        if (parent.n > CAPACITE) {
+            diviser(parent);
+        } else {
+            ajusterBornes(parent);
+        }
+    }
+
+    /**
+     * Recalcule la boîte d'un nœud dans ses ancêtres, en s'arrêtant dès qu'elle ne change plus.
+     */
+    private void ajusterBornes(Noeud noeud) {
+        while (noeud.parent != null) {
+            Noeud parent = noeud.parent;
+            if (!mettreAJourBornes(parent, parent.position(noeud), noeud)) {
+                return;
+            }
+            noeud = parent;
+        }
+    }
+
+    private static boolean mettreAJourBornes(Noeud parent, int i, Noeud enfant) {
+        double[] b = bornes(enfant);
+        if (parent.minX[i] == b[0] && parent.minY[i] == b[1] && parent.maxX[i] == b[2] && parent.maxY[i] == b[3]) {
+            return false;
+        }
+        parent.definir(i, b[0], b[1], b[2], b[3]);
+        return true;
+    }
+
+    private static double[] bornes(Noeud noeud) {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < noeud.n; i++) {
+            x0 = Math.min(x0, noeud.minX[i]);
+            y0 = Math.min(y0, noeud.minY[i]);
+            x1 = Math.max(x1, noeud.maxX[i]);
+            y1 = Math.max(y1, noeud.maxY[i]);
+        }
+        return new double[] {x0, y0, x1, y1};
+    }
+
+    /**
+     * Donne chaque identifiant dont la boîte touche la zone (bords compris), dans un ordre
+     * quelconque.
+     *
+     * @param x0       Abscisse minimale de la zone.
+     * @param y0       Ordonnée minimale de la zone.
+     * @param x1       Abscisse maximale de la zone.
+     * @param y1       Ordonnée maximale de la zone.
+     * @param resultat Reçoit les identifiants trouvés.
+     */
+    void rechercher(double x0, double y0, double x1, double y1, IntConsumer resultat) {
+        if (taille == 0) {
+            return;
+        }
+        Noeud[] pile = new Noeud[64];
+        int sommet = 0;
+        pile[sommet++] = racine;
+        while (sommet > 0) {
+            Noeud noeud = pile[--sommet];
+            for (int i = 0; i < noeud.n; i++) {
+                if (noeud.minX[i] > x1 || noeud.maxX[i] < x0 || noeud.minY[i] > y1 || noeud.maxY[i] < y0) {
+                    continue;
+                }
+                if (noeud.feuille) {
+                    resultat.accept(noeud.ids[i]);
+                } else {
+                    if (sommet == pile.length) {
+                        pile = Arrays.copyOf(pile, sommet * 2);
+                    }
+                    pile[sommet++] = noeud.enfants[i];
+                }
+            }
+        }
+    }
+}
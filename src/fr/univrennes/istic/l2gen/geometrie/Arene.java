@@ -0,0 +1,266 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mémoire hors du tas Java pour les sommets des grandes scènes, allouée avec l'API Foreign
+ * Function &amp; Memory ({@link Arena}, {@link MemorySegment}).
+ * </br>
+ * Les formes construites par une arène ({@link #polygone(double...)}, {@link #ligne(double...)},
+ * {@link #triangle(double, double, double, double, double, double)}) rangent leurs
+ * coordonnées dans de grands segments de mémoire native de l'arène (64 Mo chacun), et non
+ * dans des tableaux du tas : la taille du tas et le travail du ramasse-miettes ne dépendent
+ * plus du nombre de sommets, mais seulement du nombre de formes et de segments. Ces formes
+ * offrent les mêmes opérations que les autres ; dupliquer ou modifier l'une d'elles alloue
+ * dans la même arène.
+ * </br>
+ * Une zone que plus aucune forme ne référence (l'ancienne zone d'une forme agrandie par
+ * {@link Ligne#ajouterSommet(Point)}, ou une zone quittée par toutes les formes qui
+ * la partageaient) est rendue à l'arène, et réutilisée par la prochaine allocation de même
+ * taille : modifier une scène image après image sur place n'alloue rien. En revanche, la
+ * zone d'une forme devenue inaccessible, une copie dont on ne se sert plus par exemple,
+ * n'est rendue qu'à la fermeture : rien ne prévient l'arène de sa disparition. Tant que
+ * cette copie partageait la zone de l'original, celui-ci recopie aussi ses sommets à sa
+ * prochaine modification. Une scène qui duplique des formes à chaque image gagne donc à
+ * être reconstruite de temps en temps dans une nouvelle arène, l'ancienne étant fermée.
+ * </br>
+ * {@link #close()} libère immédiatement toute la mémoire de l'arène, sans attendre le
+ * ramasse-miettes. Toute opération qui lit ou modifie ensuite les sommets d'une de ses
+ * formes lève une {@link IllegalStateException}, y compris depuis un autre thread : l'API
+ * garantit qu'aucun accès ne lit une mémoire rendue. Une arène s'utilise typiquement dans
+ * un bloc try-with-resources, qui borne la durée de vie de la scène.
+ * </br>
+ * L'API est en préversion dans Java 21 : la JVM doit être lancée avec
+ * {@code --enable-preview} pour utiliser une arène. Cette classe est la seule à s'en
+ * servir, et n'apparaît dans aucune signature des formes : les formes rangées dans le tas
+ * se compilent et s'utilisent sans cette option.
+ */
+@SuppressWarnings("preview")
+public final class Arene implements AutoCloseable {
+    // nombre de doubles d'un segment (64 Mo)
+    private static final int DOUBLES_PAR_BLOC = 1 << 23;
+    // au-delà, une allocation reçoit son propre segment
+    private static final int ALLOCATION_MAX_PARTAGEE = DOUBLES_PAR_BLOC / 4;
+
+    private final Arena arena = Arena.ofShared();
+    // table des segments, remplacée par une copie à chaque nouveau segment pour être lue
+    // sans verrou ; null une fois l'arène fermée
+    private volatile MemorySegment[] blocs = new MemorySegment[0];
+    // segment dans lequel sont faites les petites allocations, et sa première place libre
+    private int blocCourant = -1;
+    private int libre;
+    private long octets;
+    // zones rendues par liberer(), rangées par taille en doubles
+    private final Map<Integer, ArrayDeque<Long>> zonesLibres = new HashMap<>();
+
+    /**
+     * Construit un polygone dont les sommets sont rangés dans l'arène. Le polygone offre les
+     * mêmes opérations que les autres ; elles lèvent une {@link IllegalStateException} une
+     * fois l'arène fermée.
+     *
+     * @param coords Liste des coordonnées des sommets (x1, y1, x2, y2, ..., xn, yn), copiées
+     *               dans l'arène.
+     * @return Le polygone.
+     * @throws IllegalArgumentException Si le nombre de coordonnées est inférieur à 6 (moins de 3 sommets).
+     * @throws IllegalStateException    Si l'arène est fermée.
+     */
+    public Polygone polygone(double... coords) {
+        if (coords.length < 6 || coords.length % 2 != 0) {
+            throw new IllegalArgumentException("Un polygone doit avoir au moins 3 sommets (6 coordonnées).");
+        }
+        return new Polygone(new Sommets(this, coords));
+    }
+
+    /**
+     * Construit une ligne dont les sommets sont rangés dans l'arène. La ligne offre les
+     * mêmes opérations que les autres ; elles lèvent une {@link IllegalStateException} une
+     * fois l'arène fermée.
+     *
+     * @param points Tableau contenant les coordonnées x/y des sommets, copiées dans l'arène.
+     * @return La ligne.
+     * @throws IllegalStateException Si la ligne a moins de deux sommets, ou si l'arène est fermée.
+     */
+    public Ligne ligne(double... points) {
+        if (points.length <= 2) {
+            throw new IllegalStateException("Une ligne doit avoir au moins deux sommets.");
+        }
+        // une coordonnée isolée en fin de tableau est ignorée
+        return new Ligne(new Sommets(this, points.length % 2 == 0 ? points : Arrays.copyOf(points, points.length - 1)));
+    }
+
+    /**
+     * Construit un triangle dont les sommets sont rangés dans l'arène. Le triangle offre les
+     * mêmes opérations que les autres ; elles lèvent une {@link IllegalStateException} une
+     * fois l'arène fermée.
+     *
+     * @param sommet1x Coordonnée x du premier sommet.
+     * @param sommet1y Coordonnée y du premier sommet.
+     * @param sommet2x Coordonnée x du deuxième sommet.
+     * @param sommet2y Coordonnée y du deuxième sommet.
+     * @param sommet3x Coordonnée x du troisième sommet.
+     * @param sommet3y Coordonnée y du troisième sommet.
+     * @return Le triangle.
+     * @throws IllegalStateException Si l'arène est fermée.
+     */
+    public Triangle triangle(double sommet1x, double sommet1y, double sommet2x, double sommet2y,
+                             double sommet3x, double sommet3y) {
+        return new Triangle(new Sommets(this, sommet1x, sommet1y, sommet2x, sommet2y, sommet3x, sommet3y));
+    }
+
+    /**
+     * Alloue une zone de doubles dans un segment de l'arène.
+     *
+     * @param doubles Taille de la zone, en doubles.
+     * @return Le numéro du segment, dans les 32 bits de poids fort, et la position de la
+     *         zone dans le segment, en doubles, dans les 32 bits de poids faible.
+     * @throws IllegalStateException Si l'arène est fermée.
+     */
+    synchronized long allouer(int doubles) {
+        blocs();
+        ArrayDeque<Long> libres = zonesLibres.get(doubles);
+        if (libres != null && !libres.isEmpty()) {
+            return libres.pop();
+        }
+        if (doubles > ALLOCATION_MAX_PARTAGEE) {
+            return (long) nouveauBloc(doubles) << 32;
+        }
+        if (blocCourant < 0 || libre + doubles > DOUBLES_PAR_BLOC) {
+            blocCourant = nouveauBloc(DOUBLES_PAR_BLOC);
+            libre = 0;
+        }
+        int position = libre;
+        libre += doubles;
+        return (long) blocCourant << 32 | position;
+    }
+
+    /**
+     * Rend une zone allouée par {@link #allouer(int)} que plus aucune forme ne référence :
+     * elle sera réutilisée par une prochaine allocation de même taille. Rendre une zone à
+     * une arène fermée ne fait rien.
+     *
+     * @param bloc     Numéro du segment de la zone.
+     * @param position Position de la zone dans le segment, en doubles.
+     * @param doubles  Taille de la zone, en doubles.
+     */
+    synchronized void liberer(int bloc, int position, int doubles) {
+        if (blocs == null) {
+            return;
+        }
+        zonesLibres.computeIfAbsent(doubles, d -> new ArrayDeque<>()).push((long) bloc << 32 | position);
+    }
+
+    private int nouveauBloc(int doubles) {
+        long taille = (long) doubles * Double.BYTES;
+        MemorySegment[] anciens = blocs;
+        MemorySegment[] nouveaux = Arrays.copyOf(anciens, anciens.length + 1);
+        nouveaux[anciens.length] = arena.allocate(taille, Double.BYTES);
+        blocs = nouveaux;
+        octets += taille;
+        return anciens.length;
+    }
+
+    private MemorySegment[] blocs() {
+        MemorySegment[] b = blocs;
+        if (b == null) {
+            throw new IllegalStateException("L'arene est fermee : ses sommets ont ete liberes.");
+        }
+        return b;
+    }
+
+    /**
+     * @param bloc     Numéro du segment.
+     * @param position Position du double dans le segment.
+     * @return Le double lu.
+     * @throws IllegalStateException Si l'arène est fermée.
+     */
+    double lire(int bloc, int position) {
+        return blocs()[bloc].getAtIndex(ValueLayout.JAVA_DOUBLE, position);
+    }
+
+    /**
+     * @param bloc     Numéro du segment.
+     * @param position Position du double dans le segment.
+     * @param valeur   Le double à écrire.
+     * @throws IllegalStateException Si l'arène est fermée.
+     */
+    void ecrire(int bloc, int position, double valeur) {
+        blocs()[bloc].setAtIndex(ValueLayout.JAVA_DOUBLE, position, valeur);
+    }
+
+    /**
+     * Copie des doubles d'un segment vers un tableau du tas.
+     *
+     * @throws IllegalStateException Si l'arène est fermée.
+     */
+    void lire(int bloc, int position, double[] cible, int debut, int longueur) {
+        MemorySegment.copy(blocs()[bloc], ValueLayout.JAVA_DOUBLE, (long) position * Double.BYTES,
+                cible, debut, longueur);
+    }
+
+    /**
+     * Copie des doubles d'un tableau du tas vers un segment.
+     *
+     * @throws IllegalStateException Si l'arène est fermée.
+     */
+    void ecrire(int bloc, int position, double[] source, int debut, int longueur) {
+        MemorySegment.copy(source, debut, blocs()[bloc], ValueLayout.JAVA_DOUBLE,
+                (long) position * Double.BYTES, longueur);
+    }
+
+    /**
+     * Copie des doubles d'une zone de l'arène vers une autre.
+     *
+     * @throws IllegalStateException Si l'arène est fermée.
+     */
+    void copier(int blocSource, int positionSource, int blocCible, int positionCible, int longueur) {
+        MemorySegment[] b = blocs();
+        MemorySegment.copy(b[blocSource], (long) positionSource * Double.BYTES,
+                b[blocCible], (long) positionCible * Double.BYTES, (long) longueur * Double.BYTES);
+    }
+
+    /**
+     * @return true tant que l'arène n'est pas fermée.
+     */
+    public boolean estOuverte() {
+        return blocs != null;
+    }
+
+    /**
+     * @return La mémoire hors du tas réservée par l'arène, en octets.
+     */
+    public synchronized long octets() {
+        return octets;
+    }
+
+    /**
+     * Libère immédiatement toute la mémoire de l'arène. Les sommets de ses formes ne sont
+     * plus accessibles ; leur boîte englobante et leur centre, s'ils ont déjà été calculés,
+     * restent connus. Fermer une arène déjà fermée ne fait rien.
+     */
+    @Override
+    public synchronized void close() {
+        if (blocs == null) {
+            return;
+        }
+        blocs = null;
+        blocCourant = -1;
+        octets = 0;
+        zonesLibres.clear();
+        // la fermeture échoue si un autre thread est au milieu d'un accès à un segment : les
+        // nouveaux accès étant refusés, ceux en cours se terminent, et elle est retentée
+        while (true) {
+            try {
+                arena.close();
+                return;
+            } catch (IllegalStateException e) {
+                Thread.yield();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+/**
+ * Boîte englobante alignée sur les axes, définie par ses coordonnées minimales et maximales.
+ * Une boîte est immuable.
+ */
+public final class Boite {
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    /**
+     * Construit une boîte à partir de ses bornes.
+     *
+     * @param minX Coordonnée x minimale.
+     * @param minY Coordonnée y minimale.
+     * @param maxX Coordonnée x maximale.
+     * @param maxY Coordonnée y maximale.
+     */
+    public Boite(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * @return La coordonnée x minimale.
+     */
+    public double minX() {
+        return minX;
+    }
+
+    /**
+     * @return La coordonnée y minimale.
+     */
+    public double minY() {
+        return minY;
+    }
+
+    /**
+     * @return La coordonnée x maximale.
+     */
+    public double maxX() {
+        return maxX;
+    }
+
+    /**
+     * @return La coordonnée y maximale.
+     */
+    public double maxY() {
+        return maxY;
+    }
+
+    /**
+     * @return La largeur de la boîte.
+     */
+    public double largeur() {
+        return maxX - minX;
+    }
+
+    /**
+     * @return La hauteur de la boîte.
+     */
+    public double hauteur() {
+        return maxY - minY;
+    }
+
+    /**
+     * @return Le centre de la boîte.
+     */
+    public Point centre() {
+        return new Point((minX + maxX) / 2, (minY + maxY) / 2);
+    }
+
+    /**
+     * Retourne la plus petite boîte contenant cette boîte et la boîte donnée.
+     *
+     * @param autre La boîte à réunir avec celle-ci.
+     * @return La boîte englobant les deux.
+     */
+    public Boite union(Boite autre) {
+        return new Boite(
+                Math.min(minX, autre.minX), Math.min(minY, autre.minY),
+                Math.max(maxX, autre.maxX), Math.max(maxY, autre.maxY)
+        );
+    }
+
+    /**
+     * Indique si les deux boîtes ont au moins un point en commun (bords compris).
+     *
+     * @param autre La boîte à tester.
+     * @return true si les boîtes se touchent ou se chevauchent.
+     */
+    public boolean intersecte(Boite autre) {
+        return minX <= autre.maxX && autre.minX <= maxX && minY <= autre.maxY && autre.minY <= maxY;
+    }
+
+    /**
+     * Indique si le point (x, y) est dans la boîte (bords compris).
+     *
+     * @param x Coordonnée x du point.
+     * @param y Coordonnée y du point.
+     * @return true si le point est dans la boîte.
+     */
+    public boolean contient(double x, double y) {
+        return minX <= x && x <= maxX && minY <= y && y <= maxY;
+    }
+
+    /**
+     * Retourne une copie de la boîte décalée de (dx, dy).
+     *
+     * @param dx Déplacement en x.
+     * @param dy Déplacement en y.
+     * @return La boîte déplacée.
+     */
+    public Boite translater(double dx, double dy) {
+        return new Boite(minX + dx, minY + dy, maxX + dx, maxY + dy);
+    }
+
+    @Override
+    public String toString() {
+        return "Boite[" + minX + "," + minY + " ; " + maxX + "," + maxY + "]";
+    }
+}
@@ -1,6 +1,8 @@
 package fr.univrennes.istic.l2gen.geometrie;
 
-public class Cercle implements IForme {
+import java.io.IOException;
+
+public class Cercle extends Forme {
     private Point centre;
     private double rayon;
 
@@ -21,10 +23,21 @@ public class Cercle implements IForme {
      * @return Un objet {@link Point} représentant le centre du cercle
      */
     @Override
-    public Point centre() {
+    Point calculerCentre() {
         return centre;
     }
 
+    /**
+     * Calcule la boîte englobante du cercle, le carré de côté 2x son rayon.
+     *
+     * @return La boîte englobante du cercle.
+     */
+    @Override
+    Boite calculerBoite() {
+        double r = Math.abs(rayon);
+        return new Boite(centre.x() - r, centre.y() - r, centre.x() + r, centre.y() + r);
+    }
+
     /**
      * Deplace le Cercle de x sur l'axe x et de y sur l'axe y
      * Le deplacement se fait du centre actuel vers le nouveau centre.
@@ -34,7 +47,8 @@ public class Cercle implements IForme {
      */
     @Override
     public void deplacer(double x, double y) {
-        this.centre.plus(x, y);
+        this.centre = centre.plus(x, y);
+        invalider();
     }
 
     /**
@@ -49,18 +63,35 @@ public class Cercle implements IForme {
     }
 
     /**
-     * Génère une représentation SVG du Cercle.
+     * Génère la description du cercle déplacé de (dx, dy), sans copie ni modification.
+     */
+    @Override
+    String description(int indentation, double dx, double dy) {
+        if (dx == 0 && dy == 0) {
+            return description(indentation);
+        }
+        String indent = "  ";
+        return indent.repeat(indentation) + "Cercle centre=" + (centre().x() + dx) + "," + (centre().y() + dy)
+                + " r=" + this.hauteur() / 2;
+    }
+
+    /**
+     * Écrit une représentation SVG du Cercle dans une sortie.
+     * Exemple de sortie :
+     * {@code <circle cx="centreX" cy="centreY" r="rayon" fill="white" stroke="black"/>}
      *
-     * @return Une chaîne de caractères représentant le groupe sous forme de balise SVG.
-     *         Exemple de sortie :
-     *         {@code <circle cx="centreX" cy="centreY" r="rayon" fill="white" stroke="black"/>}
+     * @param sortie La sortie dans laquelle écrire la balise SVG.
+     * @throws IOException Si l'écriture dans la sortie échoue.
      */
     @Override
-    public String enSVG() {
-        return String.format(
-                "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"%.1f\" fill=\"white\" stroke=\"black\"/>",
-                centre.x(), centre.y(), rayon
-        );
+    public void enSVG(Appendable sortie) throws IOException {
+        sortie.append("<circle cx=\"");
+        FormatNombre.ecrire(sortie, centre.x());
+        sortie.append("\" cy=\"");
+        FormatNombre.ecrire(sortie, centre.y());
+        sortie.append("\" r=\"");
+        FormatNombre.ecrire(sortie, rayon);
+        sortie.append("\" fill=\"white\" stroke=\"black\"/>");
     }
 
     /**
@@ -109,6 +140,7 @@ public class Cercle implements IForme {
         if (largeur != hauteur)
             throw new IllegalArgumentException("La largeur et la hauteur doivent etre les memes");
         this.rayon *= hauteur;
+        invalider();
     }
 
     /**
@@ -0,0 +1,192 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+/**
+ * Calculs sur l'enveloppe convexe d'un nuage de points, utilisés par {@link Groupe#centre()}.
+ * </br>
+ * Les points sont passés sous forme de deux tableaux de coordonnées, sans objet
+ * {@link Point} intermédiaire.
+ */
+final class Enveloppe {
+    private Enveloppe() {
+    }
+
+    /**
+     * Calcule le milieu des deux points les plus éloignés du nuage.
+     * </br>
+     * L'enveloppe convexe est construite par l'algorithme de la chaîne monotone (Andrew),
+     * puis son diamètre est obtenu par la méthode des pieds à coulisse tournants : seules les
+     * paires antipodales de l'enveloppe sont examinées.
+     * En cas d'égalité entre plusieurs paires, on retient celle dont les indices sont les plus
+     * petits dans l'ordre lexicographique, comme le ferait une comparaison exhaustive.
+     *
+     * @param xs Coordonnées x des points.
+     * @param ys Coordonnées y des points.
+     * @return Le milieu du diamètre du nuage.
+     * @throws IllegalArgumentException Si le nuage est vide.
+     *
+     * @implNote Complexité : O(n log n) pour le tri, O(h) pour le diamètre (h sommets sur l'enveloppe).
+     */
+    static Point milieuDiametre(double[] xs, double[] ys) {
+        if (xs.length == 0) {
+            throw new IllegalArgumentException("Le nuage de points est vide.");
+        }
+        int[] h = enveloppe(xs, ys);
+        int m = h.length;
+        if (m == 1) {
+            return new Point(xs[h[0]], ys[h[0]]);
+        }
+
+        Diametre d = new Diametre(xs, ys);
+        if (m == 2) {
+            d.candidat(h[0], h[1]);
+        } else {
+            int j = 1;
+            for (int i = 0; i < m; i++) {
+                int a = h[i];
+                int b = h[(i + 1) % m];
+                while (aire(xs, ys, a, b, h[(j + 1) % m]) > aire(xs, ys, a, b, h[j])) {
+                    j = (j + 1) % m;
+                }
+                d.candidat(a, h[j]);
+                d.candidat(b, h[j]);
+                // côté parallèle à l'arête courante : les deux extrémités sont antipodales
+                if (aire(xs, ys, a, b, h[(j + 1) % m]) == aire(xs, ys, a, b, h[j])) {
+                    d.candidat(a, h[(j + 1) % m]);
+                    d.candidat(b, h[(j + 1) % m]);
+                }
+            }
+        }
+        return new Point((xs[d.p1] + xs[d.p2]) / 2, (ys[d.p1] + ys[d.p2]) / 2);
+    }
+
+    /**
+     * Construit l'enveloppe convexe du nuage, dans le sens trigonométrique.
+     * Les points confondus ne sont représentés qu'une fois, par leur plus petit indice,
+     * et les points alignés sur un côté sont écartés.
+     *
+     * @return Les indices des sommets de l'enveloppe.
+     */
+    private static int[] enveloppe(double[] xs, double[] ys) {
+        int n = xs.length;
+        int[] tri = new int[n];
+        for (int i = 0; i < n; i++) {
+            tri[i] = i;
+        }
+        trier(xs, ys, tri, new int[n], 0, n);
+
+        int[] h = new int[2 * n];
+        int k = 0;
+        // chaîne inférieure
+        for (int i = 0; i < n; i++) {
+            int p = tri[i];
+            if (i > 0 && xs[p] == xs[tri[i - 1]] && ys[p] == ys[tri[i - 1]]) {
+                continue;
+            }
+            while (k >= 2 && produitVectoriel(xs, ys, h[k - 2], h[k - 1], p) <= 0) {
+                k--;
+            }
+            h[k++] = p;
+        }
+        // chaîne supérieure
+        int bas = k + 1;
+        for (int i = n - 2; i >= 0; i--) {
+            int p = tri[i];
+            if (xs[p] == xs[tri[i + 1]] && ys[p] == ys[tri[i + 1]]) {
+                continue;
+            }
+            while (k >= bas && produitVectoriel(xs, ys, h[k - 2], h[k - 1], p) <= 0) {
+                k--;
+            }
+            h[k++] = p;
+        }
+        if (k > 1) {
+            k--; // le premier point est répété en fin de chaîne
+        }
+
+        // un point confondu avec d'autres est représenté par le plus petit indice du groupe,
+        // que le tri place en tête de groupe
+        int[] representant = new int[n];
+        for (int i = 0; i < n; i++) {
+            int p = tri[i];
+            boolean confondu = i > 0 && xs[p] == xs[tri[i - 1]] && ys[p] == ys[tri[i - 1]];
+            representant[p] = confondu ? representant[tri[i - 1]] : p;
+        }
+        int[] resultat = new int[k];
+        for (int i = 0; i < k; i++) {
+            resultat[i] = representant[h[i]];
+        }
+        return resultat;
+    }
+
+    /**
+     * Tri fusion des indices par x croissant, puis y croissant, puis indice croissant.
+     */
+    private static void trier(double[] xs, double[] ys, int[] t, int[] tmp, int debut, int fin) {
+        if (fin - debut < 2) {
+            return;
+        }
+        int milieu = (debut + fin) >>> 1;
+        trier(xs, ys, t, tmp, debut, milieu);
+        trier(xs, ys, t, tmp, milieu, fin);
+        if (!avant(xs, ys, t[milieu], t[milieu - 1])) {
+            return; // déjà ordonné
+        }
+        System.arraycopy(t, debut, tmp, debut, fin - debut);
+        int i = debut;
+        int j = milieu;
+        for (int k = debut; k < fin; k++) {
+            if (j >= fin || (i < milieu && !avant(xs, ys, tmp[j], tmp[i]))) {
+                t[k] = tmp[i++];
+            } else {
+                t[k] = tmp[j++];
+            }
+        }
+    }
+
+    private static boolean avant(double[] xs, double[] ys, int a, int b) {
+        if (xs[a] != xs[b]) {
+            return xs[a] < xs[b];
+        }
+        if (ys[a] != ys[b]) {
+            return ys[a] < ys[b];
+        }
+        return a < b;
+    }
+
+    private static double produitVectoriel(double[] xs, double[] ys, int o, int a, int b) {
+        return (xs[a] - xs[o]) * (ys[b] - ys[o]) - (ys[a] - ys[o]) * (xs[b] - xs[o]);
+    }
+
+    private static double aire(double[] xs, double[] ys, int a, int b, int c) {
+        return Math.abs(produitVectoriel(xs, ys, a, b, c));
+    }
+
+    /**
+     * Meilleure paire rencontrée lors du parcours des paires antipodales.
+     */
+    private static final class Diametre {
+        private final double[] xs;
+        private final double[] ys;
+        private double distance = -1;
+        private int p1;
+        private int p2;
+
+        Diametre(double[] xs, double[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+        }
+
+        void candidat(int a, int b) {
+            double dx = xs[a] - xs[b];
+            double dy = ys[a] - ys[b];
+            double d = dx * dx + dy * dy;
+            int bas = Math.min(a, b);
+            int haut = Math.max(a, b);
+            if (d > distance || (d == distance && (bas < p1 || (bas == p1 && haut < p2)))) {
+                distance = d;
+                p1 = bas;
+                p2 = haut;
+            }
+        }
+    }
+}
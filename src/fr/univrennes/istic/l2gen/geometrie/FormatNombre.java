@@ -0,0 +1,138 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Écriture de nombres à virgule fixe pour les sorties SVG et les descriptions des formes.
+ * </br>
+ * Le résultat est identique à {@code String.format(Locale.ROOT, "%.nf", valeur)}
+ * (arrondi au plus proche, les cas d'égalité vers l'infini), mais sans analyser de motif
+ * ni allouer : les chiffres sont écrits un à un dans la sortie.
+ * Les rares valeurs où l'arrondi binaire pourrait différer de l'arrondi décimal de
+ * {@link java.util.Formatter} (à moins de quelques ulp d'un cas d'égalité), ainsi que les
+ * valeurs non finies ou trop grandes, sont déléguées à {@link String#format}.
+ * </br>
+ * La précision (nombre de décimales) utilisée par les formes est réglable par
+ * {@link #setPrecision(int)} ; elle vaut 1 par défaut. Elle ne s'applique qu'aux sorties
+ * déjà écrites à précision fixe ({@link Cercle}, {@link Rectangle}) : les sommets de
+ * {@link Polygone}, {@link Ligne} et {@link Triangle} restent écrits sans perte.
+ */
+public final class FormatNombre {
+    /**
+     * Précision maximale acceptée.
+     */
+    public static final int PRECISION_MAX = 9;
+
+    private static final double[] PUISSANCES = {1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+    private static final long[] PUISSANCES_ENTIERES = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L,
+            100_000_000_000_000L, 1_000_000_000_000_000L
+    };
+    // au-delà, les chiffres de Formatter et ceux de la valeur binaire peuvent diverger
+    private static final double LIMITE = 1e15;
+
+    private static volatile int precision = 1;
+
+    private FormatNombre() {
+    }
+
+    /**
+     * @return Le nombre de décimales écrites par les formes.
+     */
+    public static int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Change le nombre de décimales écrites par les formes dans leurs sorties SVG et descriptions.
+     *
+     * @param precision Le nombre de décimales, entre 0 et {@link #PRECISION_MAX}.
+     * @throws IllegalArgumentException Si la précision est hors de cet intervalle.
+     */
+    public static void setPrecision(int precision) {
+        verifierPrecision(precision);
+        FormatNombre.precision = precision;
+    }
+
+    /**
+     * Écrit un nombre avec la précision courante.
+     *
+     * @param sortie La sortie dans laquelle écrire.
+     * @param valeur La valeur à écrire.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    public static void ecrire(Appendable sortie, double valeur) throws IOException {
+        ecrire(sortie, valeur, precision);
+    }
+
+    /**
+     * Écrit un nombre avec la précision courante dans un {@link StringBuilder}.
+     *
+     * @param sortie Le StringBuilder dans lequel écrire.
+     * @param valeur La valeur à écrire.
+     */
+    public static void ecrire(StringBuilder sortie, double valeur) {
+        try {
+            ecrire(sortie, valeur, precision);
+        } catch (IOException e) {
+            throw new AssertionError("un StringBuilder ne lève pas d'IOException", e);
+        }
+    }
+
+    /**
+     * Écrit un nombre avec un nombre de décimales donné.
+     *
+     * @param sortie    La sortie dans laquelle écrire.
+     * @param valeur    La valeur à écrire.
+     * @param precision Le nombre de décimales, entre 0 et {@link #PRECISION_MAX}.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     * @throws IllegalArgumentException Si la précision est hors de l'intervalle accepté.
+     */
+    public static void ecrire(Appendable sortie, double valeur, int precision) throws IOException {
+        verifierPrecision(precision);
+        double absolue = Math.abs(valeur);
+        double echelle = absolue * PUISSANCES[precision];
+        if (!(echelle < LIMITE)) { // NaN, infini ou trop grand
+            sortie.append(String.format(Locale.ROOT, "%." + precision + "f", valeur));
+            return;
+        }
+        double plancher = Math.floor(echelle);
+        double reste = echelle - plancher;
+        if (Math.abs(reste - 0.5) <= 4 * Math.ulp(echelle)) {
+            sortie.append(String.format(Locale.ROOT, "%." + precision + "f", valeur));
+            return;
+        }
+
+        long arrondi = (long) plancher + (reste > 0.5 ? 1 : 0);
+        if (Double.doubleToRawLongBits(valeur) < 0) {
+            sortie.append('-');
+        }
+        long diviseur = PUISSANCES_ENTIERES[precision];
+        ecrireEntier(sortie, arrondi / diviseur);
+        if (precision > 0) {
+            sortie.append('.');
+            long decimales = arrondi % diviseur;
+            for (int i = precision - 1; i >= 0; i--) {
+                sortie.append((char) ('0' + (decimales / PUISSANCES_ENTIERES[i]) % 10));
+            }
+        }
+    }
+
+    private static void ecrireEntier(Appendable sortie, long n) throws IOException {
+        int chiffres = 1;
+        while (chiffres < PUISSANCES_ENTIERES.length && n >= PUISSANCES_ENTIERES[chiffres]) {
+            chiffres++;
+        }
+        for (int i = chiffres - 1; i >= 0; i--) {
+            sortie.append((char) ('0' + (n / PUISSANCES_ENTIERES[i]) % 10));
+        }
+    }
+
+    private static void verifierPrecision(int precision) {
+        if (precision < 0 || precision > PRECISION_MAX) {
+            throw new IllegalArgumentException("La precision doit etre comprise entre 0 et " + PRECISION_MAX + ".");
+        }
+    }
+}
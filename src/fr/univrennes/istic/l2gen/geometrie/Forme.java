@@ -0,0 +1,199 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base commune des formes du paquetage : met en cache la boîte englobante et le centre
+ * de la forme, et les invalide lorsque la forme ou l'un de ses descendants est modifié.
+ * </br>
+ * Chaque forme connaît les {@link Groupe} qui la contiennent. Une modification invalide
+ * le cache de la forme puis celui de ses ancêtres ; la remontée s'arrête dès qu'un ancêtre
+ * n'a plus rien en cache, car un ancêtre ne peut pas garder en cache une valeur calculée
+ * à partir d'un descendant invalidé. Les requêtes répétées sur une scène inchangée
+ * coûtent ainsi O(1).
+ * </br>
+ * Un {@link Groupe} qui conserve le SVG de ses formes ({@link Groupe#conserverSVG()}) est
+ * aussi prévenu de leurs modifications, pour réécrire seulement les formes modifiées.
+ */
+abstract class Forme implements IForme {
+    private List<Forme> parents;
+    private boolean cacheable = true;
+    private Boite boite;
+    private Point centre;
+    // true si un groupe garde en cache le code SVG de la forme
+    private boolean svgEnCache;
+
+    /**
+     * Calcule la boîte englobante de la forme, sans passer par le cache.
+     *
+     * @return La boîte englobante de la forme.
+     */
+    abstract Boite calculerBoite();
+
+    /**
+     * Calcule le centre de la forme, sans passer par le cache.
+     *
+     * @return Le centre de la forme.
+     */
+    abstract Point calculerCentre();
+
+    /**
+     * Écrit la représentation SVG de la forme dans une sortie.
+     *
+     * @param sortie La sortie dans laquelle écrire.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    @Override
+    public abstract void enSVG(Appendable sortie) throws IOException;
+
+    /**
+     * Génère la représentation SVG de la forme sous forme de chaîne, en passant par
+     * {@link #enSVG(Appendable)}.
+     *
+     * @return Une chaîne de caractères représentant la forme sous forme SVG.
+     */
+    @Override
+    public String enSVG() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            enSVG(sb);
+        } catch (IOException e) {
+            // un StringBuilder ne lève jamais d'IOException
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Génère la description de la forme telle qu'elle serait après
+     * {@link #deplacer(double, double) deplacer(dx, dy)}, sans la modifier. Un {@link Groupe}
+     * déplacé décrit ainsi ses formes à leur place réelle. Par défaut, une copie de la forme
+     * est déplacée puis décrite.
+     *
+     * @param indentation Le niveau d'indentation (chaque niveau ajoute 2 espaces).
+     * @param dx          Déplacement en X.
+     * @param dy          Déplacement en Y.
+     * @return La description de la forme déplacée.
+     */
+    String description(int indentation, double dx, double dy) {
+        if (dx == 0 && dy == 0) {
+            return description(indentation);
+        }
+        IForme copie = dupliquer();
+        copie.deplacer(dx, dy);
+        return copie.description(indentation);
+    }
+
+    /**
+     * Retourne la boîte englobante de la forme, calculée au plus une fois tant que
+     * la forme n'est pas modifiée.
+     *
+     * @return La boîte englobante de la forme.
+     */
+    @Override
+    public Boite boite() {
+        Boite b = boite;
+        if (b == null) {
+            b = calculerBoite();
+            if (cacheable) {
+                boite = b;
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Retourne le centre de la forme, calculé au plus une fois tant que la forme
+     * n'est pas modifiée.
+     *
+     * @return Le centre de la forme.
+     */
+    @Override
+    public Point centre() {
+        Point c = centre;
+        if (c == null) {
+            c = calculerCentre();
+            if (cacheable) {
+                centre = c;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Vide les caches de la forme et de ses ancêtres. À appeler après toute modification.
+     */
+    void invalider() {
+        if (boite == null && centre == null && !svgEnCache) {
+            return;
+        }
+        boite = null;
+        centre = null;
+        svgEnCache = false;
+        if (parents != null) {
+            for (Forme parent : parents) {
+                parent.formeModifiee(this);
+            }
+        }
+    }
+
+    /**
+     * Note qu'un groupe garde en cache le code SVG de la forme : la prochaine modification
+     * de la forme devra le prévenir.
+     */
+    void noterSVGEnCache() {
+        svgEnCache = true;
+    }
+
+    /**
+     * Prévient la forme qu'une forme qu'elle contient a été modifiée. Par défaut, la forme
+     * invalide simplement son cache ; un {@link Groupe} indexé note aussi quelle forme
+     * remettre à jour dans son index.
+     *
+     * @param forme La forme modifiée.
+     */
+    void formeModifiee(Forme forme) {
+        invalider();
+    }
+
+    /**
+     * Enregistre un groupe contenant cette forme, pour qu'il soit prévenu de ses modifications.
+     *
+     * @param parent Le groupe contenant la forme.
+     */
+    void ajouterParent(Forme parent) {
+        if (parents == null) {
+            parents = new ArrayList<>(1);
+        }
+        parents.add(parent);
+    }
+
+    /**
+     * @return false si la forme contient une forme étrangère au paquetage, dont les
+     *         modifications ne peuvent pas être suivies.
+     */
+    boolean estCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Désactive définitivement le cache de la forme et de ses ancêtres. Utilisé lorsqu'un
+     * groupe reçoit une forme dont les modifications ne peuvent pas être suivies.
+     */
+    void desactiverCache() {
+        if (!cacheable) {
+            return;
+        }
+        cacheable = false;
+        boite = null;
+        centre = null;
+        if (parents != null) {
+            for (Forme parent : parents) {
+                parent.desactiverCache();
+            }
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fractale procédurale : équivalent paresseux de l'arbre de {@link Groupe} construit par
+ * {@code fractale(base, profondeur)}.
+ * </br>
+ * À chaque niveau, la version construite explicitement contient la fractale du niveau
+ * inférieur suivie de copies de celle-ci, réduites d'un facteur (chaque forme autour de son
+ * propre centre) puis décalées. Ici, seuls la forme de base, le facteur, les décalages et la
+ * profondeur sont stockés : les formes filles sont recréées à la demande lors du parcours
+ * ({@link #forme(int)}) ou de l'export ({@link #enSVG(Appendable)}), et la mémoire utilisée
+ * ne dépend plus que de la profondeur, et non du nombre de formes (qui croît en 5^n).
+ * </br>
+ * {@link #centre()}, {@link #hauteur()} et {@link #largeur()} sont calculés analytiquement,
+ * sans développer l'arbre, à partir de la forme de base réduite 0 à n fois.
+ */
+public class Fractale extends Forme implements IComposite {
+    // en dessous de cette profondeur, un sous-arbre est développé sans créer de tâche
+    private static final int PROFONDEUR_SEQUENTIELLE = 3;
+
+    private Modele modele;
+    private final Chemin chemin;
+    private final int profondeur;
+    private final int reductions;
+    private final double decalageX;
+    private final double decalageY;
+    private double tx;
+    private double ty;
+
+    /**
+     * Construit une fractale à partir d'une forme de base.
+     * La forme de base est copiée : la modifier ensuite n'affecte pas la fractale.
+     *
+     * @param base       Forme de base.
+     * @param profondeur Nombre de niveaux, au moins 1.
+     * @param facteur    Facteur de réduction appliqué aux copies à chaque niveau.
+     * @param decalagesX Décalage en x de chaque copie.
+     * @param decalagesY Décalage en y de chaque copie.
+     * @throws IllegalArgumentException Si la profondeur est inférieure à 1, ou si les tableaux
+     *                                  de décalages n'ont pas la même longueur.
+     */
+    public Fractale(IForme base, int profondeur, double facteur, double[] decalagesX, double[] decalagesY) {
+        if (profondeur < 1) {
+            throw new IllegalArgumentException("Une fractale doit avoir au moins un niveau.");
+        }
+        if (decalagesX.length != decalagesY.length) {
+            throw new IllegalArgumentException("Il faut autant de decalages en x qu'en y.");
+        }
+        this.modele = new Modele(base.dupliquer(), profondeur, facteur, decalagesX.clone(), decalagesY.clone());
+        this.chemin = null;
+        this.profondeur = profondeur;
+        this.reductions = 0;
+        this.decalageX = 0;
+        this.decalageY = 0;
+    }
+
+    private Fractale(Modele modele, Chemin chemin, int profondeur, int reductions,
+                     double decalageX, double decalageY, double tx, double ty) {
+        this.modele = modele;
+        this.chemin = chemin;
+        this.profondeur = profondeur;
+        this.reductions = reductions;
+        this.decalageX = decalageX;
+        this.decalageY = decalageY;
+        this.tx = tx;
+        this.ty = ty;
+    }
+
+    /**
+     * Construit la fractale des fonctions {@code fractale} de {@link Rectangle} et {@link Polygone} :
+     * quatre copies réduites de moitié, décalées de (0, 0), (largeur/2, 0), (0, hauteur/2)
+     * et (largeur/2, hauteur/2).
+     *
+     * @param base       Forme de base.
+     * @param profondeur Nombre de niveaux, au moins 1.
+     * @param largeur    Largeur servant à calculer les décalages.
+     * @param hauteur    Hauteur servant à calculer les décalages.
+     * @return La fractale.
+     */
+    public static Fractale quadrants(IForme base, int profondeur, double largeur, double hauteur) {
+        double[] decalagesX = new double[4];
+        double[] decalagesY = new double[4];
+        for (int i = 0; i < 4; i++) {
+            decalagesX[i] = (i % 2) * largeur / 2;
+            decalagesY[i] = (i / 2) * hauteur / 2;
+        }
+        return new Fractale(base, profondeur, 0.5, decalagesX, decalagesY);
+    }
+
+    /**
+     * @return Le nombre de niveaux restant sous ce nœud.
+     */
+    public int profondeur() {
+        return profondeur;
+    }
+
+    /**
+     * @return Le nombre de formes filles : le niveau inférieur et ses copies.
+     */
+    @Override
+    public int nombreFormes() {
+        return 1 + modele.decalagesX.length;
+    }
+
+    /**
+     * Crée la forme fille d'indice i : 0 pour le niveau inférieur, i pour sa copie n°i.
+     * Au dernier niveau, les formes filles sont des copies transformées de la forme de base ;
+     * sinon ce sont des fractales d'un niveau de moins.
+     * </br>
+     * La forme est recréée à chaque appel : la modifier n'affecte pas cette fractale.
+     *
+     * @param i Indice de la forme.
+     * @return La forme d'indice i.
+     * @throws IndexOutOfBoundsException Si l'indice est hors des bornes.
+     */
+    @Override
+    public IForme forme(int i) {
+        if (i < 0 || i >= nombreFormes()) {
+            throw new IndexOutOfBoundsException("Forme " + i + " inexistante (" + nombreFormes() + " formes).");
+        }
+        Chemin suite = new Chemin(i, chemin);
+        if (profondeur == 1) {
+            return feuille(suite);
+        }
+        if (i == 0) {
+            return new Fractale(modele, suite, profondeur - 1, reductions, decalageX, decalageY, tx, ty);
+        }
+        return new Fractale(modele, suite, profondeur - 1, reductions + 1,
+                decalageX + modele.decalagesX[i - 1], decalageY + modele.decalagesY[i - 1], tx, ty);
+    }
+
+    /**
+     * Recrée une forme du dernier niveau en rejouant, depuis la forme de base, les
+     * transformations des niveaux traversés, du plus profond au plus haut, comme le fait
+     * la construction explicite.
+     */
+    private IForme feuille(Chemin suite) {
+        IForme forme = modele.base.dupliquer();
+        for (Chemin c = suite; c != null; c = c.suivant) {
+            if (c.choix > 0) {
+                forme.redimensionnerEtDeplacer(modele.facteur, modele.facteur,
+                        modele.decalagesX[c.choix - 1], modele.decalagesY[c.choix - 1]);
+            }
+        }
+        if (tx != 0 || ty != 0) {
+            forme.deplacer(tx, ty);
+        }
+        return forme;
+    }
+
+    /**
+     * Calcule le centre de la fractale comme le ferait {@link Groupe#centre()} sur l'arbre
+     * développé, sans le développer.
+     *
+     * @return Le centre de la fractale.
+     */
+    @Override
+    Point calculerCentre() {
+        Point c = modele.centre(profondeur, reductions);
+        return new Point(c.x() + decalageX + tx, c.y() + decalageY + ty);
+    }
+
+    /**
+     * Calcule la boîte englobante de la fractale sans la développer : les formes ayant subi
+     * j réductions ont la boîte de la forme de base réduite j fois, décalée d'au plus j fois
+     * le plus grand décalage (et d'au moins j fois le plus petit).
+     *
+     * @return La boîte englobante de la fractale.
+     */
+    @Override
+    Boite calculerBoite() {
+        double minDx = 0, maxDx = 0, minDy = 0, maxDy = 0;
+        if (modele.decalagesX.length > 0) {
+            minDx = maxDx = modele.decalagesX[0];
+            minDy = maxDy = modele.decalagesY[0];
+            for (int i = 1; i < modele.decalagesX.length; i++) {
+                minDx = Math.min(minDx, modele.decalagesX[i]);
+                maxDx = Math.max(maxDx, modele.decalagesX[i]);
+                minDy = Math.min(minDy, modele.decalagesY[i]);
+                maxDy = Math.max(maxDy, modele.decalagesY[i]);
+            }
+        }
+
+        int copies = modele.decalagesX.length > 0 ? profondeur : 0;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int j = 0; j <= copies; j++) {
+            Boite b = modele.boite(reductions + j);
+            minX = Math.min(minX, b.minX() + j * minDx);
+            minY = Math.min(minY, b.minY() + j * minDy);
+            maxX = Math.max(maxX, b.maxX() + j * maxDx);
+            maxY = Math.max(maxY, b.maxY() + j * maxDy);
+        }
+        return new Boite(minX, minY, maxX, maxY).translater(decalageX + tx, decalageY + ty);
+    }
+
+    /**
+     * Déplace la fractale en O(1) : le décalage n'est appliqué qu'aux formes recréées.
+     *
+     * @param x Déplacement à appliquer sur l'axe X.
+     * @param y Déplacement à appliquer sur l'axe Y.
+     */
+    @Override
+    public void deplacer(double x, double y) {
+        tx += x;
+        ty += y;
+        invalider();
+    }
+
+    /**
+     * Redimensionne chaque forme de la fractale autour de son propre centre, comme le fait
+     * {@link Groupe#redimensionner(double, double)}. Seule la forme de base est modifiée.
+     *
+     * @param largeur Facteur de redimensionement de la largeur
+     * @param hauteur Facteur de redimensionement de la hauteur
+     */
+    @Override
+    public void redimensionner(double largeur, double hauteur) {
+        modele = modele.redimensionner(largeur, hauteur);
+        invalider();
+    }
+
+    /**
+     * Génère une description textuelle de la fractale, identique à celle de l'arbre de
+     * groupes équivalent.
+     *
+     * @param indentation Le niveau d'indentation (chaque niveau ajoute 2 espaces).
+     * @return Une chaîne de caractères représentant chaques formes de la fractale.
+     */
+    @Override
+    public String description(int indentation) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("  ".repeat(indentation)).append("Groupe\n");
+        for (int i = 0; i < nombreFormes(); i++) {
+            sb.append(forme(i).description(indentation + 1));
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Écrit la représentation SVG de la fractale, identique à celle de l'arbre de groupes
+     * équivalent. Les formes sont recréées au fil de l'écriture : seule une branche de
+     * l'arbre existe en mémoire à un instant donné.
+     *
+     * @param sortie La sortie dans laquelle écrire les balises SVG.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    @Override
+    public void enSVG(Appendable sortie) throws IOException {
+        debutSVG(sortie);
+        for (int i = 0; i < nombreFormes(); i++) {
+            sortie.append("  ");
+            forme(i).enSVG(sortie);
+            sortie.append("\n");
+        }
+        finSVG(sortie);
+    }
+
+    /**
+     * Construit l'arbre de {@link Groupe} équivalent à la fractale, avec une copie de la forme
+     * de base pour chaque feuille.
+     *
+     * @return Un Groupe dont le code SVG et la description sont ceux de la fractale.
+     */
+    public Groupe developper() {
+        IForme[] formes = new IForme[nombreFormes()];
+        for (int i = 0; i < formes.length; i++) {
+            IForme forme = forme(i);
+            formes[i] = forme instanceof Fractale sous ? sous.developper() : forme;
+        }
+        return new Groupe(formes);
+    }
+
+    /**
+     * Construit le même arbre que {@link #developper()}, en développant les branches
+     * indépendantes en parallèle dans un pool fork/join. Les formes filles de chaque groupe
+     * sont rangées dans l'ordre de la version séquentielle : le résultat est identique.
+     *
+     * @param pool Le pool dans lequel exécuter les tâches.
+     * @return Un Groupe dont le code SVG et la description sont ceux de la fractale.
+     */
+    public Groupe developperParallele(ForkJoinPool pool) {
+        return pool.invoke(new Developpement(this));
+    }
+
+    /**
+     * Crée une copie de la fractale en O(1) : la forme de base, jamais modifiée en place,
+     * est partagée.
+     *
+     * @return Une nouvelle instance de {@link Fractale}.
+     */
+    @Override
+    public IForme dupliquer() {
+        return new Fractale(modele, chemin, profondeur, reductions, decalageX, decalageY, tx, ty);
+    }
+
+    /**
+     * @return La hauteur de la boîte englobant toutes les formes de la fractale.
+     */
+    @Override
+    public double hauteur() {
+        return boite().hauteur();
+    }
+
+    /**
+     * @return La largeur de la boîte englobant toutes les formes de la fractale.
+     */
+    @Override
+    public double largeur() {
+        return boite().largeur();
+    }
+
+    /**
+     * Génère une fractale dont les décalages sont calculés à partir des dimensions de
+     * cette fractale, comme {@link Rectangle#fractale(IForme, int)}.
+     *
+     * @param base       Forme de base.
+     * @param profondeur Niveau de récursivité.
+     * @return Une instance de {@link IForme} représentant la fractale.
+     */
+    @Override
+    public IForme fractale(IForme base, int profondeur) {
+        if (profondeur <= 0) {
+            return base;
+        }
+        return quadrants(base, profondeur, largeur(), hauteur());
+    }
+
+    /**
+     * Développement d'un nœud de la fractale : une tâche par forme fille tant que le
+     * sous-arbre est assez profond pour que la tâche vaille son coût.
+     */
+    private static final class Developpement extends RecursiveTask<Groupe> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Fractale noeud;
+
+        Developpement(Fractale noeud) {
+            this.noeud = noeud;
+        }
+
+        @Override
+        protected Groupe compute() {
+            if (noeud.profondeur <= PROFONDEUR_SEQUENTIELLE) {
+                return noeud.developper();
+            }
+            List<Developpement> taches = new ArrayList<>(noeud.nombreFormes());
+            for (int i = 0; i < noeud.nombreFormes(); i++) {
+                taches.add(new Developpement((Fractale) noeud.forme(i)));
+            }
+            invokeAll(taches);
+            IForme[] formes = new IForme[taches.size()];
+            for (int i = 0; i < formes.length; i++) {
+                formes[i] = taches.get(i).join();
+            }
+            return new Groupe(formes);
+        }
+    }
+
+    /**
+     * Choix effectués depuis la racine pour atteindre un nœud, du plus profond au plus haut.
+     */
+    private static final class Chemin {
+        private final int choix;
+        private final Chemin suivant;
+
+        Chemin(int choix, Chemin suivant) {
+            this.choix = choix;
+            this.suivant = suivant;
+        }
+    }
+
+    /**
+     * Paramètres partagés par tous les nœuds d'une fractale, et résultats mis en cache à
+     * partir de la forme de base. Un modèle n'est jamais modifié après sa construction :
+     * redimensionner une fractale lui attribue un nouveau modèle.
+     */
+    private static final class Modele {
+        private final IForme base;
+        private final int profondeur;
+        private final double facteur;
+        private final double[] decalagesX;
+        private final double[] decalagesY;
+        private Boite[] boites;
+        private Point[] reduites;
+        private Point[][] centres;
+
+        Modele(IForme base, int profondeur, double facteur, double[] decalagesX, double[] decalagesY) {
+            this.base = base;
+            this.profondeur = profondeur;
+            this.facteur = facteur;
+            this.decalagesX = decalagesX;
+            this.decalagesY = decalagesY;
+        }
+
+        Modele redimensionner(double largeur, double hauteur) {
+            IForme nouvelle = base.dupliquer();
+            nouvelle.redimensionner(largeur, hauteur);
+            return new Modele(nouvelle, profondeur, facteur, decalagesX, decalagesY);
+        }
+
+        /**
+         * @return La boîte de la forme de base réduite m fois.
+         */
+        synchronized Boite boite(int m) {
+            remplirReductions();
+            return boites[m];
+        }
+
+        /**
+         * @return Le centre, hors décalages, d'un nœud ayant k niveaux sous lui et m réductions.
+         */
+        synchronized Point centre(int k, int m) {
+            if (centres == null) {
+                remplirReductions();
+                centres = new Point[profondeur + 1][];
+                centres[0] = reduites;
+                int copies = decalagesX.length;
+                double[] xs = new double[copies + 1];
+                double[] ys = new double[copies + 1];
+                for (int niveau = 1; niveau <= profondeur; niveau++) {
+                    centres[niveau] = new Point[profondeur + 1 - niveau];
+                    for (int j = 0; j <= profondeur - niveau; j++) {
+                        Point bas = centres[niveau - 1][j];
+                        Point copie = centres[niveau - 1][j + 1];
+                        xs[0] = bas.x();
+                        ys[0] = bas.y();
+                        for (int i = 0; i < copies; i++) {
+                            xs[i + 1] = copie.x() + decalagesX[i];
+                            ys[i + 1] = copie.y() + decalagesY[i];
+                        }
+                        centres[niveau][j] = Enveloppe.milieuDiametre(xs, ys);
+                    }
+                }
+            }
+            return centres[k][m];
+        }
+
+        /**
+         * Réduit successivement une copie de la forme de base pour connaître sa boîte et son
+         * centre après 0 à n réductions.
+         */
+        private void remplirReductions() {
+            if (boites != null) {
+                return;
+            }
+            boites = new Boite[profondeur + 1];
+            reduites = new Point[profondeur + 1];
+            IForme forme = base.dupliquer();
+            for (int m = 0; m <= profondeur; m++) {
+                if (m > 0) {
+                    forme.redimensionner(facteur, facteur);
+                }
+                boites[m] = forme.boite();
+                reduites[m] = forme.centre();
+            }
+        }
+    }
+}
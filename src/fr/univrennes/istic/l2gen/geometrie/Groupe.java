@@ -1,19 +1,64 @@
 package fr.univrennes.istic.l2gen.geometrie;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+public class Groupe extends Forme implements IComposite {
+    /**
+     * Manière de calculer le centre d'un Groupe à partir des centres de ses formes.
+     */
+    public enum PolitiqueCentre {
+        /**
+         * Milieu des deux centres les plus éloignés (diamètre du nuage de centres).
+         * Complexité : O(n log n).
+         */
+        DIAMETRE,
+        /**
+         * Centre de la boîte englobante des centres. Complexité : O(n).
+         */
+        BOITE_ENGLOBANTE
+    }
 
-public class Groupe implements IForme {
     private final List<IForme> formes;
+    private PolitiqueCentre politiqueCentre = PolitiqueCentre.DIAMETRE;
+    // translation appliquée aux formes à l'export, sans modifier leurs coordonnées
+    private double translationX;
+    private double translationY;
+
+    // index spatial des formes, null tant que indexer() n'a pas été appelé
+    private ArbreR index;
+    private boolean indexPerime;
+    private boolean[] marquees = new boolean[0];
+    private int[] aReindexer = new int[8];
+    private int nombreAReindexer;
+    private final BitSet horsIndex = new BitSet();
+    private final Map<Forme, int[]> positions = new IdentityHashMap<>();
+
+    // code SVG des formes du groupe, null tant que conserverSVG() n'a pas été appelé
+    private Map<Forme, String> fragments;
+    private int precisionFragments;
+    // code SVG complet du groupe, null s'il est à réécrire
+    private String svg;
 
     /**
      * Constructeur d'un groupe de formes.
      *
      * @param formes autant de formes que nécessaires [0;any]
      */
+    // le groupe s'inscrit comme parent de ses formes, qui ne l'appellent qu'à leur modification
+    @SuppressWarnings("this-escape")
     public Groupe(IForme ... formes) {
         this.formes = new ArrayList<>(Arrays.asList(formes));
+        for (IForme forme : formes) {
+            suivre(forme);
+        }
     }
 
     /**
@@ -25,71 +70,431 @@ public class Groupe implements IForme {
      */
     public Groupe ajouter(IForme iForme) {
         formes.add(iForme);
+        suivre(iForme);
+        if (fragments != null && iForme instanceof Groupe groupe) {
+            groupe.conserverSVG();
+        }
+        if (index != null && !indexPerime) {
+            classer(formes.size() - 1);
+        }
+        invalider();
         return this;
     }
 
     /**
-     * Calcule le centre géométrique du Groupe, défini comme le point
-     * à équidistance des deux points les plus éloignés parmi les formes
-     * contenues dans le Groupe.
-     *
-     * @return Un objet {@link Point} représentant le centre géométrique
-     *         du Groupe.
-     * @throws IllegalStateException Si le Groupe ne contient aucune forme.
+     * @return Le nombre de formes directement contenues dans le groupe.
+     */
+    @Override
+    public int nombreFormes() {
+        return formes.size();
+    }
+
+    /**
+     * Retourne la forme d'indice i du groupe, dans l'ordre d'ajout.
      *
-     * @implNote La méthode parcourt toutes les formes du Groupe pour extraire
-     *           leurs centres. Elle effectue ensuite une comparaison
-     *           de tout les points. Complexité de l'algorithme : O(n^2).
+     * @param i Indice de la forme.
+     * @return La forme d'indice i.
+     * @throws IndexOutOfBoundsException Si l'indice est hors des bornes.
      */
     @Override
-    public Point centre() {
-        List<Point> points = new ArrayList<>();
+    public IForme forme(int i) {
+        return formes.get(i);
+    }
+
+    /**
+     * Abonne le groupe aux modifications d'une forme qu'il contient. Une forme étrangère
+     * au paquetage ne prévient pas de ses modifications : le groupe renonce alors à son cache.
+     */
+    private void suivre(IForme iForme) {
+        if (iForme instanceof Forme forme) {
+            forme.ajouterParent(this);
+            if (!forme.estCacheable()) {
+                desactiverCache();
+            }
+        } else {
+            desactiverCache();
+        }
+    }
+
+    /**
+     * Active l'index spatial du groupe : un R-tree des boîtes englobantes de ses formes,
+     * utilisé par {@link #formesDans(Boite)} et {@link #formesEn(double, double)}.
+     * </br>
+     * L'index est construit à la première requête, puis tenu à jour : les formes ajoutées
+     * ou modifiées (y compris par {@link #redimensionner(double, double)}) sont réindexées à
+     * la requête suivante, et l'index est reconstruit d'un coup si elles sont nombreuses.
+     * L'index est rangé dans le repère du groupe : {@link #deplacer(double, double)} ne le
+     * modifie pas. Les formes étrangères au
+     * paquetage, dont les modifications ne peuvent pas être suivies, restent parcourues une
+     * à une.
+     *
+     * @return this le groupe.
+     */
+    public Groupe indexer() {
+        if (index == null) {
+            index = new ArbreR();
+            indexPerime = true;
+        }
+        return this;
+    }
+
+    /**
+     * Active le cache SVG du groupe et des groupes qu'il contient, y compris ceux ajoutés
+     * ensuite : chaque groupe garde son code SVG et celui de ses formes, et ne réécrit, à
+     * l'export suivant, que les formes modifiées depuis (par {@link #deplacer(double, double)},
+     * {@link #redimensionner(double, double)}, {@link #ajouter(IForme)},
+     * {@link Ligne#ajouterSommet(Point)}...) et les groupes qui les contiennent.
+     * </br>
+     * Réexporter une scène après une petite modification ne coûte plus que l'écriture des
+     * formes modifiées, l'assemblage des groupes sur leur chemin et la recopie du texte final.
+     * Chaque niveau de groupes garde sa propre copie du texte : la mémoire utilisée est de
+     * l'ordre de la taille du SVG fois la profondeur de la scène. Le cache est vidé si
+     * {@link FormatNombre#setPrecision(int)} change la précision. Un groupe contenant une
+     * forme étrangère au paquetage, dont les modifications ne peuvent pas être suivies, est
+     * réécrit à chaque export.
+     *
+     * @return this le groupe.
+     */
+    public Groupe conserverSVG() {
+        if (fragments == null) {
+            fragments = new IdentityHashMap<>();
+            precisionFragments = FormatNombre.getPrecision();
+        }
         for (IForme forme : formes) {
-            points.add(forme.centre());
+            if (forme instanceof Groupe groupe) {
+                groupe.conserverSVG();
+            }
         }
+        return this;
+    }
 
-        if (points.isEmpty()) {
-            throw new IllegalStateException("Le Groupe ne contient aucune forme.");
+    /**
+     * @return true si le groupe conserve le code SVG de ses formes.
+     */
+    public boolean estSVGConserve() {
+        return fragments != null;
+    }
+
+    /**
+     * @return true si le groupe utilise un index spatial.
+     */
+    public boolean estIndexe() {
+        return index != null;
+    }
+
+    /**
+     * Retourne les formes du groupe dont la boîte englobante touche une zone (bords compris).
+     * Un groupe contenu dans ce groupe est retourné comme une seule forme.
+     *
+     * @param zone La zone cherchée.
+     * @return Les formes trouvées, dans l'ordre du groupe.
+     */
+    public List<IForme> formesDans(Boite zone) {
+        return rechercher(zone);
+    }
+
+    /**
+     * Retourne les formes du groupe dont la boîte englobante contient un point (bords
+     * compris), dans l'ordre du groupe : la dernière est celle dessinée au-dessus des autres.
+     *
+     * @param x Abscisse du point.
+     * @param y Ordonnée du point.
+     * @return Les formes trouvées, dans l'ordre du groupe.
+     */
+    public List<IForme> formesEn(double x, double y) {
+        return rechercher(new Boite(x, y, x, y));
+    }
+
+    private List<IForme> rechercher(Boite zone) {
+        // les formes sont rangées dans le repère du groupe, avant sa translation
+        zone = zone.translater(-translationX, -translationY);
+        List<IForme> trouvees = new ArrayList<>();
+        if (index == null) {
+            for (IForme forme : formes) {
+                Boite boite = boiteOuNull(forme);
+                if (boite != null && boite.intersecte(zone)) {
+                    trouvees.add(forme);
+                }
+            }
+            return trouvees;
+        }
+
+        mettreAJourIndex();
+        int[][] ids = {new int[8]};
+        int[] nombre = {0};
+        IntConsumer ajout = i -> {
+            if (nombre[0] == ids[0].length) {
+                ids[0] = Arrays.copyOf(ids[0], nombre[0] * 2);
+            }
+            ids[0][nombre[0]++] = i;
+        };
+        index.rechercher(zone.minX(), zone.minY(), zone.maxX(), zone.maxY(), ajout);
+        for (int i = horsIndex.nextSetBit(0); i >= 0; i = horsIndex.nextSetBit(i + 1)) {
+            Boite boite = boiteOuNull(formes.get(i));
+            if (boite != null && boite.intersecte(zone)) {
+                ajout.accept(i);
+            }
+        }
+        Arrays.sort(ids[0], 0, nombre[0]);
+        for (int k = 0; k < nombre[0]; k++) {
+            trouvees.add(formes.get(ids[0][k]));
+        }
+        return trouvees;
+    }
+
+    /**
+     * Réindexe les formes modifiées depuis la dernière requête, ou reconstruit tout l'index
+     * si elles sont plus d'un huitième du groupe.
+     */
+    private void mettreAJourIndex() {
+        if (!indexPerime && nombreAReindexer == 0) {
+            return;
+        }
+        if (indexPerime || nombreAReindexer > formes.size() / 8) {
+            reconstruireIndex();
+            return;
+        }
+        for (int k = 0; k < nombreAReindexer; k++) {
+            int i = aReindexer[k];
+            marquees[i] = false;
+            index.supprimer(i);
+            Boite boite = boiteOuNull(formes.get(i));
+            if (boite != null) {
+                // une forme sans boîte jusqu'ici (un groupe vide) quitte les formes hors index
+                horsIndex.clear(i);
+                index.inserer(i, boite);
+            } else {
+                horsIndex.set(i);
+            }
+        }
+        nombreAReindexer = 0;
+    }
+
+    private void reconstruireIndex() {
+        positions.clear();
+        horsIndex.clear();
+        marquees = new boolean[formes.size()];
+        nombreAReindexer = 0;
+        indexPerime = false;
+
+        int[] ids = new int[formes.size()];
+        Boite[] boites = new Boite[formes.size()];
+        int n = 0;
+        for (int i = 0; i < formes.size(); i++) {
+            Boite boite = suivable(i) ? boiteOuNull(formes.get(i)) : null;
+            if (boite != null) {
+                ids[n] = i;
+                boites[n] = boite;
+                n++;
+            } else {
+                horsIndex.set(i);
+            }
+        }
+        index.charger(Arrays.copyOf(ids, n), Arrays.copyOf(boites, n));
+    }
+
+    /**
+     * Range une forme ajoutée au groupe indexé : à indexer à la prochaine requête si ses
+     * modifications peuvent être suivies, à parcourir à chaque requête sinon.
+     */
+    private void classer(int i) {
+        if (suivable(i)) {
+            marquer(i);
+        } else {
+            horsIndex.set(i);
+        }
+    }
+
+    /**
+     * @return true si la forme d'indice i prévient le groupe de ses modifications ; elle
+     *         est alors notée dans {@link #positions}.
+     */
+    private boolean suivable(int i) {
+        if (formes.get(i) instanceof Forme forme && forme.estCacheable()) {
+            int[] ids = positions.get(forme);
+            if (ids == null) {
+                positions.put(forme, new int[] {i});
+            } else {
+                int[] plus = Arrays.copyOf(ids, ids.length + 1);
+                plus[ids.length] = i;
+                positions.put(forme, plus);
+            }
+            return true;
         }
+        return false;
+    }
 
-        double maxDistance = 0;
-        Point p1 = null;
-        Point p2 = null;
+    private void marquer(int i) {
+        if (i >= marquees.length) {
+            marquees = Arrays.copyOf(marquees, Math.max(i + 1, marquees.length * 2));
+        }
+        if (marquees[i]) {
+            return;
+        }
+        marquees[i] = true;
+        if (nombreAReindexer == aReindexer.length) {
+            aReindexer = Arrays.copyOf(aReindexer, nombreAReindexer * 2);
+        }
+        aReindexer[nombreAReindexer++] = i;
+    }
+
+    private static Boite boiteOuNull(IForme forme) {
+        if (forme instanceof IComposite composite && composite.nombreFormes() == 0) {
+            return null;
+        }
+        return forme.boite();
+    }
 
-        // Trouver les deux points les plus éloignés
-        for (Point a : points) {
-            for (Point b : points) {
-                double distance = Math.sqrt(Math.pow(a.x() - b.x(), 2) + Math.pow(a.y() - b.y(), 2));
-                if (distance > maxDistance) {
-                    maxDistance = distance;
-                    p1 = a;
-                    p2 = b;
+    @Override
+    void formeModifiee(Forme forme) {
+        if (index != null && !indexPerime) {
+            int[] ids = positions.get(forme);
+            if (ids != null) {
+                for (int id : ids) {
+                    marquer(id);
                 }
             }
         }
+        if (fragments != null) {
+            fragments.remove(forme);
+        }
+        super.formeModifiee(forme);
+    }
+
+    @Override
+    void invalider() {
+        svg = null;
+        super.invalider();
+    }
+
+    @Override
+    void desactiverCache() {
+        // une forme du groupe ne peut plus être suivie : l'index est à refaire
+        if (index != null) {
+            indexPerime = true;
+        }
+        super.desactiverCache();
+    }
+
+    /**
+     * Retourne la politique utilisée par {@link #centre()}.
+     *
+     * @return La politique de calcul du centre.
+     */
+    public PolitiqueCentre getPolitiqueCentre() {
+        return politiqueCentre;
+    }
+
+    /**
+     * Change la politique utilisée par {@link #centre()}.
+     *
+     * @param politiqueCentre La nouvelle politique de calcul du centre.
+     * @throws NullPointerException si la politique est null.
+     */
+    public void setPolitiqueCentre(PolitiqueCentre politiqueCentre) {
+        if (politiqueCentre == null)
+            throw new NullPointerException("politiqueCentre ne doit pas etre null");
+        this.politiqueCentre = politiqueCentre;
+        invalider();
+    }
 
-        if (p1 == null) {
+    /**
+     * Calcule le centre géométrique du Groupe selon sa {@link PolitiqueCentre}.
+     * Par défaut ({@link PolitiqueCentre#DIAMETRE}), c'est le point
+     * à équidistance des deux points les plus éloignés parmi les centres des formes
+     * contenues dans le Groupe.
+     *
+     * @return Un objet {@link Point} représentant le centre géométrique
+     *         du Groupe.
+     * @throws IllegalStateException Si le Groupe ne contient aucune forme.
+     *
+     * @implNote La méthode parcourt toutes les formes du Groupe pour extraire
+     *           leurs centres. Avec {@link PolitiqueCentre#DIAMETRE}, les deux points
+     *           les plus éloignés sont trouvés sur l'enveloppe convexe des centres,
+     *           en O(n log n) ; avec {@link PolitiqueCentre#BOITE_ENGLOBANTE}, un seul
+     *           parcours suffit. Le résultat est gardé en cache jusqu'à la prochaine
+     *           modification du Groupe ou de l'une de ses formes.
+     */
+    @Override
+    Point calculerCentre() {
+        if (formes.isEmpty()) {
             throw new IllegalStateException("Le Groupe ne contient aucune forme.");
         }
 
-        double centerX = (p1.x() + p2.x()) / 2;
-        double centerY = (p1.y() + p2.y()) / 2;
+        int n = formes.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            Point centre = formes.get(i).centre();
+            xs[i] = centre.x();
+            ys[i] = centre.y();
+        }
+
+        if (politiqueCentre == PolitiqueCentre.DIAMETRE) {
+            return Enveloppe.milieuDiametre(xs, ys).plus(translationX, translationY);
+        }
 
-        return new Point(centerX, centerY);
+        double minX = xs[0], maxX = xs[0];
+        double minY = ys[0], maxY = ys[0];
+        for (int i = 1; i < n; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        return new Point((minX + maxX) / 2 + translationX, (minY + maxY) / 2 + translationY);
     }
 
     /**
-     * Déplace le groupe en appliquant un décalage aux coordonnées de ses IFormes.
-     * </br>
-     * Cette méthode appelle la fonction `deplacer()` de chaque forme du groupe
-     * (récursivement si le groupe contient un groupe).
+     * Déplace le groupe en O(1) : le déplacement s'ajoute à la translation du groupe, écrite
+     * dans l'attribut {@code transform} de sa balise {@code <g>}, sans toucher aux formes
+     * qu'il contient. {@link #appliquerTranslation()} la reporte sur les formes si besoin.
      *
      * @param x Déplacement à appliquer sur l'axe X.
      * @param y Déplacement à appliquer sur l'axe Y.
      */
     @Override
     public void deplacer(double x, double y) {
-        this.formes.forEach(forme -> forme.deplacer(x, y));
+        translationX += x;
+        translationY += y;
+        invalider();
+    }
+
+    /**
+     * Reporte la translation du groupe, et celle des groupes qu'il contient, sur les formes
+     * qu'ils contiennent, en appelant leur fonction `deplacer()`, puis les remet à zéro.
+     * Le groupe ne change pas de place : ses formes ont ensuite leurs coordonnées réelles.
+     */
+    public void appliquerTranslation() {
+        double x = translationX;
+        double y = translationY;
+        translationX = 0;
+        translationY = 0;
+        for (IForme forme : formes) {
+            if (x != 0 || y != 0) {
+                forme.deplacer(x, y);
+            }
+            if (forme instanceof Groupe groupe) {
+                groupe.appliquerTranslation();
+            }
+        }
+        invalider();
+    }
+
+    /**
+     * @return La translation du groupe sur l'axe X, appliquée à ses formes à l'export.
+     */
+    @Override
+    public double translationX() {
+        return translationX;
+    }
+
+    /**
+     * @return La translation du groupe sur l'axe Y, appliquée à ses formes à l'export.
+     */
+    @Override
+    public double translationY() {
+        return translationY;
     }
 
     /**
@@ -101,13 +506,25 @@ public class Groupe implements IForme {
      */
     @Override
     public String description(int indentation) {
+        return description(indentation, 0, 0);
+    }
+
+    /**
+     * Génère la description du groupe déplacé de (dx, dy). La description donne les
+     * coordonnées réelles des formes : la translation du groupe, ajoutée au déplacement, est
+     * transmise à ses formes, sans copier ni modifier le sous-arbre.
+     */
+    @Override
+    String description(int indentation, double dx, double dy) {
+        double x = translationX + dx;
+        double y = translationY + dy;
         StringBuilder sb = new StringBuilder();
         String indent = "  ".repeat(indentation);
 
         sb.append(indent).append("Groupe\n");
 
         for (IForme forme : formes) {
-            sb.append(forme.description(indentation + 1));
+            sb.append(descriptionDeplacee(forme, indentation + 1, x, y));
             sb.append("\n");
         }
 
@@ -115,31 +532,135 @@ public class Groupe implements IForme {
     }
 
     /**
-     * Génère une représentation SVG du triangle.
+     * Décrit une forme du groupe déplacée de (dx, dy). Une forme étrangère au paquetage est
+     * copiée puis déplacée.
+     */
+    private static String descriptionDeplacee(IForme forme, int indentation, double dx, double dy) {
+        if (dx == 0 && dy == 0) {
+            return forme.description(indentation);
+        }
+        if (forme instanceof Forme f) {
+            return f.description(indentation, dx, dy);
+        }
+        IForme copie = forme.dupliquer();
+        copie.deplacer(dx, dy);
+        return copie.description(indentation);
+    }
+
+    /**
+     * Écrit la balise ouvrante du groupe. Si le groupe a été déplacé, sa translation est
+     * écrite dans l'attribut {@code transform} : {@code <g transform="translate(x,y)">}.
+     *
+     * @param sortie La sortie dans laquelle écrire.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    @Override
+    public void debutSVG(Appendable sortie) throws IOException {
+        if (translationX == 0 && translationY == 0) {
+            sortie.append("<g>\n");
+            return;
+        }
+        // écrite sans arrondi, comme les sommets : le dessin reste exactement à sa place
+        sortie.append("<g transform=\"translate(");
+        sortie.append(Double.toString(translationX));
+        sortie.append(',');
+        sortie.append(Double.toString(translationY));
+        sortie.append(")\">\n");
+    }
+
+    /**
+     * Écrit une représentation SVG du groupe dans une sortie.
      * </br>
-     * La méthode construit une paire de balises {@code <g> ... <g/>} contenant le code SVG de toutes
+     * La méthode écrit une paire de balises {@code <g> ... <g/>} contenant le code SVG de toutes
      * les IFormes que le groupe contient, permettant ainsi de l'afficher dans un document SVG.
+     * Chaque forme écrit directement dans la sortie : aucune chaîne intermédiaire n'est
+     * construite, quelle que soit la profondeur du groupe. Si le groupe conserve son code
+     * SVG ({@link #conserverSVG()}), le groupe et les formes non modifiés depuis l'export
+     * précédent recopient simplement le leur.
+     * Exemple de sortie :
+     * {@code <g> ... <g/>}
+     *
+     * @param sortie La sortie dans laquelle écrire les balises SVG.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    @Override
+    public void enSVG(Appendable sortie) throws IOException {
+        verifierPrecision();
+        ecrireSVG(sortie);
+    }
+
+    /**
+     * Génère la représentation SVG du groupe sous forme de chaîne. Si le groupe conserve
+     * son code SVG ({@link #conserverSVG()}), la chaîne est conservée et retournée sans
+     * copie tant que le groupe n'est pas modifié : c'est ainsi qu'un groupe garde le code
+     * des groupes qu'il contient.
      *
-     * @return Une chaîne de caractères représentant le groupe sous forme de balise SVG.
-     *         Exemple de sortie :
-     *         {@code <g> ... <g/>}
+     * @return Une chaîne de caractères représentant le groupe sous forme SVG.
      */
     @Override
     public String enSVG() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("<g>\n");
+        if (fragments == null || !estCacheable()) {
+            return super.enSVG();
+        }
+        verifierPrecision();
+        if (svg == null) {
+            StringBuilder sb = new StringBuilder();
+            try {
+                ecrireSVG(sb);
+            } catch (IOException e) {
+                // un StringBuilder ne lève jamais d'IOException
+                throw new UncheckedIOException(e);
+            }
+            svg = sb.toString();
+        }
+        return svg;
+    }
+
+    /**
+     * Vide le cache SVG s'il a été écrit avec une autre précision que la précision courante.
+     */
+    private void verifierPrecision() {
+        if (fragments != null && precisionFragments != FormatNombre.getPrecision()) {
+            fragments.clear();
+            svg = null;
+            precisionFragments = FormatNombre.getPrecision();
+        }
+    }
+
+    private void ecrireSVG(Appendable sortie) throws IOException {
+        debutSVG(sortie);
         for (IForme forme : formes) {
-            sb.append("  ");
-            sb.append(forme.enSVG());
-            sb.append("\n");
+            sortie.append("  ");
+            if (fragments != null && forme instanceof Forme f && f.estCacheable()) {
+                sortie.append(fragment(f));
+            } else {
+                forme.enSVG(sortie);
+            }
+            sortie.append("\n");
         }
-        sb.append("</g>\n");
-        return sb.toString();
+        finSVG(sortie);
+    }
+
+    /**
+     * Retourne le code SVG conservé d'une forme, écrit à nouveau si elle a été modifiée.
+     */
+    private String fragment(Forme forme) {
+        String fragment = fragments.get(forme);
+        if (fragment == null) {
+            fragment = forme.enSVG();
+            fragments.put(forme, fragment);
+            forme.noterSVGEnCache();
+        }
+        return fragment;
     }
 
     /**
      * Crée une copie indépendante (deep copy) du Groupe, incluant tous les éléments
      * qu'il contient.
+     * </br>
+     * Chaque forme est dupliquée, mais les sommets ne sont pas recopiés : les formes
+     * copiées partagent le stockage des originales jusqu'à leur première modification.
+     * Le coût ne dépend que du nombre de formes, et non du nombre de sommets.
      *
      * @return Une nouvelle instance de {@link Groupe} contenant des copies
      * indépendantes de chaques sous elements du Groupe actuel.
@@ -150,89 +671,98 @@ public class Groupe implements IForme {
         for (IForme forme : formes) {
             formesCopy.add(forme.dupliquer());
         }
-        return new Groupe(formesCopy.toArray(new IForme[0]));
+        Groupe copie = new Groupe(formesCopy.toArray(new IForme[0]));
+        copie.politiqueCentre = politiqueCentre;
+        copie.translationX = translationX;
+        copie.translationY = translationY;
+        if (index != null) {
+            copie.indexer();
+        }
+        if (fragments != null) {
+            copie.conserverSVG();
+        }
+        return copie;
     }
 
     /**
-     * Calcule la hauteur du Groupe, la distance maximale en y
-     * entre les centres des éléments qu'il contient et en prenant en compte leur hauteur.
+     * Calcule la boîte englobante du Groupe, réunion des boîtes englobantes de ses formes.
      *
-     * @return Un double représentant la hauteur (distance maximale en y).
+     * @return La boîte englobante du Groupe.
      * @throws IllegalStateException Si le Groupe ne contient aucune forme.
      */
     @Override
-    public double hauteur() {
+    Boite calculerBoite() {
         if (formes.isEmpty()) {
             throw new IllegalStateException("Le Groupe ne contient aucune forme.");
         }
 
-        // initialiser min et max a des valeurs impossibles pour comparaison apres.
-        double minY = Double.MAX_VALUE;
-        double maxY = Double.MIN_VALUE;
-
-        for (IForme forme : formes) {
-            Point centre = forme.centre();
-            double y = centre.y();
-
-            if (y < minY) {
-                minY = y - forme.hauteur();
-            }
-            if (y > maxY) {
-                maxY = y + forme.hauteur();
-            }
+        Boite boite = formes.get(0).boite();
+        for (int i = 1; i < formes.size(); i++) {
+            boite = boite.union(formes.get(i).boite());
         }
+        return boite.translater(translationX, translationY);
+    }
 
-        return maxY - minY;
+    /**
+     * Calcule la hauteur du Groupe, la hauteur de la boîte englobant
+     * toutes les formes qu'il contient.
+     *
+     * @return Un double représentant la hauteur (distance maximale en y).
+     * @throws IllegalStateException Si le Groupe ne contient aucune forme.
+     */
+    @Override
+    public double hauteur() {
+        return boite().hauteur();
     }
 
     /**
-     * Calcule la largeur du Groupe, définie comme la distance maximale en x
-     * entre les centres des éléments qu'il contient et en prenant en compte leur largeur.
+     * Calcule la largeur du Groupe, la largeur de la boîte englobant
+     * toutes les formes qu'il contient.
      *
      * @return Un double représentant la largeur (distance maximale en x).
      * @throws IllegalStateException Si le Groupe ne contient aucune forme.
      */
     @Override
     public double largeur() {
+        return boite().largeur();
+    }
+
+    /**
+     * Redimensionne toutes les formes d'un facteur different pour la hauteur et la largeur.
+     * Ne modifie pas la position des formes.
+     *
+     * @param largeur Facteur de redimensionement de la largeur
+     * @param hauteur   Facteur de redimensionement de la hauteur
+     */
+    @Override
+    public void redimensionner(double largeur, double hauteur) {
         if (formes.isEmpty()) {
             throw new IllegalStateException("Le Groupe ne contient aucune forme.");
         }
-
-        // initialiser min et max a des valeurs impossibles pour comparaison apres.
-        double minX = Double.MAX_VALUE;
-        double maxX = Double.MIN_VALUE;
-
         for (IForme forme : formes) {
-            Point centre = forme.centre();
-            double x = centre.x();
-
-            if (x < minX) {
-                minX = x - forme.largeur();
-            }
-            if (x > maxX) {
-                maxX = x + forme.largeur();
-            }
+            forme.redimensionner(largeur, hauteur);
         }
-
-        return maxX - minX;
     }
 
-
     /**
-     * Redimensionne toutes les formes d'un facteur different pour la hauteur et la largeur.
-     * Ne modifie pas la position des formes.
+     * Redimensionne toutes les formes du groupe puis déplace le groupe. Chaque forme étant
+     * redimensionnée autour de son propre centre, le déplacement s'ajoute simplement à la
+     * translation du groupe, comme pour {@link #deplacer(double, double)}.
      *
      * @param largeur Facteur de redimensionement de la largeur
-     * @param hauteur   Facteur de redimensionement de la hauteur
+     * @param hauteur Facteur de redimensionement de la hauteur
+     * @param x       Déplacement à appliquer sur l'axe X.
+     * @param y       Déplacement à appliquer sur l'axe Y.
      */
     @Override
-    public void redimensionner(double largeur, double hauteur) {
+    public void redimensionnerEtDeplacer(double largeur, double hauteur, double x, double y) {
         if (formes.isEmpty()) {
             throw new IllegalStateException("Le Groupe ne contient aucune forme.");
         }
         for (IForme forme : formes) {
             forme.redimensionner(largeur, hauteur);
         }
+        deplacer(x, y);
     }
 
     // TODO: fractale
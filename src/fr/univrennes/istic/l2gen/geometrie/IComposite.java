@@ -0,0 +1,68 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+import java.io.IOException;
+
+/**
+ * Forme composée d'autres formes, comme un {@link Groupe} ou une {@link Fractale}.
+ * </br>
+ * Permet de parcourir un arbre de formes sans connaître la manière dont les formes
+ * filles sont stockées : une fractale, par exemple, les crée à la demande.
+ * </br>
+ * Le code SVG d'un composite est {@link #debutSVG(Appendable)}, puis pour chaque forme
+ * deux espaces, son code SVG et un retour à la ligne, puis {@link #finSVG(Appendable)} :
+ * un export peut ainsi écrire les formes filles séparément, par exemple en parallèle.
+ */
+public interface IComposite extends IForme {
+    /**
+     * @return Le nombre de formes directement contenues.
+     */
+    int nombreFormes();
+
+    /**
+     * Retourne la forme d'indice i, dans l'ordre d'écriture SVG.
+     *
+     * @param i Indice de la forme, entre 0 et {@link #nombreFormes()} exclu.
+     * @return La forme d'indice i.
+     * @throws IndexOutOfBoundsException Si l'indice est hors des bornes.
+     */
+    IForme forme(int i);
+
+    /**
+     * Translation appliquée aux formes du composite : les coordonnées des formes retournées
+     * par {@link #forme(int)} sont relatives à cette translation, que {@link #debutSVG(Appendable)}
+     * écrit dans la balise ouvrante.
+     *
+     * @return La translation sur l'axe X, nulle par défaut.
+     */
+    default double translationX() {
+        return 0;
+    }
+
+    /**
+     * @return La translation sur l'axe Y, nulle par défaut.
+     * @see #translationX()
+     */
+    default double translationY() {
+        return 0;
+    }
+
+    /**
+     * Écrit la balise ouvrante du composite.
+     *
+     * @param sortie La sortie dans laquelle écrire.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    default void debutSVG(Appendable sortie) throws IOException {
+        sortie.append("<g>\n");
+    }
+
+    /**
+     * Écrit la balise fermante du composite.
+     *
+     * @param sortie La sortie dans laquelle écrire.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    default void finSVG(Appendable sortie) throws IOException {
+        sortie.append("</g>\n");
+    }
+}
@@ -1,13 +1,60 @@
 package fr.univrennes.istic.l2gen.geometrie;
 
+import java.io.IOException;
+
 public interface IForme {
     Point centre();
     void deplacer(double x, double y);
     String description(int indentation);
     String enSVG();
+
+    /**
+     * Écrit la représentation SVG de la forme directement dans une sortie, sans construire
+     * de chaîne intermédiaire pour l'ensemble de la forme.
+     * </br>
+     * Le texte écrit est identique à celui retourné par {@link #enSVG()}, que l'implémentation
+     * par défaut se contente de recopier.
+     *
+     * @param sortie La sortie dans laquelle écrire (un {@link java.io.Writer}, un {@link StringBuilder}...).
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    default void enSVG(Appendable sortie) throws IOException {
+        sortie.append(enSVG());
+    }
     IForme dupliquer();
     double hauteur();
     double largeur();
     void redimensionner(double largeur, double hauteur);
+
+    /**
+     * Redimensionne la forme puis la déplace, en un seul appel.
+     * </br>
+     * Équivaut à {@code redimensionner(largeur, hauteur)} suivi de {@code deplacer(x, y)} ;
+     * les formes à sommets le redéfinissent pour ne parcourir leurs coordonnées qu'une fois.
+     *
+     * @param largeur Facteur de redimensionement de la largeur.
+     * @param hauteur Facteur de redimensionement de la hauteur.
+     * @param x       Déplacement à appliquer sur l'axe X.
+     * @param y       Déplacement à appliquer sur l'axe Y.
+     */
+    default void redimensionnerEtDeplacer(double largeur, double hauteur, double x, double y) {
+        redimensionner(largeur, hauteur);
+        deplacer(x, y);
+    }
     IForme fractale(IForme base, int profondeur);
+
+    /**
+     * Retourne la boîte englobante de la forme, alignée sur les axes.
+     * </br>
+     * Les formes du paquetage la gardent en cache jusqu'à leur prochaine modification ;
+     * l'implémentation par défaut la déduit du centre, de la largeur et de la hauteur.
+     *
+     * @return La boîte englobante de la forme.
+     */
+    default Boite boite() {
+        Point c = centre();
+        double l = largeur() / 2;
+        double h = hauteur() / 2;
+        return new Boite(c.x() - l, c.y() - h, c.x() + l, c.y() + h);
+    }
 }
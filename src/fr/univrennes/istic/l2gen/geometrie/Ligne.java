@@ -1,12 +1,11 @@
 package fr.univrennes.istic.l2gen.geometrie;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Stream;
 
-public class Ligne implements IForme {
-    private final List<Point> sommets;
+public class Ligne extends Forme {
+    private final Sommets sommets;
 
     /**
      * Construit une Ligne à partir des coordonnées x et y de ses n sommets.
@@ -19,10 +18,12 @@ public class Ligne implements IForme {
             throw new IllegalStateException("Une ligne doit avoir au moins deux sommets.");
         }
 
-        sommets = new ArrayList<>();
-        for (int i = 0; i < points.length-1; i+=2) {
-            sommets.add(new Point(points[i], points[i+1]));
-        }
+        // une coordonnée isolée en fin de tableau est ignorée
+        sommets = new Sommets(Arrays.copyOf(points, points.length & ~1));
+    }
+
+    Ligne(Sommets sommets) {
+        this.sommets = sommets;
     }
 
     /**
@@ -31,7 +32,8 @@ public class Ligne implements IForme {
      * @param p point a ajouter a la ligne
      */
     public void ajouterSommet(Point p){
-        sommets.add(p);
+        sommets.ajouter(p.x(), p.y());
+        invalider();
     }
 
     /**
@@ -41,16 +43,26 @@ public class Ligne implements IForme {
      * @param y Déplacement à appliquer sur l'axe Y.
      */
     public void ajouterSommetD(double x, double y){
-        sommets.add(new Point(x,y));
+        sommets.ajouter(x, y);
+        invalider();
     }
 
     /**
      * Recuperes une liste des points de la ligne.
      *
-     * @return Une liste de tous les points qui composent la ligne
+     * @return Une liste, en lecture seule, de tous les points qui composent la ligne
      */
     public List<Point> getsommets(){
-        return sommets;
+        return sommets();
+    }
+
+    /**
+     * Retourne une vue en lecture seule des sommets de la ligne.
+     *
+     * @return Les sommets de la ligne, dans l'ordre d'ajout.
+     */
+    public VueSommets sommets() {
+        return sommets.vue();
     }
 
 
@@ -63,20 +75,12 @@ public class Ligne implements IForme {
      * @return Un objet {@link Point} représentant le centre de la ligne.
      * @throws IllegalStateException Si la ligne ne contient pas au moins 2 points.
      */
-    public Point centre(){
-        if (sommets.size() <= 2) {
+    @Override
+    Point calculerCentre(){
+        if (sommets.taille() <= 2) {
             throw new IllegalStateException("Une ligne doit avoir au moins deux sommets.");
         }
-
-        int moyx = 0;
-        int moyy = 0;
-        for (Point point : sommets) {
-            moyx += (int)point.x();
-            moyy += (int)point.y();
-        }
-        moyx = moyx/ sommets.size();
-        moyy = moyy/ sommets.size();
-        return new Point(moyx, moyy);
+        return sommets.barycentreTronque();
     }
 
 
@@ -91,10 +95,8 @@ public class Ligne implements IForme {
      */
     @Override
     public void deplacer(double x, double y) {
-        for (int i = 0; i < sommets.size(); i++) {
-            Point p = sommets.get(i);
-            sommets.set(i, new Point(p.x() + x, p.y() + y));
-        }
+        sommets.translater(x, y);
+        invalider();
     }
 
     /**
@@ -109,11 +111,19 @@ public class Ligne implements IForme {
      */
     @Override
     public String description(int indentation){
+        return description(indentation, 0, 0);
+    }
+
+    /**
+     * Génère la description de la ligne déplacée de (dx, dy), sans copie ni modification.
+     */
+    @Override
+    String description(int indentation, double dx, double dy) {
         StringBuilder des = new StringBuilder();
         String indent = "  ".repeat(indentation);
         des.append(indent).append("Ligne ");
-        for (Point p : sommets) {
-            des.append((int)p.x()).append(",").append((int)p.y()).append(" ");
+        for (int i = 0; i < sommets.taille(); i++) {
+            des.append((int) (sommets.x(i) + dx)).append(",").append((int) (sommets.y(i) + dy)).append(" ");
         }
         des.append("\n");
         return des.toString();
@@ -121,51 +131,75 @@ public class Ligne implements IForme {
 
 
     /**
-     * Génère une représentation SVG de la Ligne.
+     * Écrit une représentation SVG de la Ligne dans une sortie.
      * </br>
-     * La méthode construit une balise {@code <polyline>} contenant les coordonnées des points
+     * La méthode écrit une balise {@code <polyline>} contenant les coordonnées des points
      * de la ligne, permettant ainsi de l'afficher dans un document SVG.
      *
-     * @return Une chaîne de caractères représentant la ligne sous forme de balise SVG.
-     *         Exemple de sortie :
-     *         {@code <polyline points="x1,y1 x2,y2 x3,y3 ...,..." fill="white" stroke="black" />}
+     * Exemple de sortie :
+     * {@code <polyline points="x1,y1 x2,y2 x3,y3 ...,..." fill="white" stroke="black" />}
+     *
+     * @param sortie La sortie dans laquelle écrire la balise SVG.
+     * @throws IOException Si l'écriture dans la sortie échoue.
      */
     @Override
-    public String enSVG() {
-        StringBuilder s = new StringBuilder();
-        for (Point point : sommets) {
-            s.append(point.x()).append(",").append(point.y()).append(" ");
+    public void enSVG(Appendable sortie) throws IOException {
+        ecrireSVG(sortie, null);
+    }
+
+    /**
+     * Écrit la ligne telle que {@link #simplifier(double)} la laisserait, sans la copier ni
+     * la modifier. Des exports simultanés peuvent ainsi lire la même ligne.
+     *
+     * @param sortie    La sortie dans laquelle écrire la balise SVG.
+     * @param tolerance Taille, dans les unités de la forme, des détails à omettre.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    public void enSVGSimplifie(Appendable sortie, double tolerance) throws IOException {
+        ecrireSVG(sortie, sommets.sommetsGardes(tolerance * tolerance, false));
+    }
+
+    /**
+     * Écrit la balise SVG avec les sommets gardés, ou tous les sommets si gardes est null.
+     */
+    private void ecrireSVG(Appendable sortie, boolean[] gardes) throws IOException {
+        sortie.append("<polyline points = \" ");
+        for (int i = 0; i < sommets.taille(); i++) {
+            if (gardes != null && !gardes[i]) {
+                continue;
+            }
+            sortie.append(Double.toString(sommets.x(i)));
+            sortie.append(',');
+            sortie.append(Double.toString(sommets.y(i)));
+            sortie.append(' ');
         }
-        return String.format( "<polyline points = \" %s \"\n fill = \" white \" stroke = \" black \"  />", s);
+        sortie.append(" \"\n fill = \" white \" stroke = \" black \"  />");
     }
 
     /**
-     * Crée une copie indépendante (deep copy) de la ligne.
+     * Crée une copie indépendante de la ligne.
      * </br>
-     * Cette méthode duplique la ligne en créant de nouveaux objets {@link Point}
-     * pour chaque point pour ne pas referencer les objets composant la ligne d'origine.
+     * La copie partage le stockage des sommets de la ligne d'origine jusqu'à ce que l'une
+     * des deux soit modifiée : dupliquer une ligne d'un million de sommets coûte O(1).
      *
      * @return Une nouvelle instance de {@link Ligne}.
      */
     @Override
     public IForme dupliquer(){
-        List<Point> pointsCopy = new ArrayList<>();
-        for (Point point : sommets) {
-            pointsCopy.add(new Point(point.x(), point.y()));
-        }
-        return new Ligne(
-                pointsCopy
-                        .stream()
-                        .filter(Objects::nonNull)
-                        .flatMap(
-                                p -> Stream.of(p.x(), p.y())
-                                )
-                        .mapToDouble(p -> p)
-                        .toArray()
-        );
+        return new Ligne(sommets.copie());
     }
 
 
+    /**
+     * Calcule la boîte englobante des points de la ligne.
+     *
+     * @return La boîte englobante de la ligne.
+     */
+    @Override
+    Boite calculerBoite() {
+        return sommets.boite();
+    }
+
     /**
      * Calcule la hauteur de la ligne, la distance maximale en y
      * entre les points les plus éloignés.
@@ -175,25 +209,11 @@ public class Ligne implements IForme {
      */
     @Override
     public double hauteur() {
-        if (sommets.size() <= 2) {
+        if (sommets.taille() <= 2) {
             throw new IllegalStateException("Une ligne doit avoir au moins deux sommets.");
         }
 
-        // initialiser min et max a des valeurs impossibles pour comparaison apres.
-        double minY = Double.MAX_VALUE;
-        double maxY = Double.MIN_VALUE;
-
-        for (Point point : sommets) {
-            double y = point.y();
-            if (y < minY) {
-                minY = y;
-            }
-            if (y > maxY) {
-                maxY = y;
-            }
-        }
-
-        return maxY - minY;
+        return boite().hauteur();
     }
 
     /**
@@ -205,25 +225,11 @@ public class Ligne implements IForme {
      */
     @Override
     public double largeur() {
-        if (sommets.size() <= 2) {
+        if (sommets.taille() <= 2) {
             throw new IllegalStateException("Une ligne doit avoir au moins deux sommets.");
         }
 
-        // initialiser min et max a des valeurs impossibles pour comparaison apres.
-        double minX = Double.MAX_VALUE;
-        double maxX = Double.MIN_VALUE;
-
-        for (Point point : sommets) {
-            double x = point.x();
-            if (x < minX) {
-                minX = x;
-            }
-            if (x > maxX) {
-                maxX = x;
-            }
-        }
-
-        return maxX - minX;
+        return boite().largeur();
     }
 
 
@@ -235,17 +241,43 @@ public class Ligne implements IForme {
      */
     @Override
     public void redimensionner(double largeur, double hauteur) {
-        Point centre = centre();
-
-        for (int i = 0; i < sommets.size(); i++) {
-            Point p = sommets.get(i);
+        redimensionnerEtDeplacer(largeur, hauteur, 0, 0);
+    }
 
-            // Appliquer l'échelle autour du centre
-            double newX = centre.x() + (p.x() - centre.x()) * largeur;
-            double newY = centre.y() + (p.y() - centre.y()) * hauteur;
+    /**
+     * Redimensionne la ligne par rapport à son centre puis la déplace, en un seul parcours
+     * des sommets et sans allocation par sommet.
+     *
+     * @param largeur  Facteur d'échelle sur l'axe X.
+     * @param hauteur  Facteur d'échelle sur l'axe Y.
+     * @param x        Déplacement en X appliqué après le redimensionnement.
+     * @param y        Déplacement en Y appliqué après le redimensionnement.
+     */
+    @Override
+    public void redimensionnerEtDeplacer(double largeur, double hauteur, double x, double y) {
+        Point centre = centre();
+        sommets.transformer(centre.x(), centre.y(), largeur, hauteur, x, y);
+        invalider();
+    }
 
-            sommets.set(i, new Point(newX, newY));
+    /**
+     * Simplifie la ligne sur place (algorithme de Visvalingam-Whyatt, en O(n log n)) : les
+     * sommets sont retirés par ordre d'importance croissante, tant que le triangle qu'un
+     * sommet forme avec ses voisins a une aire inférieure à tolerance². Les deux extrémités
+     * et au moins trois sommets sont toujours gardés.
+     * </br>
+     * Avec pour tolérance la taille d'un pixel, chaque détail retiré couvre moins d'un pixel :
+     * le dessin à cette résolution ne change pas visiblement.
+     *
+     * @param tolerance Taille, dans les unités de la forme, des détails à retirer.
+     * @return Le nombre de sommets retirés.
+     */
+    public int simplifier(double tolerance) {
+        int retires = sommets.simplifier(tolerance * tolerance, false);
+        if (retires > 0) {
+            invalider();
         }
+        return retires;
     }
 
     /**
@@ -0,0 +1,226 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+/**
+ * Noyaux de calcul des parcours de {@link Sommets}, sur des coordonnées entrelacées
+ * (x0, y0, x1, y1, ...) : translation, mise à l'échelle fusionnée avec une translation,
+ * sommes du barycentre et bornes de la boîte englobante.
+ * </br>
+ * Cette classe en donne la version scalaire. Une version vectorielle (SIMD), écrite avec
+ * l'API Vector du module incubateur jdk.incubator.vector, est rangée à part dans le
+ * répertoire vecteur/ : elle est utilisée à la place de celle-ci si elle est sur le
+ * classpath, que la JVM est lancée avec {@code --add-modules jdk.incubator.vector} et que
+ * le processeur a des registres vectoriels d'au moins 256 bits. Sinon, les noyaux scalaires
+ * sont utilisés, sans autre réglage.
+ * </br>
+ * Les deux versions font les mêmes opérations dans le même ordre, et donnent les mêmes
+ * résultats (une borne nulle peut seulement changer de signe) : les sommes du barycentre
+ * sont réparties sur huit accumulateurs, un par coordonnée de quatre sommets consécutifs,
+ * que la version vectorielle range dans deux vecteurs de quatre doubles.
+ */
+class Noyaux {
+    /**
+     * Les noyaux utilisés par {@link Sommets} : les noyaux vectoriels s'ils sont
+     * disponibles, les noyaux scalaires sinon.
+     */
+    static final Noyaux ACTIFS = charger();
+
+    private static Noyaux charger() {
+        try {
+            return (Noyaux) Class.forName("fr.univrennes.istic.l2gen.geometrie.NoyauxVectoriels")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // classe absente, module jdk.incubator.vector non chargé, ou processeur sans
+            // registres vectoriels assez larges
+            return new Noyaux();
+        }
+    }
+
+    /**
+     * @return true pour les noyaux vectoriels.
+     */
+    boolean vectoriels() {
+        return false;
+    }
+
+    /**
+     * Écrit dans cible les n premières coordonnées de source translatées de (dx, dy).
+     * source et cible peuvent être le même tableau.
+     *
+     * @param source Coordonnées lues.
+     * @param cible  Tableau dans lequel écrire les coordonnées translatées.
+     * @param n      Nombre de coordonnées, pair.
+     * @param dx     Déplacement en x.
+     * @param dy     Déplacement en y.
+     */
+    void translater(double[] source, double[] cible, int n, double dx, double dy) {
+        translater(source, cible, 0, n, dx, dy);
+    }
+
+    /**
+     * {@link #translater(double[], double[], int, double, double)} des coordonnées
+     * d'indices debut (pair) à fin exclu.
+     */
+    final void translater(double[] source, double[] cible, int debut, int fin, double dx, double dy) {
+        for (int i = debut; i < fin; i += 2) {
+            cible[i] = source[i] + dx;
+            cible[i + 1] = source[i + 1] + dy;
+        }
+    }
+
+    /**
+     * Écrit dans cible les n premières coordonnées de source mises à l'échelle autour de
+     * (cx, cy) puis translatées de (dx, dy). source et cible peuvent être le même tableau.
+     *
+     * @param source Coordonnées lues.
+     * @param cible  Tableau dans lequel écrire les coordonnées transformées.
+     * @param n      Nombre de coordonnées, pair.
+     * @param cx     Coordonnée x du centre de la mise à l'échelle.
+     * @param cy     Coordonnée y du centre de la mise à l'échelle.
+     * @param fx     Facteur d'échelle sur l'axe X.
+     * @param fy     Facteur d'échelle sur l'axe Y.
+     * @param dx     Déplacement en x appliqué après la mise à l'échelle.
+     * @param dy     Déplacement en y appliqué après la mise à l'échelle.
+     */
+    void transformer(double[] source, double[] cible, int n,
+                     double cx, double cy, double fx, double fy, double dx, double dy) {
+        transformer(source, cible, 0, n, cx, cy, fx, fy, dx, dy);
+    }
+
+    /**
+     * {@link #transformer(double[], double[], int, double, double, double, double, double, double)}
+     * des coordonnées d'indices debut (pair) à fin exclu.
+     */
+    final void transformer(double[] source, double[] cible, int debut, int fin,
+                           double cx, double cy, double fx, double fy, double dx, double dy) {
+        for (int i = debut; i < fin; i += 2) {
+            cible[i] = cx + (source[i] - cx) * fx + dx;
+            cible[i + 1] = cy + (source[i + 1] - cy) * fy + dy;
+        }
+    }
+
+    /**
+     * Ajoute les n premières coordonnées aux huit sommes partielles du barycentre : la
+     * coordonnée d'indice i va dans sommes[i % 8], sauf celles de la fin qui ne forment pas
+     * un groupe de huit, qui vont dans sommes[0] et sommes[1]. Les sommes peuvent ainsi être
+     * poursuivies sur plusieurs morceaux de longueur multiple de 8.
+     *
+     * @param coords Coordonnées à sommer.
+     * @param n      Nombre de coordonnées, pair.
+     * @param sommes Les huit sommes partielles, mises à jour.
+     */
+    void sommer(double[] coords, int n, double[] sommes) {
+        double x0 = sommes[0];
+        double y0 = sommes[1];
+        double x1 = sommes[2];
+        double y1 = sommes[3];
+        double x2 = sommes[4];
+        double y2 = sommes[5];
+        double x3 = sommes[6];
+        double y3 = sommes[7];
+        int i = 0;
+        for (; i + 7 < n; i += 8) {
+            x0 += coords[i];
+            y0 += coords[i + 1];
+            x1 += coords[i + 2];
+            y1 += coords[i + 3];
+            x2 += coords[i + 4];
+            y2 += coords[i + 5];
+            x3 += coords[i + 6];
+            y3 += coords[i + 7];
+        }
+        for (; i < n; i += 2) {
+            x0 += coords[i];
+            y0 += coords[i + 1];
+        }
+        sommes[0] = x0;
+        sommes[1] = y0;
+        sommes[2] = x1;
+        sommes[3] = y1;
+        sommes[4] = x2;
+        sommes[5] = y2;
+        sommes[6] = x3;
+        sommes[7] = y3;
+    }
+
+    /**
+     * Ajoute les n premières coordonnées, tronquées à l'entier, aux sommes entières des x
+     * (sommes[0]) et des y (sommes[1]). Les sommes se font en int, dépassements compris :
+     * l'addition entière étant associative, l'ordre des additions ne change pas le résultat.
+     *
+     * @param coords Coordonnées à sommer.
+     * @param n      Nombre de coordonnées, pair.
+     * @param sommes Les sommes des x et des y, mises à jour.
+     */
+    void sommerTronque(double[] coords, int n, int[] sommes) {
+        int x0 = 0;
+        int y0 = 0;
+        int x1 = 0;
+        int y1 = 0;
+        int x2 = 0;
+        int y2 = 0;
+        int x3 = 0;
+        int y3 = 0;
+        int i = 0;
+        for (; i + 7 < n; i += 8) {
+            x0 += (int) coords[i];
+            y0 += (int) coords[i + 1];
+            x1 += (int) coords[i + 2];
+            y1 += (int) coords[i + 3];
+            x2 += (int) coords[i + 4];
+            y2 += (int) coords[i + 5];
+            x3 += (int) coords[i + 6];
+            y3 += (int) coords[i + 7];
+        }
+        for (; i < n; i += 2) {
+            x0 += (int) coords[i];
+            y0 += (int) coords[i + 1];
+        }
+        sommes[0] += x0 + x1 + x2 + x3;
+        sommes[1] += y0 + y1 + y2 + y3;
+    }
+
+    /**
+     * Étend les bornes (minX, minY, maxX, maxY) aux n premières coordonnées. Une borne
+     * n'est remplacée que par une valeur strictement plus petite (ou plus grande) : les
+     * coordonnées NaN sont ignorées. Les bornes doivent être initialisées avec un sommet.
+     *
+     * @param coords Coordonnées à parcourir.
+     * @param n      Nombre de coordonnées, pair.
+     * @param bornes Les bornes minX, minY, maxX, maxY, mises à jour.
+     */
+    void borner(double[] coords, int n, double[] bornes) {
+        borner(coords, 0, n, bornes);
+    }
+
+    /**
+     * {@link #borner(double[], int, double[])} des coordonnées d'indices debut (pair) à
+     * fin exclu.
+     */
+    final void borner(double[] coords, int debut, int fin, double[] bornes) {
+        double minX = bornes[0];
+        double minY = bornes[1];
+        double maxX = bornes[2];
+        double maxY = bornes[3];
+        for (int i = debut; i < fin; i += 2) {
+            double x = coords[i];
+            double y = coords[i + 1];
+            if (x < minX) {
+                minX = x;
+            }
+            if (x > maxX) {
+                maxX = x;
+            }
+            if (y < minY) {
+                minY = y;
+            }
+            if (y > maxY) {
+                maxY = y;
+            }
+        }
+        bornes[0] = minX;
+        bornes[1] = minY;
+        bornes[2] = maxX;
+        bornes[3] = maxY;
+    }
+}
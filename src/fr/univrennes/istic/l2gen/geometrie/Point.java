@@ -1,10 +1,8 @@
 package fr.univrennes.istic.l2gen.geometrie;
 
-import java.util.Objects;
-
 public class Point {
-    private Double x;
-    private Double y;
+    private final double x;
+    private final double y;
 
     /**
      * Constructeur de la classe Point.
@@ -33,7 +31,7 @@ public class Point {
         if (!(obj instanceof Point))
             throw new IllegalArgumentException("obj doit etre une instance de Point");
 
-        return (Objects.equals(x, ((Point) obj).x)) && (Objects.equals(y, ((Point) obj).y));
+        return (Double.compare(x, ((Point) obj).x) == 0) && (Double.compare(y, ((Point) obj).y) == 0);
     }
 
     /**
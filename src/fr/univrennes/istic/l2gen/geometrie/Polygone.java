@@ -1,14 +1,14 @@
 package fr.univrennes.istic.l2gen.geometrie;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
 
 /**
  * Représente un polygone défini par une liste de sommets.
  * Un polygone peut avoir un nombre quelconque de sommets (au moins 3).
  */
-public class Polygone implements IForme {
-    private final List<Point> sommets = new ArrayList<>();
+public class Polygone extends Forme {
+    private final Sommets sommets;
 
     /**
      * Construit un polygone à partir des coordonnées x et y de ses sommets.
@@ -20,9 +20,7 @@ public class Polygone implements IForme {
         if (coords.length < 6 || coords.length % 2 != 0) {
             throw new IllegalArgumentException("Un polygone doit avoir au moins 3 sommets (6 coordonnées).");
         }
-        for (int i = 0; i < coords.length; i += 2) {
-            sommets.add(new Point(coords[i], coords[i + 1]));
-        }
+        this.sommets = new Sommets(coords);
     }
 
     /**
@@ -35,7 +33,20 @@ public class Polygone implements IForme {
         if (points.size() < 3) {
             throw new IllegalArgumentException("Un polygone doit avoir au moins 3 sommets.");
         }
-        this.sommets.addAll(points);
+        this.sommets = new Sommets(points);
+    }
+
+    Polygone(Sommets sommets) {
+        this.sommets = sommets;
+    }
+
+    /**
+     * Retourne une vue en lecture seule des sommets du polygone.
+     *
+     * @return Les sommets du polygone, dans l'ordre de construction.
+     */
+    public VueSommets sommets() {
+        return sommets.vue();
     }
 
     /**
@@ -44,13 +55,8 @@ public class Polygone implements IForme {
      * @return Un objet {@link Point} représentant le centre du polygone.
      */
     @Override
-    public Point centre() {
-        double sumX = 0, sumY = 0;
-        for (Point p : sommets) {
-            sumX += p.x();
-            sumY += p.y();
-        }
-        return new Point(sumX / sommets.size(), sumY / sommets.size());
+    Point calculerCentre() {
+        return sommets.barycentre();
     }
 
     /**
@@ -61,10 +67,8 @@ public class Polygone implements IForme {
      */
     @Override
     public void deplacer(double x, double y) {
-        for (int i = 0; i < sommets.size(); i++) {
-            Point p = sommets.get(i);
-            sommets.set(i, new Point(p.x() + x, p.y() + y));
-        }
+        sommets.translater(x, y);
+        invalider();
     }
 
     /**
@@ -75,43 +79,88 @@ public class Polygone implements IForme {
      */
     @Override
     public String description(int indentation) {
+        return description(indentation, 0, 0);
+    }
+
+    /**
+     * Génère la description du polygone déplacé de (dx, dy), sans copie ni modification.
+     */
+    @Override
+    String description(int indentation, double dx, double dy) {
         StringBuilder sb = new StringBuilder();
         String indent = "  ".repeat(indentation);
         sb.append(indent).append("Polygone ");
 
-        for (Point p : sommets) {
-            sb.append((int) p.x()).append(",").append((int) p.y()).append(" ");
+        for (int i = 0; i < sommets.taille(); i++) {
+            sb.append((int) (sommets.x(i) + dx)).append(",").append((int) (sommets.y(i) + dy)).append(" ");
         }
 
         return sb.toString().trim();
     }
 
     /**
-     * Génère une représentation SVG du polygone.
+     * Écrit une représentation SVG du polygone dans une sortie, sommet par sommet.
      *
-     * @return Une chaîne de caractères représentant le polygone sous forme SVG.
+     * @param sortie La sortie dans laquelle écrire la balise SVG.
+     * @throws IOException Si l'écriture dans la sortie échoue.
      */
     @Override
-    public String enSVG() {
-        StringBuilder s = new StringBuilder();
-        for (Point point : sommets) {
-            s.append(point.x()).append(",").append(point.y()).append(" ");
+    public void enSVG(Appendable sortie) throws IOException {
+        ecrireSVG(sortie, null);
+    }
+
+    /**
+     * Écrit le polygone tel que {@link #simplifier(double)} le laisserait, sans le copier ni
+     * le modifier. Des exports simultanés peuvent ainsi lire le même polygone.
+     *
+     * @param sortie    La sortie dans laquelle écrire la balise SVG.
+     * @param tolerance Taille, dans les unités de la forme, des détails à omettre.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    public void enSVGSimplifie(Appendable sortie, double tolerance) throws IOException {
+        ecrireSVG(sortie, sommets.sommetsGardes(tolerance * tolerance, true));
+    }
+
+    /**
+     * Écrit la balise SVG avec les sommets gardés, ou tous les sommets si gardes est null.
+     */
+    private void ecrireSVG(Appendable sortie, boolean[] gardes) throws IOException {
+        sortie.append("<polygon points=\"");
+        boolean premier = true;
+        for (int i = 0; i < sommets.taille(); i++) {
+            if (gardes != null && !gardes[i]) {
+                continue;
+            }
+            if (!premier) {
+                sortie.append(' ');
+            }
+            premier = false;
+            sortie.append(Double.toString(sommets.x(i)));
+            sortie.append(',');
+            sortie.append(Double.toString(sommets.y(i)));
         }
-        return String.format("<polygon points=\"%s\" fill=\"white\" stroke=\"black\" />", s.toString().trim());
+        sortie.append("\" fill=\"white\" stroke=\"black\" />");
     }
 
     /**
-     * Crée une copie indépendante (deep copy) du polygone.
+     * Crée une copie indépendante du polygone, en O(1) : la copie partage les sommets de
+     * l'original jusqu'à ce que l'un des deux soit modifié.
      *
      * @return Une nouvelle instance de {@link Polygone}.
      */
     @Override
     public IForme dupliquer() {
-        List<Point> pointsCopy = new ArrayList<>();
-        for (Point point : sommets) {
-            pointsCopy.add(new Point(point.x(), point.y()));
-        }
-        return new Polygone(pointsCopy);
+        return new Polygone(sommets.copie());
+    }
+
+    /**
+     * Calcule la boîte englobante des sommets du polygone.
+     *
+     * @return La boîte englobante du polygone.
+     */
+    @Override
+    Boite calculerBoite() {
+        return sommets.boite();
     }
 
     /**
@@ -121,14 +170,7 @@ public class Polygone implements IForme {
      */
     @Override
     public double hauteur() {
-        double minY = Double.MAX_VALUE;
-        double maxY = Double.MIN_VALUE;
-        for (Point point : sommets) {
-            double y = point.y();
-            minY = Math.min(minY, y);
-            maxY = Math.max(maxY, y);
-        }
-        return maxY - minY;
+        return boite().hauteur();
     }
 
     /**
@@ -138,14 +180,7 @@ public class Polygone implements IForme {
      */
     @Override
     public double largeur() {
-        double minX = Double.MAX_VALUE;
-        double maxX = Double.MIN_VALUE;
-        for (Point point : sommets) {
-            double x = point.x();
-            minX = Math.min(minX, x);
-            maxX = Math.max(maxX, x);
-        }
-        return maxX - minX;
+        return boite().largeur();
     }
 
     /**
@@ -156,17 +191,49 @@ public class Polygone implements IForme {
      */
     @Override
     public void redimensionner(double largeur, double hauteur) {
+        redimensionnerEtDeplacer(largeur, hauteur, 0, 0);
+    }
+
+    /**
+     * Redimensionne le polygone par rapport à son centre puis le déplace, en un seul parcours
+     * des sommets et sans allocation par sommet.
+     *
+     * @param largeur  Facteur d'échelle sur l'axe X.
+     * @param hauteur  Facteur d'échelle sur l'axe Y.
+     * @param x        Déplacement en X appliqué après le redimensionnement.
+     * @param y        Déplacement en Y appliqué après le redimensionnement.
+     */
+    @Override
+    public void redimensionnerEtDeplacer(double largeur, double hauteur, double x, double y) {
         Point centre = centre();
-        for (int i = 0; i < sommets.size(); i++) {
-            Point p = sommets.get(i);
-            double newX = centre.x() + (p.x() - centre.x()) * largeur;
-            double newY = centre.y() + (p.y() - centre.y()) * hauteur;
-            sommets.set(i, new Point(newX, newY));
+        sommets.transformer(centre.x(), centre.y(), largeur, hauteur, x, y);
+        invalider();
+    }
+
+    /**
+     * Simplifie le polygone sur place (algorithme de Visvalingam-Whyatt, en O(n log n)) : les
+     * sommets sont retirés par ordre d'importance croissante, tant que le triangle qu'un
+     * sommet forme avec ses voisins a une aire inférieure à tolerance². Au moins trois
+     * sommets sont gardés.
+     * </br>
+     * Avec pour tolérance la taille d'un pixel, chaque détail retiré couvre moins d'un pixel :
+     * le dessin à cette résolution ne change pas visiblement.
+     *
+     * @param tolerance Taille, dans les unités de la forme, des détails à retirer.
+     * @return Le nombre de sommets retirés.
+     */
+    public int simplifier(double tolerance) {
+        int retires = sommets.simplifier(tolerance * tolerance, true);
+        if (retires > 0) {
+            invalider();
         }
+        return retires;
     }
 
     /**
      * Génère une fractale à partir du polygone en le dupliquant récursivement.
+     * Les copies sont générées à la demande par une {@link Fractale}, au lieu d'être toutes
+     * construites ici.
      *
      * @param base       Forme de base.
      * @param profondeur Niveau de récursivité.
@@ -177,13 +244,6 @@ public class Polygone implements IForme {
         if (profondeur <= 0) {
             return base;
         }
-        Groupe groupe = new Groupe(base);
-        for (int i = 0; i < 4; i++) {
-            IForme copie = base.dupliquer();
-            copie.redimensionner(0.5, 0.5);
-            copie.deplacer((i % 2) * largeur() / 2, (i / 2) * hauteur() / 2);
-            groupe.ajouter(copie);
-        }
-        return fractale(groupe, profondeur - 1);
+        return Fractale.quadrants(base, profondeur, largeur(), hauteur());
     }
 }
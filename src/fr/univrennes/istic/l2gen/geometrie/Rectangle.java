@@ -1,12 +1,13 @@
 package fr.univrennes.istic.l2gen.geometrie;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Représente un rectangle défini par son centre, sa largeur et sa hauteur.
  */
-public class Rectangle implements IForme {
+public class Rectangle extends Forme {
     private Point centre;
     private double largeur;
     private double hauteur;
@@ -31,10 +32,22 @@ public class Rectangle implements IForme {
      * @return Le point représentant le centre du rectangle.
      */
     @Override
-    public Point centre() {
+    Point calculerCentre() {
         return centre;
     }
 
+    /**
+     * Calcule la boîte englobante du rectangle, qui est le rectangle lui-même.
+     *
+     * @return La boîte englobante du rectangle.
+     */
+    @Override
+    Boite calculerBoite() {
+        double l = Math.abs(largeur) / 2;
+        double h = Math.abs(hauteur) / 2;
+        return new Boite(centre.x() - l, centre.y() - h, centre.x() + l, centre.y() + h);
+    }
+
     /**
      * Déplace le rectangle en appliquant un décalage à son centre.
      *
@@ -44,6 +57,7 @@ public class Rectangle implements IForme {
     @Override
     public void deplacer(double x, double y) {
         this.centre = new Point(centre.x() + x, centre.y() + y);
+        invalider();
     }
 
     /**
@@ -54,24 +68,57 @@ public class Rectangle implements IForme {
      */
     @Override
     public String description(int indentation) {
-        String indent = "  ".repeat(indentation);
-        return String.format("%sRectangle Centre=%.1f,%.1f L=%.1f H=%.1f",
-                indent, centre.x(), centre.y(), largeur, hauteur);
+        StringBuilder sb = new StringBuilder();
+        sb.append("  ".repeat(indentation)).append("Rectangle Centre=");
+        FormatNombre.ecrire(sb, centre.x());
+        sb.append(",");
+        FormatNombre.ecrire(sb, centre.y());
+        sb.append(" L=");
+        FormatNombre.ecrire(sb, largeur);
+        sb.append(" H=");
+        FormatNombre.ecrire(sb, hauteur);
+        return sb.toString();
     }
 
     /**
-     * Génère une représentation SVG du rectangle.
+     * Génère la description du rectangle déplacé de (dx, dy), sans copie ni modification.
+     */
+    @Override
+    String description(int indentation, double dx, double dy) {
+        if (dx == 0 && dy == 0) {
+            return description(indentation);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("  ".repeat(indentation)).append("Rectangle Centre=");
+        FormatNombre.ecrire(sb, centre.x() + dx);
+        sb.append(",");
+        FormatNombre.ecrire(sb, centre.y() + dy);
+        sb.append(" L=");
+        FormatNombre.ecrire(sb, largeur);
+        sb.append(" H=");
+        FormatNombre.ecrire(sb, hauteur);
+        return sb.toString();
+    }
+
+    /**
+     * Écrit une représentation SVG du rectangle dans une sortie.
      *
-     * @return Une chaîne de caractères représentant le rectangle sous forme SVG.
+     * @param sortie La sortie dans laquelle écrire la balise SVG.
+     * @throws IOException Si l'écriture dans la sortie échoue.
      */
     @Override
-    public String enSVG() {
+    public void enSVG(Appendable sortie) throws IOException {
         double x = centre.x() - largeur / 2;
         double y = centre.y() - hauteur / 2;
-        return String.format(
-                "<rect x=\"%.1f\" y=\"%.1f\" width=\"%.1f\" height=\"%.1f\" fill=\"white\" stroke=\"black\" />",
-                x, y, largeur, hauteur
-        );
+        sortie.append("<rect x=\"");
+        FormatNombre.ecrire(sortie, x);
+        sortie.append("\" y=\"");
+        FormatNombre.ecrire(sortie, y);
+        sortie.append("\" width=\"");
+        FormatNombre.ecrire(sortie, largeur);
+        sortie.append("\" height=\"");
+        FormatNombre.ecrire(sortie, hauteur);
+        sortie.append("\" fill=\"white\" stroke=\"black\" />");
     }
 
     /**
@@ -114,10 +161,13 @@ public class Rectangle implements IForme {
     public void redimensionner(double facteurLargeur, double facteurHauteur) {
         this.largeur *= facteurLargeur;
         this.hauteur *= facteurHauteur;
+        invalider();
     }
 
     /**
      * Génère une fractale à partir du rectangle en le dupliquant récursivement.
+     * Les copies sont générées à la demande par une {@link Fractale}, au lieu d'être toutes
+     * construites ici.
      *
      * @param base       Forme de base.
      * @param profondeur Niveau de récursivité.
@@ -128,14 +178,7 @@ public class Rectangle implements IForme {
         if (profondeur <= 0) {
             return base;
         }
-        Groupe groupe = new Groupe(base);
-        for (int i = 0; i < 4; i++) {
-            IForme copie = base.dupliquer();
-            copie.redimensionner(0.5, 0.5);
-            copie.deplacer((i % 2) * largeur / 2, (i / 2) * hauteur / 2);
-            groupe.ajouter(copie);
-        }
-        return fractale(groupe, profondeur - 1);
+        return Fractale.quadrants(base, profondeur, largeur, hauteur);
     }
 }
 
@@ -0,0 +1,168 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+import java.util.Arrays;
+
+/**
+ * Simplification d'une suite de sommets par l'algorithme de Visvalingam-Whyatt.
+ * </br>
+ * Chaque sommet intérieur a pour aire effective celle du triangle qu'il forme avec ses deux
+ * voisins. Le sommet de plus petite aire est retiré, ses voisins sont reliés et leurs aires
+ * recalculées, tant qu'il reste un sommet d'aire inférieure au seuil. Les aires sont
+ * rangées dans un tas binaire indexé : l'algorithme est en O(n log n), et travaille
+ * directement sur les coordonnées entrelacées de {@link Sommets}.
+ * </br>
+ * L'aire d'un sommet voisin d'un sommet retiré ne peut pas descendre sous celle du sommet
+ * retiré : les sommets sont ainsi retirés par ordre d'importance croissante.
+ */
+final class Simplification {
+    /**
+     * Nombre de sommets gardés au minimum, nécessaire à {@link Polygone} comme au calcul du
+     * centre d'une {@link Ligne}.
+     */
+    static final int SOMMETS_MIN = 3;
+
+    private final double[] coords;
+    private final int[] precedent;
+    private final int[] suivant;
+    private final double[] aires;
+    private final int[] tas;
+    private final int[] positions;
+    private int tailleTas;
+
+    private Simplification(double[] coords, int n) {
+        this.coords = coords;
+        this.precedent = new int[n];
+        this.suivant = new int[n];
+        this.aires = new double[n];
+        this.tas = new int[n];
+        this.positions = new int[n];
+    }
+
+    /**
+     * Marque les sommets à garder.
+     *
+     * @param coords  Coordonnées entrelacées des sommets.
+     * @param n       Nombre de sommets.
+     * @param ferme   true pour un contour fermé (polygone), dont tous les sommets peuvent
+     *                être retirés ; false pour une ligne, dont les extrémités sont gardées.
+     * @param aireMin Aire effective en dessous de laquelle un sommet est retiré.
+     * @return Pour chaque sommet, true s'il est gardé.
+     */
+    static boolean[] sommetsGardes(double[] coords, int n, boolean ferme, double aireMin) {
+        boolean[] gardes = new boolean[n];
+        Arrays.fill(gardes, true);
+        if (n <= SOMMETS_MIN) {
+            return gardes;
+        }
+        new Simplification(coords, n).simplifier(n, ferme, aireMin, gardes);
+        return gardes;
+    }
+
+    private void simplifier(int n, boolean ferme, double aireMin, boolean[] gardes) {
+        for (int i = 0; i < n; i++) {
+            precedent[i] = i > 0 ? i - 1 : ferme ? n - 1 : -1;
+            suivant[i] = i < n - 1 ? i + 1 : ferme ? 0 : -1;
+        }
+        for (int i = 0; i < n; i++) {
+            positions[i] = -1;
+            if (precedent[i] >= 0 && suivant[i] >= 0) {
+                aires[i] = aire(precedent[i], i, suivant[i]);
+                tas[tailleTas] = i;
+                positions[i] = tailleTas++;
+            }
+        }
+        for (int k = tailleTas / 2 - 1; k >= 0; k--) {
+            descendre(k);
+        }
+
+        int restants = n;
+        while (tailleTas > 0 && restants > SOMMETS_MIN && aires[tas[0]] < aireMin) {
+            int i = retirerMinimum();
+            double aireRetiree = aires[i];
+            gardes[i] = false;
+            restants--;
+            int p = precedent[i];
+            int s = suivant[i];
+            suivant[p] = s;
+            precedent[s] = p;
+            recalculer(p, aireRetiree);
+            recalculer(s, aireRetiree);
+        }
+    }
+
+    /**
+     * Recalcule l'aire d'un sommet dont un voisin a été retiré, sans descendre sous l'aire
+     * du sommet retiré.
+     */
+    private void recalculer(int i, double aireRetiree) {
+        if (positions[i] < 0) {
+            return;
+        }
+        double ancienne = aires[i];
+        aires[i] = Math.max(aire(precedent[i], i, suivant[i]), aireRetiree);
+        if (aires[i] < ancienne) {
+            monter(positions[i]);
+        } else {
+            descendre(positions[i]);
+        }
+    }
+
+    private double aire(int a, int b, int c) {
+        double ax = coords[2 * a];
+        double ay = coords[2 * a + 1];
+        double abx = coords[2 * b] - ax;
+        double aby = coords[2 * b + 1] - ay;
+        double acx = coords[2 * c] - ax;
+        double acy = coords[2 * c + 1] - ay;
+        return Math.abs(abx * acy - aby * acx) / 2;
+    }
+
+    private int retirerMinimum() {
+        int minimum = tas[0];
+        positions[minimum] = -1;
+        tailleTas--;
+        if (tailleTas > 0) {
+            tas[0] = tas[tailleTas];
+            positions[tas[0]] = 0;
+            descendre(0);
+        }
+        return minimum;
+    }
+
+    private void monter(int k) {
+        int i = tas[k];
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            if (aires[tas[parent]] <= aires[i]) {
+                break;
+            }
+            placer(k, tas[parent]);
+            k = parent;
+        }
+        placer(k, i);
+    }
+
+    private void descendre(int k) {
+        int i = tas[k];
+        while (true) {
+            int enfant = 2 * k + 1;
+            if (enfant >= tailleTas) {
+                break;
+            }
+            if (enfant + 1 < tailleTas && aires[tas[enfant + 1]] < aires[tas[enfant]]) {
+                enfant++;
+            }
+            if (aires[tas[enfant]] >= aires[i]) {
+                break;
+            }
+            placer(k, tas[enfant]);
+            k = enfant;
+        }
+        placer(k, i);
+    }
+
+    private void placer(int k, int i) {
+        tas[k] = i;
+        positions[i] = k;
+    }
+}
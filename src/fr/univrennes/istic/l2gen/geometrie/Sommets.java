@@ -0,0 +1,504 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stockage compact des sommets d'une forme.
+ * </br>
+ * Les coordonnées sont rangées dans un unique tableau de doubles entrelacés
+ * (x0, y0, x1, y1, ...), soit 16 octets par sommet et aucun objet {@link Point}
+ * intermédiaire. Les parcours (bornes, barycentre) se font ainsi sur une zone
+ * mémoire contiguë.
+ * </br>
+ * Les parcours (translation, mise à l'échelle, barycentre, bornes) sont faits par les
+ * {@link Noyaux}, vectoriels si l'API Vector est disponible. Les sommes du barycentre y sont
+ * réparties sur plusieurs accumulateurs indépendants, qui s'exécutent en parallèle dans le
+ * processeur au lieu d'attendre chacun le résultat de l'addition précédente.
+ * </br>
+ * Les copies ({@link #copie()}) partagent le tableau de l'original tant qu'aucun des deux
+ * n'est modifié : la première modification de l'un ou de l'autre écrit dans un nouveau
+ * tableau (copie à l'écriture). Dupliquer une forme coûte ainsi O(1), et des copies jamais
+ * modifiées n'occupent pas plus de mémoire que l'original. Un tableau partagé n'est jamais
+ * modifié : des copies peuvent être lues depuis plusieurs threads pendant que l'une d'elles
+ * est modifiée.
+ * </br>
+ * Les instances qui référencent un même tableau partagent un compteur. Une copie modifiée
+ * quitte le tableau après l'avoir lu : l'original, de nouveau seul, se modifie ensuite sur
+ * place sans allocation. Une copie jamais modifiée compte en revanche tant qu'elle existe,
+ * même devenue inaccessible, puisque rien ne prévient de sa disparition : la modification
+ * suivante de l'original recopie alors le tableau une fois. Les parcours en lecture seule
+ * (exports, requêtes) ne dupliquent donc pas les formes qu'ils lisent.
+ * </br>
+ * Les coordonnées peuvent aussi être rangées hors du tas, dans un bloc d'une {@link Arene}
+ * (coords vaut alors null) : elles sont lues au travers de l'arène à chaque opération, et
+ * deviennent inaccessibles quand elle est fermée. Les parcours sont les mêmes, avec les
+ * mêmes résultats ; les copies partagent de même la zone de l'original. Une zone que plus
+ * aucune instance ne référence, après un agrandissement ou une copie à l'écriture, est
+ * rendue à l'arène pour être réutilisée.
+ */
+final class Sommets {
+    // taille des morceaux recopiés dans le tas pour parcourir un stockage hors du tas
+    private static final int DOUBLES_PAR_MORCEAU = 256;
+
+    private double[] coords;
+    private int taille;
+    // nombre d'instances qui référencent le tableau (ou la zone) courant, partagé entre elles :
+    // au-delà d'une, il ne doit plus être modifié
+    private AtomicInteger proprietaires;
+
+    // stockage hors du tas : zone de capacite doubles à partir de la position debut du bloc
+    // numéro bloc de l'arène
+    private final Arene arene;
+    private int bloc;
+    private int debut;
+    private int capacite;
+
+    /**
+     * Construit le stockage à partir de coordonnées entrelacées (x1, y1, ..., xn, yn).
+     * Le tableau est copié.
+     *
+     * @param coords Coordonnées des sommets, de longueur paire.
+     */
+    Sommets(double... coords) {
+        this.coords = coords.clone();
+        this.taille = coords.length / 2;
+        this.proprietaires = new AtomicInteger(1);
+        this.arene = null;
+    }
+
+    private Sommets(double[] coords, int taille, AtomicInteger proprietaires) {
+        this.coords = coords;
+        this.taille = taille;
+        this.proprietaires = proprietaires;
+        this.arene = null;
+    }
+
+    /**
+     * Construit le stockage hors du tas, dans une arène, à partir de coordonnées entrelacées.
+     * Les coordonnées sont copiées dans l'arène.
+     *
+     * @param arene  Arène dans laquelle ranger les coordonnées.
+     * @param coords Coordonnées des sommets, de longueur paire.
+     * @throws IllegalStateException Si l'arène est fermée.
+     */
+    Sommets(Arene arene, double... coords) {
+        this.arene = arene;
+        this.taille = coords.length / 2;
+        this.proprietaires = new AtomicInteger(1);
+        allouer(coords.length);
+        arene.ecrire(bloc, debut, coords, 0, 2 * taille);
+    }
+
+    private Sommets(Arene arene, int bloc, int debut, int capacite, int taille, AtomicInteger proprietaires) {
+        this.arene = arene;
+        this.bloc = bloc;
+        this.debut = debut;
+        this.capacite = capacite;
+        this.taille = taille;
+        this.proprietaires = proprietaires;
+    }
+
+    /**
+     * Construit le stockage à partir d'une liste de points.
+     *
+     * @param points Sommets à stocker.
+     */
+    Sommets(List<Point> points) {
+        this.coords = new double[points.size() * 2];
+        this.taille = points.size();
+        this.proprietaires = new AtomicInteger(1);
+        this.arene = null;
+        for (int i = 0; i < taille; i++) {
+            Point p = points.get(i);
+            coords[2 * i] = p.x();
+            coords[2 * i + 1] = p.y();
+        }
+    }
+
+    /**
+     * @return Le nombre de sommets stockés.
+     */
+    int taille() {
+        return taille;
+    }
+
+    /**
+     * @param i Indice du sommet.
+     * @return La coordonnée x du sommet i.
+     */
+    double x(int i) {
+        return coords != null ? coords[2 * i] : arene.lire(bloc, debut + 2 * i);
+    }
+
+    /**
+     * @param i Indice du sommet.
+     * @return La coordonnée y du sommet i.
+     */
+    double y(int i) {
+        return coords != null ? coords[2 * i + 1] : arene.lire(bloc, debut + 2 * i + 1);
+    }
+
+    /**
+     * Ajoute un sommet en fin de stockage, en agrandissant le tableau si nécessaire.
+     *
+     * @param x Coordonnée x du sommet.
+     * @param y Coordonnée y du sommet.
+     */
+    void ajouter(double x, double y) {
+        if (coords == null) {
+            if (partage() || 2 * taille == capacite) {
+                int ancienBloc = bloc;
+                int ancienDebut = debut;
+                int ancienneCapacite = capacite;
+                AtomicInteger anciens = proprietaires;
+                allouer(Math.max(8, 2 * capacite));
+                arene.copier(ancienBloc, ancienDebut, bloc, debut, 2 * taille);
+                proprietaires = new AtomicInteger(1);
+                quitter(anciens, ancienBloc, ancienDebut, ancienneCapacite);
+            }
+            arene.ecrire(bloc, debut + 2 * taille, x);
+            arene.ecrire(bloc, debut + 2 * taille + 1, y);
+            taille++;
+            return;
+        }
+        if (partage()) {
+            AtomicInteger anciens = proprietaires;
+            coords = Arrays.copyOf(coords, Math.max(8, 2 * taille + 2));
+            proprietaires = new AtomicInteger(1);
+            quitter(anciens);
+        } else if (2 * taille == coords.length) {
+            coords = Arrays.copyOf(coords, Math.max(8, coords.length * 2));
+        }
+        coords[2 * taille] = x;
+        coords[2 * taille + 1] = y;
+        taille++;
+    }
+
+    /**
+     * Translate tous les sommets sur place, sans allocation si le tableau n'est pas partagé.
+     *
+     * @param dx Déplacement en x.
+     * @param dy Déplacement en y.
+     */
+    void translater(double dx, double dy) {
+        AtomicInteger anciens = proprietaires;
+        if (coords == null) {
+            int b = bloc;
+            int d = debut;
+            int c = capacite;
+            zoneModifiable();
+            double[] m = morceau();
+            for (int base = 0; base < 2 * taille; base += m.length) {
+                int l = Math.min(m.length, 2 * taille - base);
+                arene.lire(b, d + base, m, 0, l);
+                Noyaux.ACTIFS.translater(m, m, l, dx, dy);
+                arene.ecrire(bloc, debut + base, m, 0, l);
+            }
+            quitter(anciens, b, d, c);
+            return;
+        }
+        double[] source = coords;
+        Noyaux.ACTIFS.translater(source, tableauModifiable(), 2 * taille, dx, dy);
+        quitter(anciens);
+    }
+
+    /**
+     * Met à l'échelle tous les sommets sur place autour du point (cx, cy), puis les
+     * translate de (dx, dy). Les deux opérations sont fusionnées en un seul parcours
+     * du tableau.
+     *
+     * @param cx Coordonnée x du centre de la mise à l'échelle.
+     * @param cy Coordonnée y du centre de la mise à l'échelle.
+     * @param fx Facteur d'échelle sur l'axe X.
+     * @param fy Facteur d'échelle sur l'axe Y.
+     * @param dx Déplacement en x appliqué après la mise à l'échelle.
+     * @param dy Déplacement en y appliqué après la mise à l'échelle.
+     */
+    void transformer(double cx, double cy, double fx, double fy, double dx, double dy) {
+        AtomicInteger anciens = proprietaires;
+        if (coords == null) {
+            int b = bloc;
+            int d = debut;
+            int c = capacite;
+            zoneModifiable();
+            double[] m = morceau();
+            for (int base = 0; base < 2 * taille; base += m.length) {
+                int l = Math.min(m.length, 2 * taille - base);
+                arene.lire(b, d + base, m, 0, l);
+                Noyaux.ACTIFS.transformer(m, m, l, cx, cy, fx, fy, dx, dy);
+                arene.ecrire(bloc, debut + base, m, 0, l);
+            }
+            quitter(anciens, b, d, c);
+            return;
+        }
+        double[] source = coords;
+        Noyaux.ACTIFS.transformer(source, tableauModifiable(), 2 * taille, cx, cy, fx, fy, dx, dy);
+        quitter(anciens);
+    }
+
+    /**
+     * Retire les sommets de moindre importance ({@link Simplification}), en gardant l'ordre
+     * des autres.
+     *
+     * @param aireMin Aire effective en dessous de laquelle un sommet est retiré.
+     * @param ferme   true si les sommets forment un contour fermé.
+     * @return Le nombre de sommets retirés.
+     */
+    int simplifier(double aireMin, boolean ferme) {
+        // hors du tas, la simplification travaille sur une copie temporaire dans le tas
+        double[] lus = coords != null ? coords : versTableau();
+        boolean[] gardes = Simplification.sommetsGardes(lus, taille, ferme, aireMin);
+        int premierRetire = 0;
+        while (premierRetire < taille && gardes[premierRetire]) {
+            premierRetire++;
+        }
+        // rien à retirer : les sommets partagés ne sont pas copiés
+        if (premierRetire == taille) {
+            return 0;
+        }
+        int n = 0;
+        AtomicInteger anciens = proprietaires;
+        if (coords == null) {
+            // les sommets gardés sont tassés dans la copie, puis écrits d'un bloc
+            for (int i = 0; i < taille; i++) {
+                if (gardes[i]) {
+                    lus[2 * n] = lus[2 * i];
+                    lus[2 * n + 1] = lus[2 * i + 1];
+                    n++;
+                }
+            }
+            int b = bloc;
+            int d = debut;
+            int c = capacite;
+            zoneModifiable();
+            arene.ecrire(bloc, debut, lus, 0, 2 * n);
+            quitter(anciens, b, d, c);
+        } else {
+            double[] source = coords;
+            double[] cible = tableauModifiable();
+            for (int i = 0; i < taille; i++) {
+                if (gardes[i]) {
+                    cible[2 * n] = source[2 * i];
+                    cible[2 * n + 1] = source[2 * i + 1];
+                    n++;
+                }
+            }
+            quitter(anciens);
+        }
+        int retires = taille - n;
+        taille = n;
+        return retires;
+    }
+
+    /**
+     * Marque les sommets que {@link #simplifier(double, boolean)} garderait, sans modifier
+     * ni partager le stockage : des simplifications peuvent être calculées depuis plusieurs
+     * threads sur des sommets qui ne sont pas modifiés.
+     *
+     * @param aireMin Aire effective en dessous de laquelle un sommet est retiré.
+     * @param ferme   true si les sommets forment un contour fermé.
+     * @return Pour chaque sommet, true s'il est gardé.
+     */
+    boolean[] sommetsGardes(double aireMin, boolean ferme) {
+        double[] lus = coords != null ? coords : versTableau();
+        return Simplification.sommetsGardes(lus, taille, ferme, aireMin);
+    }
+
+    /**
+     * Retourne le tableau dans lequel écrire les nouvelles coordonnées : le tableau courant
+     * s'il n'est pas partagé, sinon un nouveau tableau, que l'appelant remplit entièrement
+     * en lisant l'ancien. Une seule passe suffit ainsi pour copier et modifier.
+     */
+    private double[] tableauModifiable() {
+        if (partage()) {
+            coords = new double[2 * taille];
+            proprietaires = new AtomicInteger(1);
+        }
+        return coords;
+    }
+
+    /**
+     * Équivalent hors du tas de {@link #tableauModifiable()} : si la zone est partagée, une
+     * nouvelle zone est allouée dans l'arène et devient la zone courante, dans laquelle
+     * écrire.
+     */
+    private void zoneModifiable() {
+        if (partage()) {
+            allouer(2 * taille);
+            proprietaires = new AtomicInteger(1);
+        }
+    }
+
+    /**
+     * @return true si le tableau ou la zone courant est aussi référencé par une autre instance.
+     */
+    private boolean partage() {
+        return proprietaires.get() > 1;
+    }
+
+    /**
+     * Quitte un tableau ou une zone partagé, une fois ses coordonnées lues, si cette instance
+     * en a changé : les instances qui le référencent encore pourront de nouveau le modifier
+     * sur place quand il n'en restera qu'une.
+     *
+     * @param anciens Compteur des instances qui référençaient le tableau avant la modification.
+     */
+    private void quitter(AtomicInteger anciens) {
+        if (anciens != proprietaires) {
+            anciens.decrementAndGet();
+        }
+    }
+
+    /**
+     * Équivalent hors du tas de {@link #quitter(AtomicInteger)} : la zone quittée est rendue
+     * à l'arène si plus aucune instance ne la référence, en particulier quand cette instance
+     * en était seule propriétaire et l'a remplacée par une zone plus grande.
+     *
+     * @param anciens  Compteur des instances qui référençaient la zone avant la modification.
+     * @param bloc     Segment de la zone quittée.
+     * @param debut    Position de la zone quittée dans le segment.
+     * @param capacite Taille de la zone quittée, en doubles.
+     */
+    private void quitter(AtomicInteger anciens, int bloc, int debut, int capacite) {
+        if (anciens != proprietaires && anciens.decrementAndGet() == 0) {
+            arene.liberer(bloc, debut, capacite);
+        }
+    }
+
+    /**
+     * Alloue une nouvelle zone hors du tas et en fait la zone courante.
+     */
+    private void allouer(int doubles) {
+        long zone = arene.allouer(doubles);
+        bloc = (int) (zone >>> 32);
+        debut = (int) zone;
+        capacite = doubles;
+    }
+
+    /**
+     * @return Une copie dans le tas des coordonnées rangées hors du tas.
+     */
+    private double[] versTableau() {
+        double[] tableau = new double[2 * taille];
+        arene.lire(bloc, debut, tableau, 0, tableau.length);
+        return tableau;
+    }
+
+    /**
+     * Calcule le barycentre des sommets en un seul parcours, avec quatre sommes partielles
+     * par coordonnée.
+     *
+     * @return Le barycentre des sommets.
+     */
+    Point barycentre() {
+        double[] sommes = new double[8];
+        if (coords == null) {
+            sommerHorsTas(sommes);
+        } else {
+            Noyaux.ACTIFS.sommer(coords, 2 * taille, sommes);
+        }
+        return new Point(((sommes[0] + sommes[2]) + (sommes[4] + sommes[6])) / taille,
+                ((sommes[1] + sommes[3]) + (sommes[5] + sommes[7])) / taille);
+    }
+
+    /**
+     * Calcule, en un seul parcours, la moyenne entière des coordonnées tronquées à l'entier,
+     * telle que {@link Ligne} la calcule pour son centre. Les sommes sont faites en int
+     * (dépassements compris) : l'addition entière étant associative, le résultat est celui
+     * d'une seule somme.
+     *
+     * @return Le point des moyennes entières des coordonnées tronquées.
+     */
+    Point barycentreTronque() {
+        int[] sommes = new int[2];
+        if (coords == null) {
+            sommerTronqueHorsTas(sommes);
+        } else {
+            Noyaux.ACTIFS.sommerTronque(coords, 2 * taille, sommes);
+        }
+        return new Point(sommes[0] / taille, sommes[1] / taille);
+    }
+
+    /**
+     * Calcule la boîte englobante des sommets en un seul parcours.
+     *
+     * @return La boîte englobante, ou une boîte vide en (0, 0) s'il n'y a aucun sommet.
+     */
+    Boite boite() {
+        if (taille == 0) {
+            return new Boite(0, 0, 0, 0);
+        }
+        double[] bornes = {x(0), y(0), x(0), y(0)};
+        if (coords == null) {
+            bornerHorsTas(bornes);
+        } else {
+            Noyaux.ACTIFS.borner(coords, 2 * taille, bornes);
+        }
+        return new Boite(bornes[0], bornes[1], bornes[2], bornes[3]);
+    }
+
+    /**
+     * Crée une copie du stockage en O(1), qui partage le tableau de l'original jusqu'à la
+     * première modification de l'un des deux. Seul le compteur partagé est incrémenté, de
+     * façon atomique : des copies peuvent être créées depuis plusieurs threads. Tant que la
+     * copie existe sans être modifiée, la modification suivante de l'original recopie ses
+     * sommets.
+     *
+     * @return Un nouveau {@link Sommets} contenant les mêmes coordonnées.
+     */
+    Sommets copie() {
+        proprietaires.incrementAndGet();
+        if (coords == null) {
+            return new Sommets(arene, bloc, debut, capacite, taille, proprietaires);
+        }
+        return new Sommets(coords, taille, proprietaires);
+    }
+
+    /*
+     * Parcours hors du tas : les coordonnées sont recopiées par morceaux dans un petit
+     * tableau, parcouru comme le tableau des sommets dans le tas. Les morceaux ont une
+     * longueur multiple de 8 : les additions du barycentre se font dans le même ordre, et
+     * donnent exactement le même résultat.
+     */
+
+    private double[] morceau() {
+        return new double[Math.min(DOUBLES_PAR_MORCEAU, 2 * taille)];
+    }
+
+    private void sommerHorsTas(double[] sommes) {
+        double[] m = morceau();
+        for (int base = 0; base < 2 * taille; base += m.length) {
+            int l = Math.min(m.length, 2 * taille - base);
+            arene.lire(bloc, debut + base, m, 0, l);
+            // seul le dernier morceau peut avoir une fin qui n'est pas multiple de 8
+            Noyaux.ACTIFS.sommer(m, l, sommes);
+        }
+    }
+
+    private void sommerTronqueHorsTas(int[] sommes) {
+        double[] m = morceau();
+        for (int base = 0; base < 2 * taille; base += m.length) {
+            int l = Math.min(m.length, 2 * taille - base);
+            arene.lire(bloc, debut + base, m, 0, l);
+            Noyaux.ACTIFS.sommerTronque(m, l, sommes);
+        }
+    }
+
+    private void bornerHorsTas(double[] bornes) {
+        double[] m = morceau();
+        for (int base = 0; base < 2 * taille; base += m.length) {
+            int l = Math.min(m.length, 2 * taille - base);
+            arene.lire(bloc, debut + base, m, 0, l);
+            Noyaux.ACTIFS.borner(m, l, bornes);
+        }
+    }
+
+    /**
+     * @return Une vue en lecture seule des sommets.
+     */
+    VueSommets vue() {
+        return new VueSommets(this);
+    }
+}
@@ -1,10 +1,9 @@
 package fr.univrennes.istic.l2gen.geometrie;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 
-public class Triangle implements IForme {
-    private final List<Point> sommets = new ArrayList<>();
+public class Triangle extends Forme {
+    private final Sommets sommets;
 
     /**
      * Construit un triangle à partir des coordonnées x et y de ses trois sommets.
@@ -24,9 +23,7 @@ public class Triangle implements IForme {
             double sommet3x,
             double sommet3y
     ) {
-        this.sommets.add(new Point(sommet1x, sommet1y));
-        this.sommets.add(new Point(sommet2x, sommet2y));
-        this.sommets.add(new Point(sommet3x, sommet3y));
+        this.sommets = new Sommets(sommet1x, sommet1y, sommet2x, sommet2y, sommet3x, sommet3y);
     }
 
     /**
@@ -37,9 +34,20 @@ public class Triangle implements IForme {
      * @param point3 Troisième sommet du triangle.
      */
     public Triangle(Point point1, Point point2, Point point3) {
-        this.sommets.add(point1);
-        this.sommets.add(point2);
-        this.sommets.add(point3);
+        this(point1.x(), point1.y(), point2.x(), point2.y(), point3.x(), point3.y());
+    }
+
+    Triangle(Sommets sommets) {
+        this.sommets = sommets;
+    }
+
+    /**
+     * Retourne une vue en lecture seule des trois sommets du triangle.
+     *
+     * @return Les sommets du triangle, dans l'ordre de construction.
+     */
+    public VueSommets sommets() {
+        return sommets.vue();
     }
 
 
@@ -53,20 +61,12 @@ public class Triangle implements IForme {
      * @throws IllegalStateException Si le triangle ne contient pas exactement trois sommets.
      */
     @Override
-    public Point centre() {
-        if (sommets.size() != 3) {
+    Point calculerCentre() {
+        if (sommets.taille() != 3) {
             throw new IllegalStateException("Un triangle doit avoir exactement trois sommets.");
         }
 
-        double sumx = 0;
-        double sumy = 0;
-
-        for (Point point : sommets) {
-            sumx += point.x();
-            sumy += point.y();
-        }
-
-        return new Point(sumx / 3, sumy / 3);
+        return sommets.barycentre();
     }
 
 
@@ -81,10 +81,8 @@ public class Triangle implements IForme {
      */
     @Override
     public void deplacer(double x, double y) {
-        for (int i = 0; i < sommets.size(); i++) {
-            Point p = sommets.get(i);
-            sommets.set(i, new Point(p.x() + x, p.y() + y));
-        }
+        sommets.translater(x, y);
+        invalider();
     }
 
     /**
@@ -99,52 +97,71 @@ public class Triangle implements IForme {
      */
     @Override
     public String description(int indentation) {
+        return description(indentation, 0, 0);
+    }
+
+    /**
+     * Génère la description du triangle déplacé de (dx, dy), sans copie ni modification.
+     */
+    @Override
+    String description(int indentation, double dx, double dy) {
         StringBuilder sb = new StringBuilder();
         String indent = "  ".repeat(indentation);
 
         sb.append(indent).append("Triangle ");
 
-        for (Point p : sommets) {
-            sb.append((int) p.x()).append(",").append((int) p.y()).append(" ");
+        for (int i = 0; i < sommets.taille(); i++) {
+            sb.append((int) (sommets.x(i) + dx)).append(",").append((int) (sommets.y(i) + dy)).append(" ");
         }
 
         return sb.toString();
     }
 
     /**
-     * Génère une représentation SVG du triangle.
+     * Écrit une représentation SVG du triangle dans une sortie.
      * </br>
-     * La méthode construit une balise `<polygon>` contenant les coordonnées des sommets
+     * La méthode écrit une balise `<polygon>` contenant les coordonnées des sommets
      * du triangle, permettant ainsi de l'afficher dans un document SVG.
      *
-     * @return Une chaîne de caractères représentant le triangle sous forme de balise SVG.
-     *         Exemple de sortie :
-     *         {@code <polygon points="x1,y1 x2,y2 x3,y3" fill="white" stroke="black" />}
+     * Exemple de sortie :
+     * {@code <polygon points="x1,y1 x2,y2 x3,y3" fill="white" stroke="black" />}
+     *
+     * @param sortie La sortie dans laquelle écrire la balise SVG.
+     * @throws IOException Si l'écriture dans la sortie échoue.
      */
     @Override
-    public String enSVG() {
-        StringBuilder s = new StringBuilder();
-        for (Point point : sommets) {
-            s.append(point.x()).append(",").append(point.y()).append(" ");
+    public void enSVG(Appendable sortie) throws IOException {
+        sortie.append("<polygon points = \" ");
+        for (int i = 0; i < sommets.taille(); i++) {
+            sortie.append(Double.toString(sommets.x(i)));
+            sortie.append(',');
+            sortie.append(Double.toString(sommets.y(i)));
+            sortie.append(' ');
         }
-        return String.format( "<polygon points = \" %s \"\n fill = \" white \" stroke = \" black \"  />", s);
+        sortie.append(" \"\n fill = \" white \" stroke = \" black \"  />");
     }
 
     /**
-     * Crée une copie indépendante (deep copy) du triangle.
+     * Crée une copie indépendante du triangle.
      * </br>
-     * Cette méthode duplique le triangle en créant de nouveaux objets {@link Point}
-     * pour chaque sommet, pour ne pas referencer les objets composant le triangle d'origine.
+     * La copie partage le stockage des sommets du triangle d'origine jusqu'à ce que l'un
+     * des deux soit modifié : les coordonnées ne sont copiées qu'à ce moment.
      *
      * @return Une nouvelle instance de {@link Triangle}.
      */
     @Override
     public IForme dupliquer() {
-        List<Point> pointsCopy = new ArrayList<>();
-        for (Point point : sommets) {
-            pointsCopy.add(new Point(point.x(), point.y()));
-        }
-        return new Triangle(pointsCopy.get(0), pointsCopy.get(1), pointsCopy.get(2));
+        return new Triangle(sommets.copie());
+    }
+
+    /**
+     * Calcule la boîte englobante des trois sommets du triangle.
+     *
+     * @return La boîte englobante du triangle.
+     */
+    @Override
+    Boite calculerBoite() {
+        return sommets.boite();
     }
 
     /**
@@ -156,25 +173,11 @@ public class Triangle implements IForme {
      */
     @Override
     public double hauteur() {
-        if (sommets.size() != 3) {
+        if (sommets.taille() != 3) {
             throw new IllegalStateException("Un triangle doit avoir exactement trois sommets.");
         }
 
-        // initialiser min et max a des valeurs impossibles pour comparaison apres.
-        double minY = Double.MAX_VALUE;
-        double maxY = Double.MIN_VALUE;
-
-        for (Point point : sommets) {
-            double y = point.y();
-            if (y < minY) {
-                minY = y;
-            }
-            if (y > maxY) {
-                maxY = y;
-            }
-        }
-
-        return maxY - minY;
+        return boite().hauteur();
     }
 
     /**
@@ -186,25 +189,11 @@ public class Triangle implements IForme {
      */
     @Override
     public double largeur() {
-        if (sommets.size() != 3) {
+        if (sommets.taille() != 3) {
             throw new IllegalStateException("Un triangle doit avoir exactement trois sommets.");
         }
 
-        // initialiser min et max a des valeurs impossibles pour comparaison apres.
-        double minX = Double.MAX_VALUE;
-        double maxX = Double.MIN_VALUE;
-
-        for (Point point : sommets) {
-            double x = point.x();
-            if (x < minX) {
-                minX = x;
-            }
-            if (x > maxX) {
-                maxX = x;
-            }
-        }
-
-        return maxX - minX;
+        return boite().largeur();
     }
 
     /**
@@ -215,17 +204,23 @@ public class Triangle implements IForme {
      */
     @Override
     public void redimensionner(double largeur, double hauteur) {
-        Point centre = centre();
-
-        for (int i = 0; i < sommets.size(); i++) {
-            Point p = sommets.get(i);
-
-            // Appliquer l'échelle autour du centre
-            double newX = centre.x() + (p.x() - centre.x()) * largeur;
-            double newY = centre.y() + (p.y() - centre.y()) * hauteur;
+        redimensionnerEtDeplacer(largeur, hauteur, 0, 0);
+    }
 
-            sommets.set(i, new Point(newX, newY));
-        }
+    /**
+     * Redimensionne le triangle par rapport à son centre puis le déplace, en un seul parcours
+     * des sommets et sans allocation par sommet.
+     *
+     * @param largeur  Facteur d'échelle sur l'axe X.
+     * @param hauteur  Facteur d'échelle sur l'axe Y.
+     * @param x        Déplacement en X appliqué après le redimensionnement.
+     * @param y        Déplacement en Y appliqué après le redimensionnement.
+     */
+    @Override
+    public void redimensionnerEtDeplacer(double largeur, double hauteur, double x, double y) {
+        Point centre = centre();
+        sommets.transformer(centre.x(), centre.y(), largeur, hauteur, x, y);
+        invalider();
     }
 
 
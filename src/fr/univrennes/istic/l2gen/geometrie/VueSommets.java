@@ -0,0 +1,70 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Vue en lecture seule sur les sommets d'une forme ({@link Polygone}, {@link Ligne},
+ * {@link Triangle}).
+ * </br>
+ * La vue ne copie rien : elle lit directement le stockage compact de la forme,
+ * et reflète donc ses modifications ultérieures. Les méthodes {@link #x(int)} et
+ * {@link #y(int)} permettent de parcourir les coordonnées sans créer de {@link Point}.
+ */
+public final class VueSommets extends AbstractList<Point> implements RandomAccess {
+    private final Sommets sommets;
+
+    VueSommets(Sommets sommets) {
+        this.sommets = sommets;
+    }
+
+    /**
+     * Retourne le sommet d'indice i sous forme d'un nouveau {@link Point}.
+     *
+     * @param i Indice du sommet.
+     * @return Le sommet d'indice i.
+     * @throws IndexOutOfBoundsException Si l'indice est hors de la vue.
+     */
+    @Override
+    public Point get(int i) {
+        return new Point(x(i), y(i));
+    }
+
+    /**
+     * @return Le nombre de sommets de la forme.
+     */
+    @Override
+    public int size() {
+        return sommets.taille();
+    }
+
+    /**
+     * Retourne la coordonnée x du sommet d'indice i, sans allocation.
+     *
+     * @param i Indice du sommet.
+     * @return La coordonnée x.
+     * @throws IndexOutOfBoundsException Si l'indice est hors de la vue.
+     */
+    public double x(int i) {
+        verifierIndice(i);
+        return sommets.x(i);
+    }
+
+    /**
+     * Retourne la coordonnée y du sommet d'indice i, sans allocation.
+     *
+     * @param i Indice du sommet.
+     * @return La coordonnée y.
+     * @throws IndexOutOfBoundsException Si l'indice est hors de la vue.
+     */
+    public double y(int i) {
+        verifierIndice(i);
+        return sommets.y(i);
+    }
+
+    private void verifierIndice(int i) {
+        if (i < 0 || i >= sommets.taille()) {
+            throw new IndexOutOfBoundsException("Sommet " + i + " inexistant (" + sommets.taille() + " sommets).");
+        }
+    }
+}
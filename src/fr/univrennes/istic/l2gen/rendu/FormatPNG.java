@@ -0,0 +1,166 @@
+package fr.univrennes.istic.l2gen.rendu;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Écriture d'une {@link Image} au format PNG, avec la seule bibliothèque standard
+ * ({@link Deflater} et {@link CRC32}).
+ * </br>
+ * L'image est écrite en RGBA sur 8 bits par composante. Chaque ligne est filtrée par
+ * différence avec le pixel de gauche (filtre « Sub »), ce qui réduit les aplats de couleur
+ * à des suites de zéros que la compression réduit fortement. Les données compressées sont
+ * découpées en blocs IDAT au fil de l'écriture : l'image n'est jamais recopiée en entier.
+ */
+public final class FormatPNG {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int TAILLE_BLOC = 1 << 16;
+    private static final int FILTRE_SUB = 1;
+
+    private FormatPNG() {
+    }
+
+    /**
+     * Enregistre une image dans un fichier PNG.
+     *
+     * @param image   L'image à enregistrer.
+     * @param fichier Le fichier à créer ou à remplacer.
+     * @throws IOException Si l'écriture du fichier échoue.
+     */
+    public static void ecrire(Image image, Path fichier) throws IOException {
+        try (OutputStream sortie = new BufferedOutputStream(Files.newOutputStream(fichier), TAILLE_BLOC)) {
+            ecrire(image, sortie);
+        }
+    }
+
+    /**
+     * Écrit une image au format PNG dans un flux, sans le fermer.
+     *
+     * @param image  L'image à écrire.
+     * @param sortie Le flux dans lequel écrire.
+     * @throws IOException Si l'écriture dans le flux échoue.
+     */
+    public static void ecrire(Image image, OutputStream sortie) throws IOException {
+        DataOutputStream donnees = new DataOutputStream(sortie);
+        donnees.write(SIGNATURE);
+
+        Bloc entete = new Bloc("IHDR", donnees);
+        entete.ecrireEntier(image.largeur());
+        entete.ecrireEntier(image.hauteur());
+        // 8 bits par composante, RGBA, compression et filtrage standard, non entrelacé
+        entete.write(new byte[] {8, 6, 0, 0, 0});
+        entete.terminer();
+
+        Deflater compression = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            BlocsIDAT blocs = new BlocsIDAT(donnees);
+            DeflaterOutputStream compresse = new DeflaterOutputStream(blocs, compression, TAILLE_BLOC);
+            int largeur = image.largeur();
+            byte[] ligne = new byte[1 + 4 * largeur];
+            ligne[0] = FILTRE_SUB;
+            for (int y = 0; y < image.hauteur(); y++) {
+                int precedent = 0;
+                for (int x = 0; x < largeur; x++) {
+                    int pixel = image.pixels[y * largeur + x];
+                    int p = 1 + 4 * x;
+                    ligne[p] = (byte) ((pixel >>> 16) - (precedent >>> 16));
+                    ligne[p + 1] = (byte) ((pixel >>> 8) - (precedent >>> 8));
+                    ligne[p + 2] = (byte) (pixel - precedent);
+                    ligne[p + 3] = (byte) ((pixel >>> 24) - (precedent >>> 24));
+                    precedent = pixel;
+                }
+                compresse.write(ligne);
+            }
+            compresse.finish();
+            blocs.vider();
+        } finally {
+            compression.end();
+        }
+
+        new Bloc("IEND", donnees).terminer();
+        donnees.flush();
+    }
+
+    /**
+     * Bloc PNG en cours d'écriture : son contenu est gardé pour en écrire la longueur, puis
+     * le contenu, puis le CRC du type et du contenu.
+     */
+    private static final class Bloc extends ByteArrayOutputStream {
+        private final byte[] type;
+        private final DataOutputStream sortie;
+
+        Bloc(String type, DataOutputStream sortie) {
+            this.type = type.getBytes(StandardCharsets.US_ASCII);
+            this.sortie = sortie;
+        }
+
+        void ecrireEntier(int valeur) {
+            write(valeur >>> 24);
+            write(valeur >>> 16);
+            write(valeur >>> 8);
+            write(valeur);
+        }
+
+        void terminer() throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(type);
+            crc.update(buf, 0, count);
+            sortie.writeInt(count);
+            sortie.write(type);
+            sortie.write(buf, 0, count);
+            sortie.writeInt((int) crc.getValue());
+            reset();
+        }
+    }
+
+    /**
+     * Flux qui range les données compressées dans des blocs IDAT d'au plus
+     * {@link #TAILLE_BLOC} octets.
+     */
+    private static final class BlocsIDAT extends OutputStream {
+        private final Bloc bloc;
+
+        BlocsIDAT(DataOutputStream sortie) {
+            this.bloc = new Bloc("IDAT", sortie);
+        }
+
+        @Override
+        public void write(int octet) throws IOException {
+            bloc.write(octet);
+            if (bloc.size() >= TAILLE_BLOC) {
+                bloc.terminer();
+            }
+        }
+
+        @Override
+        public void write(byte[] octets, int debut, int longueur) throws IOException {
+            while (longueur > 0) {
+                int n = Math.min(longueur, TAILLE_BLOC - bloc.size());
+                bloc.write(octets, debut, n);
+                debut += n;
+                longueur -= n;
+                if (bloc.size() >= TAILLE_BLOC) {
+                    bloc.terminer();
+                }
+            }
+        }
+
+        /**
+         * Écrit le dernier bloc, s'il n'est pas vide.
+         */
+        void vider() throws IOException {
+            if (bloc.size() > 0) {
+                bloc.terminer();
+            }
+        }
+    }
+}
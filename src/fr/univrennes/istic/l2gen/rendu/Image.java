@@ -0,0 +1,56 @@
+package fr.univrennes.istic.l2gen.rendu;
+
+/**
+ * Image en mémoire produite par {@link RenduRaster} : un tableau de pixels ARGB sur 32 bits,
+ * ligne par ligne, dont les composantes ne sont pas prémultipliées par l'opacité.
+ */
+public final class Image {
+    private final int largeur;
+    private final int hauteur;
+    final int[] pixels;
+
+    /**
+     * Crée une image entièrement transparente.
+     *
+     * @param largeur Largeur de l'image, en pixels.
+     * @param hauteur Hauteur de l'image, en pixels.
+     * @throws IllegalArgumentException Si une dimension n'est pas strictement positive.
+     */
+    public Image(int largeur, int hauteur) {
+        if (largeur <= 0 || hauteur <= 0) {
+            throw new IllegalArgumentException("Les dimensions de l'image doivent etre strictement positives.");
+        }
+        this.largeur = largeur;
+        this.hauteur = hauteur;
+        this.pixels = new int[Math.multiplyExact(largeur, hauteur)];
+    }
+
+    /**
+     * @return La largeur de l'image, en pixels.
+     */
+    public int largeur() {
+        return largeur;
+    }
+
+    /**
+     * @return La hauteur de l'image, en pixels.
+     */
+    public int hauteur() {
+        return hauteur;
+    }
+
+    /**
+     * Retourne la couleur d'un pixel.
+     *
+     * @param x Colonne du pixel.
+     * @param y Ligne du pixel.
+     * @return La couleur au format ARGB (alpha dans l'octet de poids fort).
+     * @throws IndexOutOfBoundsException Si le pixel est hors de l'image.
+     */
+    public int pixel(int x, int y) {
+        if (x < 0 || x >= largeur || y < 0 || y >= hauteur) {
+            throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") hors de l'image.");
+        }
+        return pixels[y * largeur + x];
+    }
+}
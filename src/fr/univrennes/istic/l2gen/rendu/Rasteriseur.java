@@ -0,0 +1,437 @@
+package fr.univrennes.istic.l2gen.rendu;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.Cercle;
+import fr.univrennes.istic.l2gen.geometrie.IComposite;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Ligne;
+import fr.univrennes.istic.l2gen.geometrie.Point;
+import fr.univrennes.istic.l2gen.geometrie.Polygone;
+import fr.univrennes.istic.l2gen.geometrie.Rectangle;
+import fr.univrennes.istic.l2gen.geometrie.Triangle;
+import fr.univrennes.istic.l2gen.geometrie.VueSommets;
+
+import java.util.Arrays;
+
+/**
+ * Dessin d'un arbre de formes dans une tuile rectangulaire de l'image, avec anticrénelage.
+ * </br>
+ * Chaque forme est d'abord réduite à un masque de couverture : la part de chaque pixel
+ * recouverte par la forme, entre 0 et 1. Chaque ligne de pixels est échantillonnée par
+ * {@link #SOUS_LIGNES} lignes de balayage ; sur chacune, les segments couverts sont calculés
+ * exactement, et chaque pixel reçoit la longueur de segment qui le traverse. Le masque est
+ * ensuite composé dans la tuile avec la couleur de la forme, comme le ferait un navigateur
+ * avec le SVG de {@link IForme#enSVG(Appendable)} : intérieur blanc, trait noir d'un pixel.
+ * </br>
+ * Les polygones sont remplis par balayage, avec une table des arêtes actives et la règle
+ * non nulle de SVG. Un trait est rempli comme la réunion d'un quadrilatère par segment et
+ * d'un carré par sommet (pour les jointures), tous orientés dans le même sens pour que la
+ * règle non nulle en fasse l'union. Les cercles sont remplis ligne par ligne à partir de
+ * leur équation, sans passer par des arêtes.
+ * </br>
+ * Un rasteriseur n'est utilisé que par un seul fil d'exécution.
+ */
+final class Rasteriseur {
+    /**
+     * Nombre de lignes de balayage par ligne de pixels.
+     */
+    static final int SOUS_LIGNES = 4;
+    private static final double DEMI_TRAIT = 0.5;
+    private static final int BLANC = 0xFFFFFFFF;
+    private static final int NOIR = 0xFF000000;
+
+    // tuile dans l'image, en pixels
+    private final int x0;
+    private final int y0;
+    private final int largeur;
+    private final int hauteur;
+    // composantes rouge, vert, bleu et alpha de chaque pixel, prémultipliées par alpha
+    private final float[] couleurs;
+    private final float[] couverture;
+    // zone du masque de couverture non nulle, bornes supérieures exclues
+    private int minColonne;
+    private int maxColonne;
+    private int minLigne;
+    private int maxLigne;
+
+    // arêtes du contour en cours, rangées par première ligne de balayage rencontrée
+    private int nombreAretes;
+    private double[] hauts = new double[16];
+    private double[] bas = new double[16];
+    private double[] xHauts = new double[16];
+    private double[] pentes = new double[16];
+    private int[] sens = new int[16];
+    private int[] suivantes = new int[16];
+    private final int[] premieres;
+    private int premiereLigne;
+    private int derniereLigne;
+    private int[] actives = new int[16];
+    private double[] croisements = new double[16];
+    private int[] sensCroisements = new int[16];
+
+    /**
+     * @param x0      Colonne du coin supérieur gauche de la tuile dans l'image.
+     * @param y0      Ligne du coin supérieur gauche de la tuile dans l'image.
+     * @param largeur Largeur de la tuile, en pixels.
+     * @param hauteur Hauteur de la tuile, en pixels.
+     */
+    Rasteriseur(int x0, int y0, int largeur, int hauteur) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.largeur = largeur;
+        this.hauteur = hauteur;
+        this.couleurs = new float[4 * largeur * hauteur];
+        this.couverture = new float[largeur * hauteur];
+        this.premieres = new int[hauteur * SOUS_LIGNES];
+        Arrays.fill(premieres, -1);
+        viderZone();
+    }
+
+    /**
+     * Dessine une forme et, pour un composite, toutes les formes qu'il contient, dans l'ordre.
+     * Les sous-arbres hors de la tuile ne sont pas parcourus.
+     *
+     * @param forme La forme à dessiner.
+     * @throws IllegalArgumentException Si l'arbre contient une forme que le rendu ne sait pas
+     *                                  dessiner.
+     */
+    void dessiner(IForme forme) {
+        dessiner(forme, 0, 0);
+    }
+
+    private void dessiner(IForme forme, double dx, double dy) {
+        if (forme instanceof IComposite composite && composite.nombreFormes() == 0) {
+            return;
+        }
+        Boite boite = forme.boite();
+        if (boite.maxX() + dx + DEMI_TRAIT < x0 || boite.minX() + dx - DEMI_TRAIT > x0 + largeur
+                || boite.maxY() + dy + DEMI_TRAIT < y0 || boite.minY() + dy - DEMI_TRAIT > y0 + hauteur) {
+            return;
+        }
+        if (forme instanceof IComposite composite) {
+            // les formes d'un composite sont dans son repère, avant sa translation
+            double fx = dx + composite.translationX();
+            double fy = dy + composite.translationY();
+            for (int i = 0; i < composite.nombreFormes(); i++) {
+                dessiner(composite.forme(i), fx, fy);
+            }
+        } else if (forme instanceof Cercle cercle) {
+            Point centre = cercle.centre();
+            double rayon = cercle.largeur() / 2;
+            disque(centre.x() + dx, centre.y() + dy, 0, rayon);
+            composer(BLANC);
+            disque(centre.x() + dx, centre.y() + dy, rayon - DEMI_TRAIT, rayon + DEMI_TRAIT);
+            composer(NOIR);
+        } else if (forme instanceof Rectangle) {
+            double[] coins = {
+                boite.minX(), boite.minY(), boite.maxX(), boite.minY(),
+                boite.maxX(), boite.maxY(), boite.minX(), boite.maxY()
+            };
+            polygone(coins, 4, dx, dy);
+        } else if (forme instanceof Polygone polygone) {
+            polygone(polygone.sommets(), dx, dy);
+        } else if (forme instanceof Triangle triangle) {
+            polygone(triangle.sommets(), dx, dy);
+        } else if (forme instanceof Ligne ligne) {
+            double[] coords = coordonnees(ligne.sommets());
+            trait(coords, coords.length / 2, false, dx, dy);
+        } else {
+            throw new IllegalArgumentException("Forme non prise en charge par le rendu : " + forme.getClass().getName());
+        }
+    }
+
+    private void polygone(VueSommets sommets, double dx, double dy) {
+        double[] coords = coordonnees(sommets);
+        polygone(coords, coords.length / 2, dx, dy);
+    }
+
+    private void polygone(double[] coords, int n, double dx, double dy) {
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 < n ? i + 1 : 0;
+            arete(coords[2 * i] + dx, coords[2 * i + 1] + dy, coords[2 * j] + dx, coords[2 * j + 1] + dy);
+        }
+        remplir();
+        composer(BLANC);
+        trait(coords, n, true, dx, dy);
+    }
+
+    private static double[] coordonnees(VueSommets sommets) {
+        double[] coords = new double[2 * sommets.size()];
+        for (int i = 0; i < sommets.size(); i++) {
+            coords[2 * i] = sommets.x(i);
+            coords[2 * i + 1] = sommets.y(i);
+        }
+        return coords;
+    }
+
+    /**
+     * Dessine en noir le trait d'un pixel reliant des sommets.
+     */
+    private void trait(double[] coords, int n, boolean ferme, double dx, double dy) {
+        int segments = ferme ? n : n - 1;
+        for (int i = 0; i < segments; i++) {
+            int j = i + 1 < n ? i + 1 : 0;
+            double xa = coords[2 * i] + dx;
+            double ya = coords[2 * i + 1] + dy;
+            double xb = coords[2 * j] + dx;
+            double yb = coords[2 * j + 1] + dy;
+            double longueur = Math.hypot(xb - xa, yb - ya);
+            if (longueur == 0) {
+                continue;
+            }
+            // normale de longueur DEMI_TRAIT, toujours du même côté du segment
+            double nx = -(yb - ya) / longueur * DEMI_TRAIT;
+            double ny = (xb - xa) / longueur * DEMI_TRAIT;
+            quadrilatere(xa + nx, ya + ny, xb + nx, yb + ny, xb - nx, yb - ny, xa - nx, ya - ny);
+        }
+        for (int i = 0; i < n; i++) {
+            double x = coords[2 * i] + dx;
+            double y = coords[2 * i + 1] + dy;
+            // même sens de parcours que les quadrilatères
+            quadrilatere(x - DEMI_TRAIT, y - DEMI_TRAIT, x - DEMI_TRAIT, y + DEMI_TRAIT,
+                    x + DEMI_TRAIT, y + DEMI_TRAIT, x + DEMI_TRAIT, y - DEMI_TRAIT);
+        }
+        remplir();
+        composer(NOIR);
+    }
+
+    private void quadrilatere(double xa, double ya, double xb, double yb,
+                              double xc, double yc, double xd, double yd) {
+        arete(xa, ya, xb, yb);
+        arete(xb, yb, xc, yc);
+        arete(xc, yc, xd, yd);
+        arete(xd, yd, xa, ya);
+    }
+
+    /**
+     * Ajoute une arête au contour en cours. Les arêtes horizontales, hors des lignes de la
+     * tuile ou entièrement à sa droite ne changent pas la couverture de la tuile et sont
+     * ignorées ; celles à sa gauche comptent pour la règle non nulle.
+     */
+    private void arete(double xa, double ya, double xb, double yb) {
+        int s = 1;
+        if (ya > yb) {
+            double t = xa;
+            xa = xb;
+            xb = t;
+            t = ya;
+            ya = yb;
+            yb = t;
+            s = -1;
+        }
+        if (!(ya < yb) || yb <= y0 || ya >= y0 + hauteur || Math.min(xa, xb) >= x0 + largeur) {
+            return;
+        }
+        // première ligne de balayage, au milieu d'une sous-ligne, à partir de ya
+        int k = (int) Math.max(0, Math.ceil((ya - y0) * SOUS_LIGNES - 0.5));
+        if (k >= premieres.length || y0 + (k + 0.5) / SOUS_LIGNES >= yb) {
+            return;
+        }
+        if (nombreAretes == hauts.length) {
+            int capacite = 2 * nombreAretes;
+            hauts = Arrays.copyOf(hauts, capacite);
+            bas = Arrays.copyOf(bas, capacite);
+            xHauts = Arrays.copyOf(xHauts, capacite);
+            pentes = Arrays.copyOf(pentes, capacite);
+            sens = Arrays.copyOf(sens, capacite);
+            suivantes = Arrays.copyOf(suivantes, capacite);
+        }
+        int e = nombreAretes++;
+        hauts[e] = ya;
+        bas[e] = yb;
+        xHauts[e] = xa;
+        pentes[e] = (xb - xa) / (yb - ya);
+        sens[e] = s;
+        suivantes[e] = premieres[k];
+        premieres[k] = e;
+        if (nombreAretes == 1) {
+            premiereLigne = k;
+            derniereLigne = k;
+        } else {
+            premiereLigne = Math.min(premiereLigne, k);
+            derniereLigne = Math.max(derniereLigne, k);
+        }
+    }
+
+    /**
+     * Remplit le contour en cours dans le masque de couverture, par balayage, puis oublie
+     * ses arêtes.
+     */
+    private void remplir() {
+        if (nombreAretes == 0) {
+            return;
+        }
+        int nombreActives = 0;
+        for (int k = premiereLigne; k < premieres.length && (nombreActives > 0 || k <= derniereLigne); k++) {
+            for (int e = premieres[k]; e >= 0; e = suivantes[e]) {
+                if (nombreActives == actives.length) {
+                    actives = Arrays.copyOf(actives, 2 * nombreActives);
+                    croisements = Arrays.copyOf(croisements, 2 * nombreActives);
+                    sensCroisements = Arrays.copyOf(sensCroisements, 2 * nombreActives);
+                }
+                actives[nombreActives++] = e;
+            }
+            premieres[k] = -1;
+
+            double y = y0 + (k + 0.5) / SOUS_LIGNES;
+            int n = 0;
+            for (int a = 0; a < nombreActives; a++) {
+                int e = actives[a];
+                if (bas[e] <= y) {
+                    continue;
+                }
+                actives[n] = e;
+                // tri par insertion : l'ordre des croisements change peu d'une ligne à l'autre
+                double x = xHauts[e] + (y - hauts[e]) * pentes[e];
+                int j = n;
+                while (j > 0 && croisements[j - 1] > x) {
+                    croisements[j] = croisements[j - 1];
+                    sensCroisements[j] = sensCroisements[j - 1];
+                    j--;
+                }
+                croisements[j] = x;
+                sensCroisements[j] = sens[e];
+                n++;
+            }
+            nombreActives = n;
+
+            int ligne = k / SOUS_LIGNES;
+            int enroulement = 0;
+            double debut = 0;
+            for (int j = 0; j < n; j++) {
+                int avant = enroulement;
+                enroulement += sensCroisements[j];
+                if (avant == 0 && enroulement != 0) {
+                    debut = croisements[j];
+                } else if (avant != 0 && enroulement == 0) {
+                    couvrir(ligne, debut, croisements[j]);
+                }
+            }
+            // les arêtes à droite de la tuile ont été ignorées
+            if (enroulement != 0) {
+                couvrir(ligne, debut, Double.POSITIVE_INFINITY);
+            }
+        }
+        nombreAretes = 0;
+    }
+
+    /**
+     * Remplit dans le masque de couverture l'anneau compris entre deux cercles de même
+     * centre ; un rayon intérieur nul ou négatif donne le disque entier.
+     */
+    private void disque(double cx, double cy, double rayonInterieur, double rayonExterieur) {
+        int debut = (int) Math.max(0, Math.floor((cy - rayonExterieur - y0) * SOUS_LIGNES));
+        int fin = (int) Math.min(premieres.length, Math.ceil((cy + rayonExterieur - y0) * SOUS_LIGNES));
+        double exterieur2 = rayonExterieur * rayonExterieur;
+        double interieur2 = rayonInterieur > 0 ? rayonInterieur * rayonInterieur : 0;
+        for (int k = debut; k < fin; k++) {
+            double dy = y0 + (k + 0.5) / SOUS_LIGNES - cy;
+            double dy2 = dy * dy;
+            if (dy2 >= exterieur2) {
+                continue;
+            }
+            int ligne = k / SOUS_LIGNES;
+            double e = Math.sqrt(exterieur2 - dy2);
+            if (dy2 < interieur2) {
+                double i = Math.sqrt(interieur2 - dy2);
+                couvrir(ligne, cx - e, cx - i);
+                couvrir(ligne, cx + i, cx + e);
+            } else {
+                couvrir(ligne, cx - e, cx + e);
+            }
+        }
+    }
+
+    /**
+     * Ajoute au masque de couverture un segment d'une ligne de balayage, chaque pixel
+     * recevant la part du segment qui le traverse.
+     *
+     * @param ligne Ligne de pixels de la tuile.
+     * @param xa    Début du segment, en coordonnées de l'image.
+     * @param xb    Fin du segment, en coordonnées de l'image.
+     */
+    private void couvrir(int ligne, double xa, double xb) {
+        xa = Math.max(xa - x0, 0);
+        xb = Math.min(xb - x0, largeur);
+        if (!(xa < xb)) {
+            return;
+        }
+        final float poids = 1f / SOUS_LIGNES;
+        int ia = (int) xa;
+        int ib = (int) xb;
+        int base = ligne * largeur;
+        if (ia == ib) {
+            couverture[base + ia] += (float) (xb - xa) * poids;
+        } else {
+            couverture[base + ia] += (float) (ia + 1 - xa) * poids;
+            for (int i = ia + 1; i < ib; i++) {
+                couverture[base + i] += poids;
+            }
+            if (ib < largeur) {
+                couverture[base + ib] += (float) (xb - ib) * poids;
+            }
+        }
+        minColonne = Math.min(minColonne, ia);
+        maxColonne = Math.max(maxColonne, Math.min(ib + 1, largeur));
+        minLigne = Math.min(minLigne, ligne);
+        maxLigne = Math.max(maxLigne, ligne + 1);
+    }
+
+    /**
+     * Compose le masque de couverture dans la tuile avec une couleur opaque, par-dessus les
+     * formes déjà dessinées, puis vide le masque.
+     */
+    private void composer(int couleur) {
+        float r = ((couleur >>> 16) & 0xFF) / 255f;
+        float v = ((couleur >>> 8) & 0xFF) / 255f;
+        float b = (couleur & 0xFF) / 255f;
+        for (int ligne = minLigne; ligne < maxLigne; ligne++) {
+            for (int i = ligne * largeur + minColonne, fin = ligne * largeur + maxColonne; i < fin; i++) {
+                float c = couverture[i];
+                if (c <= 0) {
+                    continue;
+                }
+                c = Math.min(c, 1);
+                float reste = 1 - c;
+                int p = 4 * i;
+                couleurs[p] = r * c + couleurs[p] * reste;
+                couleurs[p + 1] = v * c + couleurs[p + 1] * reste;
+                couleurs[p + 2] = b * c + couleurs[p + 2] * reste;
+                couleurs[p + 3] = c + couleurs[p + 3] * reste;
+                couverture[i] = 0;
+            }
+        }
+        viderZone();
+    }
+
+    private void viderZone() {
+        minColonne = largeur;
+        maxColonne = 0;
+        minLigne = hauteur;
+        maxLigne = 0;
+    }
+
+    /**
+     * Copie la tuile dans l'image, en ARGB non prémultiplié.
+     *
+     * @param image L'image dont la tuile fait partie.
+     */
+    void copierDans(Image image) {
+        for (int ligne = 0; ligne < hauteur; ligne++) {
+            int sortie = (y0 + ligne) * image.largeur() + x0;
+            for (int colonne = 0; colonne < largeur; colonne++) {
+                int p = 4 * (ligne * largeur + colonne);
+                float alpha = couleurs[p + 3];
+                int pixel = 0;
+                if (alpha > 0) {
+                    float inverse = 255 / alpha;
+                    pixel = Math.round(alpha * 255) << 24
+                            | Math.min(255, Math.round(couleurs[p] * inverse)) << 16
+                            | Math.min(255, Math.round(couleurs[p + 1] * inverse)) << 8
+                            | Math.min(255, Math.round(couleurs[p + 2] * inverse));
+                }
+                image.pixels[sortie + colonne] = pixel;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package fr.univrennes.istic.l2gen.rendu;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rendu d'un arbre de formes en image, sans passer par le SVG ni par un rasteriseur externe.
+ * </br>
+ * L'image est découpée en tuiles carrées de {@link #COTE_TUILE} pixels, dessinées en
+ * parallèle dans un pool fork/join : chaque tuile parcourt l'arbre en écartant les
+ * sous-arbres hors de ses bornes ({@link IForme#boite()}), et dessine les autres formes
+ * dans l'ordre, avec anticrénelage ({@link Rasteriseur}). Les tuiles écrivent dans des
+ * parties distinctes de l'image : aucune synchronisation n'est nécessaire.
+ * </br>
+ * Le rendu reprend l'apparence du SVG exporté : une unité de la scène vaut un pixel, les
+ * formes sont blanches avec un trait noir d'un pixel, les lignes n'ont qu'un trait, et le
+ * fond est transparent. Les formes ne sont que lues pendant le rendu : elles ne doivent
+ * pas être modifiées pendant ce temps.
+ */
+public final class RenduRaster {
+    /**
+     * Côté d'une tuile, en pixels.
+     */
+    public static final int COTE_TUILE = 64;
+
+    private RenduRaster() {
+    }
+
+    /**
+     * Dessine une forme dans une image dimensionnée pour contenir sa boîte englobante, puis
+     * l'enregistre au format PNG, en utilisant le pool fork/join commun.
+     *
+     * @param forme   La forme à dessiner.
+     * @param fichier Le fichier PNG à créer ou à remplacer.
+     * @throws IOException Si l'écriture du fichier échoue.
+     */
+    public static void exporterPNG(IForme forme, Path fichier) throws IOException {
+        Boite boite = forme.boite();
+        Image image = rendre(forme, dimension(boite.maxX()), dimension(boite.maxY()), ForkJoinPool.commonPool());
+        FormatPNG.ecrire(image, fichier);
+    }
+
+    /**
+     * Dessine une forme dans une image de dimensions données, en utilisant le pool
+     * fork/join commun.
+     *
+     * @param forme   La forme à dessiner.
+     * @param largeur Largeur de l'image, en pixels.
+     * @param hauteur Hauteur de l'image, en pixels.
+     * @return L'image dessinée.
+     */
+    public static Image rendre(IForme forme, int largeur, int hauteur) {
+        return rendre(forme, largeur, hauteur, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Dessine une forme dans une image de dimensions données.
+     *
+     * @param forme   La forme à dessiner.
+     * @param largeur Largeur de l'image, en pixels.
+     * @param hauteur Hauteur de l'image, en pixels.
+     * @param pool    Le pool dans lequel dessiner les tuiles.
+     * @return L'image dessinée.
+     * @throws IllegalArgumentException Si l'arbre contient une forme que le rendu ne sait pas
+     *                                  dessiner.
+     */
+    public static Image rendre(IForme forme, int largeur, int hauteur, ForkJoinPool pool) {
+        Image image = new Image(largeur, hauteur);
+        int colonnes = (largeur + COTE_TUILE - 1) / COTE_TUILE;
+        int lignes = (hauteur + COTE_TUILE - 1) / COTE_TUILE;
+        pool.invoke(new Tuiles(forme, image, colonnes, 0, colonnes * lignes));
+        return image;
+    }
+
+    private static int dimension(double max) {
+        return (int) Math.max(1, Math.ceil(max));
+    }
+
+    /**
+     * Dessine les tuiles d'indices [debut, fin[, rangées ligne par ligne, en coupant
+     * l'intervalle en deux jusqu'à une seule tuile par tâche.
+     */
+    private static final class Tuiles extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient IForme forme;
+        private final transient Image image;
+        private final int colonnes;
+        private final int debut;
+        private final int fin;
+
+        Tuiles(IForme forme, Image image, int colonnes, int debut, int fin) {
+            this.forme = forme;
+            this.image = image;
+            this.colonnes = colonnes;
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        @Override
+        protected void compute() {
+            if (fin - debut > 1) {
+                int milieu = (debut + fin) >>> 1;
+                invokeAll(new Tuiles(forme, image, colonnes, debut, milieu),
+                        new Tuiles(forme, image, colonnes, milieu, fin));
+                return;
+            }
+            int x = (debut % colonnes) * COTE_TUILE;
+            int y = (debut / colonnes) * COTE_TUILE;
+            Rasteriseur tuile = new Rasteriseur(x, y, Math.min(COTE_TUILE, image.largeur() - x),
+                    Math.min(COTE_TUILE, image.hauteur() - y));
+            tuile.dessiner(forme);
+            tuile.copierDans(image);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package fr.univrennes.istic.l2gen.requete;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.Cercle;
+import fr.univrennes.istic.l2gen.geometrie.IComposite;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Ligne;
+import fr.univrennes.istic.l2gen.geometrie.Polygone;
+import fr.univrennes.istic.l2gen.geometrie.Rectangle;
+import fr.univrennes.istic.l2gen.geometrie.Triangle;
+import fr.univrennes.istic.l2gen.geometrie.VueSommets;
+
+import java.util.Arrays;
+
+/**
+ * Test exact du chevauchement de deux formes, tel qu'elles sont dessinées : disque d'un
+ * {@link Cercle}, intérieur et bord d'un {@link Rectangle}, d'un {@link Triangle} ou d'un
+ * {@link Polygone} (règle non nulle), tracé d'une {@link Ligne}. Deux formes qui se
+ * touchent se chevauchent.
+ * </br>
+ * Un composite chevauche une forme si l'une de ses formes la chevauche ; seules les formes
+ * dont la boîte englobante touche celle de l'autre forme sont parcourues. Une forme
+ * étrangère au paquetage est réduite à sa boîte englobante.
+ */
+final class Chevauchement {
+    // en dessous de ce nombre de paires d'arêtes, elles sont toutes comparées
+    private static final int PAIRES_DIRECTES = 256;
+
+    private Chevauchement() {
+    }
+
+    static boolean chevauchent(IForme a, IForme b) {
+        return chevauchent(a, 0, 0, b, 0, 0);
+    }
+
+    // (ax, ay) et (bx, by) : translations des composites qui contiennent a et b
+    private static boolean chevauchent(IForme a, double ax, double ay, IForme b, double bx, double by) {
+        Boite boiteA = Collisions.boiteOuNull(a);
+        Boite boiteB = Collisions.boiteOuNull(b);
+        if (boiteA == null || boiteB == null
+                || !boiteA.translater(ax, ay).intersecte(boiteB.translater(bx, by))) {
+            return false;
+        }
+        if (a instanceof IComposite composite) {
+            double dx = ax + composite.translationX();
+            double dy = ay + composite.translationY();
+            for (int i = 0; i < composite.nombreFormes(); i++) {
+                if (chevauchent(composite.forme(i), dx, dy, b, bx, by)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (b instanceof IComposite) {
+            return chevauchent(b, bx, by, a, ax, ay);
+        }
+        return chevauchent(Contour.de(a, boiteA, ax, ay), Contour.de(b, boiteB, bx, by));
+    }
+
+    private static boolean chevauchent(Contour a, Contour b) {
+        if (a.coords == null && b.coords == null) {
+            double dx = a.cx - b.cx;
+            double dy = a.cy - b.cy;
+            double r = a.rayon + b.rayon;
+            return dx * dx + dy * dy <= r * r;
+        }
+        if (a.coords == null) {
+            return chevauchent(b, a);
+        }
+        if (b.coords == null) {
+            return a.distance2(b.cx, b.cy) <= b.rayon * b.rayon
+                    || a.ferme && a.enroulement(b.cx, b.cy) != 0;
+        }
+        // sans croisement des bords, l'un est entièrement dans l'autre ou à l'extérieur
+        return aretesSeCroisent(a, b)
+                || a.ferme && a.enroulement(b.coords[0], b.coords[1]) != 0
+                || b.ferme && b.enroulement(a.coords[0], a.coords[1]) != 0;
+    }
+
+    /**
+     * Cherche une arête de a qui touche une arête de b. Seules les arêtes qui touchent
+     * l'intersection des deux boîtes sont comparées, par balayage selon x si elles sont
+     * nombreuses.
+     */
+    private static boolean aretesSeCroisent(Contour a, Contour b) {
+        double x0 = Math.max(a.minX, b.minX);
+        double y0 = Math.max(a.minY, b.minY);
+        double x1 = Math.min(a.maxX, b.maxX);
+        double y1 = Math.min(a.maxY, b.maxY);
+        int[] aretesA = a.aretesDans(x0, y0, x1, y1);
+        int[] aretesB = b.aretesDans(x0, y0, x1, y1);
+        int na = aretesA.length;
+        int nb = aretesB.length;
+        if ((long) na * nb <= PAIRES_DIRECTES) {
+            for (int i = 0; i < na; i++) {
+                for (int j = 0; j < nb; j++) {
+                    if (seCroisent(a, aretesA[i], b, aretesB[j])) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        // arêtes des deux contours triées par x minimal ; celles de b sont notées ~e
+        double[] cles = new double[na + nb];
+        int[] aretes = new int[na + nb];
+        for (int i = 0; i < na; i++) {
+            cles[i] = a.minX(aretesA[i]);
+            aretes[i] = aretesA[i];
+        }
+        for (int j = 0; j < nb; j++) {
+            cles[na + j] = b.minX(aretesB[j]);
+            aretes[na + j] = ~aretesB[j];
+        }
+        PolygoneEnBandes.trier(cles, aretes, 0, na + nb - 1);
+        for (int p = 0; p < aretes.length; p++) {
+            int e = aretes[p];
+            double fin = e >= 0 ? a.maxX(e) : b.maxX(~e);
+            for (int q = p + 1; q < aretes.length && cles[q] <= fin; q++) {
+                int f = aretes[q];
+                if ((e >= 0) == (f >= 0)) {
+                    continue;
+                }
+                if (e >= 0 ? seCroisent(a, e, b, ~f) : seCroisent(a, f, b, ~e)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Teste si l'arête e de a et l'arête f de b ont un point commun.
+     */
+    private static boolean seCroisent(Contour a, int e, Contour b, int f) {
+        double[] ca = a.coords;
+        double[] cb = b.coords;
+        int e2 = a.suivant(e);
+        int f2 = b.suivant(f);
+        double px = ca[2 * e], py = ca[2 * e + 1], qx = ca[2 * e2], qy = ca[2 * e2 + 1];
+        double rx = cb[2 * f], ry = cb[2 * f + 1], sx = cb[2 * f2], sy = cb[2 * f2 + 1];
+        if (Math.max(px, qx) < Math.min(rx, sx) || Math.max(rx, sx) < Math.min(px, qx)
+                || Math.max(py, qy) < Math.min(ry, sy) || Math.max(ry, sy) < Math.min(py, qy)) {
+            return false;
+        }
+        double o1 = Math.signum((qx - px) * (ry - py) - (qy - py) * (rx - px));
+        double o2 = Math.signum((qx - px) * (sy - py) - (qy - py) * (sx - px));
+        double o3 = Math.signum((sx - rx) * (py - ry) - (sy - ry) * (px - rx));
+        double o4 = Math.signum((sx - rx) * (qy - ry) - (sy - ry) * (qx - rx));
+        // les boîtes des deux arêtes se touchent : une extrémité alignée avec l'autre arête
+        // est sur cette arête
+        return o1 * o2 <= 0 && o3 * o4 <= 0;
+    }
+
+    /**
+     * Bord d'une forme simple : disque (coords null), ou suite de sommets fermée ou non,
+     * décalés de la translation des composites qui contiennent la forme.
+     */
+    private static final class Contour {
+        final double cx;
+        final double cy;
+        final double rayon;
+        final double[] coords;
+        final boolean ferme;
+        final double minX;
+        final double minY;
+        final double maxX;
+        final double maxY;
+
+        private Contour(double cx, double cy, double rayon, double[] coords, boolean ferme, Boite boite) {
+            this.cx = cx;
+            this.cy = cy;
+            this.rayon = rayon;
+            this.coords = coords;
+            this.ferme = ferme;
+            this.minX = boite.minX();
+            this.minY = boite.minY();
+            this.maxX = boite.maxX();
+            this.maxY = boite.maxY();
+        }
+
+        static Contour de(IForme forme, Boite boite, double dx, double dy) {
+            boite = boite.translater(dx, dy);
+            if (forme instanceof Cercle) {
+                return new Contour((boite.minX() + boite.maxX()) / 2, (boite.minY() + boite.maxY()) / 2,
+                        boite.largeur() / 2, null, false, boite);
+            }
+            if (forme instanceof Triangle triangle) {
+                return new Contour(0, 0, 0, coords(triangle.sommets(), dx, dy), true, boite);
+            }
+            if (forme instanceof Polygone polygone) {
+                return new Contour(0, 0, 0, coords(polygone.sommets(), dx, dy), true, boite);
+            }
+            if (forme instanceof Ligne ligne) {
+                return new Contour(0, 0, 0, coords(ligne.sommets(), dx, dy), false, boite);
+            }
+            // Rectangle, et formes étrangères au paquetage réduites à leur boîte
+            double[] coins = {
+                    boite.minX(), boite.minY(), boite.maxX(), boite.minY(),
+                    boite.maxX(), boite.maxY(), boite.minX(), boite.maxY()
+            };
+            return new Contour(0, 0, 0, coins, true, boite);
+        }
+
+        private static double[] coords(VueSommets sommets, double dx, double dy) {
+            double[] coords = new double[2 * sommets.size()];
+            for (int i = 0; i < sommets.size(); i++) {
+                coords[2 * i] = sommets.x(i) + dx;
+                coords[2 * i + 1] = sommets.y(i) + dy;
+            }
+            return coords;
+        }
+
+        int nombreAretes() {
+            int n = coords.length / 2;
+            return ferme ? n : n - 1;
+        }
+
+        int suivant(int sommet) {
+            return sommet + 1 < coords.length / 2 ? sommet + 1 : 0;
+        }
+
+        double minX(int e) {
+            return Math.min(coords[2 * e], coords[2 * suivant(e)]);
+        }
+
+        double maxX(int e) {
+            return Math.max(coords[2 * e], coords[2 * suivant(e)]);
+        }
+
+        /**
+         * @return Les arêtes dont la boîte touche la zone donnée.
+         */
+        int[] aretesDans(double x0, double y0, double x1, double y1) {
+            int[] aretes = new int[nombreAretes()];
+            int n = 0;
+            for (int e = 0; e < aretes.length; e++) {
+                int f = suivant(e);
+                double xa = coords[2 * e], ya = coords[2 * e + 1];
+                double xb = coords[2 * f], yb = coords[2 * f + 1];
+                if (Math.min(xa, xb) <= x1 && Math.max(xa, xb) >= x0
+                        && Math.min(ya, yb) <= y1 && Math.max(ya, yb) >= y0) {
+                    aretes[n++] = e;
+                }
+            }
+            return n == aretes.length ? aretes : Arrays.copyOf(aretes, n);
+        }
+
+        /**
+         * @return Le carré de la distance du point (x, y) au bord.
+         */
+        double distance2(double x, double y) {
+            double min = Double.POSITIVE_INFINITY;
+            for (int e = 0; e < nombreAretes(); e++) {
+                int f = suivant(e);
+                double xa = coords[2 * e], ya = coords[2 * e + 1];
+                double dx = coords[2 * f] - xa, dy = coords[2 * f + 1] - ya;
+                double longueur2 = dx * dx + dy * dy;
+                double t = longueur2 == 0 ? 0
+                        : Math.max(0, Math.min(1, ((x - xa) * dx + (y - ya) * dy) / longueur2));
+                double ex = xa + t * dx - x;
+                double ey = ya + t * dy - y;
+                min = Math.min(min, ex * ex + ey * ey);
+            }
+            return min;
+        }
+
+        /**
+         * @return L'indice d'enroulement du contour fermé autour du point (x, y).
+         */
+        int enroulement(double x, double y) {
+            int enroulement = 0;
+            int n = coords.length / 2;
+            for (int e = 0; e < n; e++) {
+                int f = suivant(e);
+                double xa = coords[2 * e], ya = coords[2 * e + 1];
+                double xb = coords[2 * f], yb = coords[2 * f + 1];
+                if ((ya <= y && y < yb || yb <= y && y < ya)
+                        && xa + (y - ya) * (xb - xa) / (yb - ya) < x) {
+                    enroulement += ya < yb ? 1 : -1;
+                }
+            }
+            return enroulement;
+        }
+    }
+}
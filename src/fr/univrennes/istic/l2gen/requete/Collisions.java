@@ -0,0 +1,344 @@
+package fr.univrennes.istic.l2gen.requete;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.Groupe;
+import fr.univrennes.istic.l2gen.geometrie.IComposite;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Détection des paires de formes d'un {@link Groupe} (ou d'un autre composite) qui se
+ * chevauchent, par balayage et élagage (sweep and prune).
+ * </br>
+ * Phase large : les boîtes englobantes des formes sont triées selon leur borne inférieure
+ * sur l'axe où les formes sont le plus dispersées. En parcourant cet ordre, chaque boîte
+ * n'est comparée qu'aux boîtes qui commencent avant sa fin sur cet axe ; les paires dont
+ * les boîtes se touchent aussi sur l'autre axe sont candidates. L'autre axe est découpé en
+ * bandes balayées séparément, pour ne pas comparer des boîtes éloignées sur cet axe.
+ * Phase fine : chaque paire candidate est testée exactement, sur le dessin des formes
+ * (disque d'un cercle, intérieur d'un polygone selon la règle non nulle, tracé d'une
+ * ligne). Un groupe contenu dans le groupe compte comme une seule forme, qui chevauche une
+ * autre forme si l'une de ses formes la chevauche.
+ * </br>
+ * Le tri est conservé d'un appel de {@link #paires()} à l'autre : les formes dont la boîte
+ * a changé depuis l'appel précédent (déplacées, redimensionnées ou ajoutées) sont retirées
+ * de l'ordre, triées à part puis fusionnées avec les autres. Un appel coûte O(n + k log k)
+ * pour k formes modifiées, plus le nombre de paires candidates, au lieu des O(n²)
+ * comparaisons de toutes les paires.
+ */
+public final class Collisions {
+    // hauteur des bandes du balayage, en nombre de fois la taille moyenne des boîtes
+    private static final int BOITES_PAR_BANDE = 4;
+
+    private final IComposite groupe;
+
+    // boîte de chaque forme lors de l'appel précédent, NaN pour une forme sans boîte
+    private int nombreFormes;
+    private double[] minX = new double[0];
+    private double[] minY = new double[0];
+    private double[] maxX = new double[0];
+    private double[] maxY = new double[0];
+
+    // balayage selon x si vrai, selon y sinon
+    private boolean selonX = true;
+    // formes ayant une boîte, triées par borne inférieure sur l'axe du balayage ; leurs
+    // bornes sont recopiées dans cet ordre pour être lues à la suite
+    private int[] ordre = new int[0];
+    private double[] debuts = new double[0];
+    private double[] fins = new double[0];
+    private double[] basAutreAxe = new double[0];
+    private double[] hautsAutreAxe = new double[0];
+
+    /**
+     * @param groupe Le groupe dont les formes sont à comparer. Il est relu à chaque appel de
+     *               {@link #paires()}.
+     */
+    public Collisions(IComposite groupe) {
+        this.groupe = groupe;
+    }
+
+    /**
+     * Une paire de formes du groupe qui se chevauchent.
+     */
+    public static final class Paire {
+        private final int indicePremiere;
+        private final int indiceSeconde;
+        private final IForme premiere;
+        private final IForme seconde;
+
+        Paire(int indicePremiere, int indiceSeconde, IForme premiere, IForme seconde) {
+            this.indicePremiere = indicePremiere;
+            this.indiceSeconde = indiceSeconde;
+            this.premiere = premiere;
+            this.seconde = seconde;
+        }
+
+        /**
+         * @return L'indice dans le groupe de la première forme, inférieur à celui de la seconde.
+         */
+        public int indicePremiere() {
+            return indicePremiere;
+        }
+
+        /**
+         * @return L'indice dans le groupe de la seconde forme.
+         */
+        public int indiceSeconde() {
+            return indiceSeconde;
+        }
+
+        public IForme premiere() {
+            return premiere;
+        }
+
+        public IForme seconde() {
+            return seconde;
+        }
+
+        @Override
+        public String toString() {
+            return "Paire[" + indicePremiere + "," + indiceSeconde + "]";
+        }
+    }
+
+    /**
+     * Retourne les paires de formes du groupe qui se chevauchent (bords compris), triées par
+     * indices croissants.
+     * </br>
+     * La phase large est faite lors de l'appel ; le test exact des paires candidates l'est au
+     * fil de la lecture du flux, qui peut être rendu parallèle ({@link Stream#parallel()}).
+     * Le groupe ne doit pas être modifié pendant la lecture du flux.
+     *
+     * @return Les paires de formes qui se chevauchent.
+     */
+    public Stream<Paire> paires() {
+        mettreAJour();
+        long[] candidates = candidates();
+        return Arrays.stream(candidates)
+                .filter(c -> Chevauchement.chevauchent(groupe.forme((int) (c >>> 32)), groupe.forme((int) c)))
+                .mapToObj(c -> {
+                    int i = (int) (c >>> 32);
+                    int j = (int) c;
+                    return new Paire(i, j, groupe.forme(i), groupe.forme(j));
+                });
+    }
+
+    /**
+     * Relit les boîtes des formes du groupe et remet dans l'ordre celles qui ont changé.
+     */
+    private void mettreAJour() {
+        int n = groupe.nombreFormes();
+        if (n > minX.length) {
+            int taille = Math.max(n, 2 * minX.length);
+            minX = Arrays.copyOf(minX, taille);
+            minY = Arrays.copyOf(minY, taille);
+            maxX = Arrays.copyOf(maxX, taille);
+            maxY = Arrays.copyOf(maxY, taille);
+        }
+        int[] modifiees = new int[16];
+        int nombreModifiees = 0;
+        for (int i = 0; i < n; i++) {
+            Boite boite = boiteOuNull(groupe.forme(i));
+            boolean modifiee;
+            if (boite == null) {
+                modifiee = i >= nombreFormes || !Double.isNaN(minX[i]);
+                minX[i] = minY[i] = maxX[i] = maxY[i] = Double.NaN;
+            } else {
+                modifiee = i >= nombreFormes || boite.minX() != minX[i] || boite.minY() != minY[i]
+                        || boite.maxX() != maxX[i] || boite.maxY() != maxY[i];
+                minX[i] = boite.minX();
+                minY[i] = boite.minY();
+                maxX[i] = boite.maxX();
+                maxY[i] = boite.maxY();
+            }
+            if (modifiee) {
+                if (nombreModifiees == modifiees.length) {
+                    modifiees = Arrays.copyOf(modifiees, 2 * nombreModifiees);
+                }
+                modifiees[nombreModifiees++] = i;
+            }
+        }
+        int anciennes = nombreFormes;
+        nombreFormes = n;
+        if (nombreModifiees == 0) {
+            return;
+        }
+        if (nombreModifiees > n / 2) {
+            // presque tout a changé : l'axe est choisi à nouveau et tout est trié
+            choisirAxe();
+            int[] toutes = new int[n];
+            for (int i = 0; i < n; i++) {
+                toutes[i] = i;
+            }
+            ordre = new int[0];
+            fusionner(toutes, n, new boolean[0]);
+        } else {
+            boolean[] marquees = new boolean[anciennes];
+            for (int k = 0; k < nombreModifiees && modifiees[k] < anciennes; k++) {
+                marquees[modifiees[k]] = true;
+            }
+            fusionner(modifiees, nombreModifiees, marquees);
+        }
+    }
+
+    /**
+     * Balaye selon l'axe où les centres des boîtes sont le plus dispersés.
+     */
+    private void choisirAxe() {
+        double sommeX = 0, sommeY = 0, carresX = 0, carresY = 0;
+        int m = 0;
+        for (int i = 0; i < nombreFormes; i++) {
+            if (!Double.isNaN(minX[i])) {
+                double x = (minX[i] + maxX[i]) / 2;
+                double y = (minY[i] + maxY[i]) / 2;
+                sommeX += x;
+                sommeY += y;
+                carresX += x * x;
+                carresY += y * y;
+                m++;
+            }
+        }
+        selonX = m == 0 || carresX - sommeX * sommeX / m >= carresY - sommeY * sommeY / m;
+    }
+
+    /**
+     * Retire de l'ordre les formes marquées, trie les formes modifiées ayant une boîte,
+     * puis fusionne les deux listes triées et recopie les bornes dans le nouvel ordre.
+     */
+    private void fusionner(int[] modifiees, int nombreModifiees, boolean[] marquees) {
+        double[] bornes = selonX ? minX : minY;
+        double[] cles = new double[nombreModifiees];
+        int[] nouvelles = new int[nombreModifiees];
+        int k = 0;
+        for (int a = 0; a < nombreModifiees; a++) {
+            int i = modifiees[a];
+            if (!Double.isNaN(bornes[i])) {
+                cles[k] = bornes[i];
+                nouvelles[k++] = i;
+            }
+        }
+        PolygoneEnBandes.trier(cles, nouvelles, 0, k - 1);
+
+        int[] fusion = new int[ordre.length + k];
+        int m = 0;
+        int b = 0;
+        for (int i : ordre) {
+            if (i < marquees.length && marquees[i]) {
+                continue;
+            }
+            while (b < k && cles[b] < bornes[i]) {
+                fusion[m++] = nouvelles[b++];
+            }
+            fusion[m++] = i;
+        }
+        while (b < k) {
+            fusion[m++] = nouvelles[b++];
+        }
+        ordre = Arrays.copyOf(fusion, m);
+
+        double[] minAxe = selonX ? minX : minY;
+        double[] maxAxe = selonX ? maxX : maxY;
+        double[] minAutre = selonX ? minY : minX;
+        double[] maxAutre = selonX ? maxY : maxX;
+        debuts = new double[m];
+        fins = new double[m];
+        basAutreAxe = new double[m];
+        hautsAutreAxe = new double[m];
+        for (int p = 0; p < m; p++) {
+            int i = ordre[p];
+            debuts[p] = minAxe[i];
+            fins[p] = maxAxe[i];
+            basAutreAxe[p] = minAutre[i];
+            hautsAutreAxe[p] = maxAutre[i];
+        }
+    }
+
+    /**
+     * Balaye l'ordre trié et retourne les paires dont les boîtes se touchent, codées
+     * (i << 32) | j avec i < j, triées.
+     * </br>
+     * Balayer selon un seul axe compare chaque boîte à toutes celles qui la recouvrent sur cet
+     * axe, même très loin sur l'autre. L'autre axe est donc découpé en bandes de quelques fois
+     * la taille moyenne des boîtes, balayées séparément : une boîte est rangée dans chaque
+     * bande qu'elle touche, et une paire n'est retenue que dans la bande qui contient le bas
+     * de l'intersection des deux boîtes, pour n'être comptée qu'une fois.
+     */
+    private long[] candidates() {
+        int m = ordre.length;
+        double bas = Double.POSITIVE_INFINITY;
+        double haut = Double.NEGATIVE_INFINITY;
+        double tailles = 0;
+        for (int p = 0; p < m; p++) {
+            bas = Math.min(bas, basAutreAxe[p]);
+            haut = Math.max(haut, hautsAutreAxe[p]);
+            tailles += hautsAutreAxe[p] - basAutreAxe[p];
+        }
+        double bandes = (haut - bas) / (BOITES_PAR_BANDE * tailles / Math.max(1, m));
+        // une seule bande si les boîtes sont peu nombreuses, plates ou alignées
+        int nombreBandes = bandes >= 2 ? (int) Math.max(1, Math.min(Math.sqrt(m), bandes)) : 1;
+        double hauteur = (haut - bas) / nombreBandes;
+
+        // positions dans l'ordre des boîtes de chaque bande : membres[entrees[b]] à
+        // membres[entrees[b + 1] - 1], triées comme l'ordre
+        int[] entrees = new int[nombreBandes + 1];
+        for (int p = 0; p < m; p++) {
+            for (int b = bande(basAutreAxe[p], bas, hauteur, nombreBandes),
+                 fin = bande(hautsAutreAxe[p], bas, hauteur, nombreBandes); b <= fin; b++) {
+                entrees[b + 1]++;
+            }
+        }
+        for (int b = 0; b < nombreBandes; b++) {
+            entrees[b + 1] += entrees[b];
+        }
+        int[] membres = new int[entrees[nombreBandes]];
+        int[] places = Arrays.copyOf(entrees, nombreBandes);
+        for (int p = 0; p < m; p++) {
+            for (int b = bande(basAutreAxe[p], bas, hauteur, nombreBandes),
+                 fin = bande(hautsAutreAxe[p], bas, hauteur, nombreBandes); b <= fin; b++) {
+                membres[places[b]++] = p;
+            }
+        }
+
+        long[] paires = new long[64];
+        int n = 0;
+        for (int b = 0; b < nombreBandes; b++) {
+            int dernier = entrees[b + 1];
+            for (int u = entrees[b]; u < dernier; u++) {
+                int p = membres[u];
+                double fin = fins[p];
+                double basP = basAutreAxe[p];
+                double hautP = hautsAutreAxe[p];
+                for (int v = u + 1; v < dernier && debuts[membres[v]] <= fin; v++) {
+                    int q = membres[v];
+                    if (basAutreAxe[q] <= hautP && basP <= hautsAutreAxe[q]
+                            && bande(Math.max(basP, basAutreAxe[q]), bas, hauteur, nombreBandes) == b) {
+                        if (n == paires.length) {
+                            paires = Arrays.copyOf(paires, 2 * n);
+                        }
+                        int i = Math.min(ordre[p], ordre[q]);
+                        int j = Math.max(ordre[p], ordre[q]);
+                        paires[n++] = (long) i << 32 | j;
+                    }
+                }
+            }
+        }
+        Arrays.sort(paires, 0, n);
+        return Arrays.copyOf(paires, n);
+    }
+
+    private static int bande(double y, double bas, double hauteur, int nombreBandes) {
+        return Math.max(0, Math.min(nombreBandes - 1, (int) ((y - bas) / hauteur)));
+    }
+
+    /**
+     * @return La boîte englobante de la forme, ou null pour un composite vide.
+     */
+    static Boite boiteOuNull(IForme forme) {
+        if (forme instanceof IComposite composite && composite.nombreFormes() == 0) {
+            return null;
+        }
+        return forme.boite();
+    }
+}
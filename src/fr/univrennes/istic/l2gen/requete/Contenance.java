@@ -0,0 +1,220 @@
+package fr.univrennes.istic.l2gen.requete;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.Cercle;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Point;
+import fr.univrennes.istic.l2gen.geometrie.Polygone;
+import fr.univrennes.istic.l2gen.geometrie.Rectangle;
+import fr.univrennes.istic.l2gen.geometrie.Triangle;
+import fr.univrennes.istic.l2gen.geometrie.VueSommets;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Test d'appartenance de points à une forme, préparé une fois pour de nombreux points.
+ * </br>
+ * {@link #preparer(IForme)} calcule une fois les données utiles au test : carré du rayon
+ * d'un {@link Cercle}, bornes d'un {@link Rectangle}, équations des côtés d'un
+ * {@link Triangle}, découpage en bandes ({@link PolygoneEnBandes}) ou grille
+ * ({@link PolygoneEnGrille}) des arêtes d'un {@link Polygone}.
+ * Le test d'un point ne lit ensuite que ces données, et ne dépend plus des modifications
+ * de la forme : après une modification, il faut préparer la forme à nouveau.
+ * </br>
+ * {@link #contient(double[])} teste un tableau de points entrelacés (x0, y0, x1, y1, ...) et
+ * retourne l'ensemble des indices des points contenus. Les points sont répartis par lots
+ * dans un pool fork/join ; chaque lot commence sur un multiple de 64 et remplit ses propres
+ * mots du résultat, sans synchronisation.
+ * </br>
+ * L'intérieur d'une forme est celui de son dessin SVG : règle non nulle pour les polygones.
+ * Un point sur le bord d'une forme peut être compté dedans ou dehors.
+ */
+public abstract class Contenance {
+    // nombre de points testés par une tâche, multiple de 64
+    private static final int TAILLE_LOT = 1 << 14;
+
+    Contenance() {
+    }
+
+    /**
+     * Prépare le test d'appartenance à une forme.
+     *
+     * @param forme La forme, un {@link Cercle}, un {@link Rectangle}, un {@link Triangle} ou
+     *              un {@link Polygone}.
+     * @return Le test préparé.
+     * @throws IllegalArgumentException Si la forme n'a pas d'intérieur connu.
+     */
+    public static Contenance preparer(IForme forme) {
+        if (forme instanceof Cercle cercle) {
+            Point centre = cercle.centre();
+            return new Disque(centre.x(), centre.y(), cercle.largeur() / 2);
+        }
+        if (forme instanceof Rectangle rectangle) {
+            return new Pave(rectangle.boite());
+        }
+        if (forme instanceof Triangle triangle) {
+            VueSommets s = triangle.sommets();
+            return new Cotes(s.x(0), s.y(0), s.x(1), s.y(1), s.x(2), s.y(2));
+        }
+        if (forme instanceof Polygone polygone) {
+            return PolygoneEnBandes.preparer(polygone.sommets());
+        }
+        throw new IllegalArgumentException("Forme sans interieur : " + forme.getClass().getName());
+    }
+
+    /**
+     * @param x Abscisse du point.
+     * @param y Ordonnée du point.
+     * @return true si le point est dans la forme.
+     */
+    public abstract boolean contient(double x, double y);
+
+    /**
+     * Teste des points, en utilisant le pool fork/join commun.
+     *
+     * @param points Coordonnées entrelacées des points (x0, y0, x1, y1, ...).
+     * @return Les indices des points contenus dans la forme.
+     * @throws IllegalArgumentException Si le tableau est de longueur impaire.
+     */
+    public BitSet contient(double[] points) {
+        return contient(points, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Teste des points.
+     *
+     * @param points Coordonnées entrelacées des points (x0, y0, x1, y1, ...).
+     * @param pool   Le pool dans lequel tester les lots de points.
+     * @return Les indices des points contenus dans la forme.
+     * @throws IllegalArgumentException Si le tableau est de longueur impaire.
+     */
+    public BitSet contient(double[] points, ForkJoinPool pool) {
+        if (points.length % 2 != 0) {
+            throw new IllegalArgumentException("Les coordonnees des points doivent etre en nombre pair.");
+        }
+        int n = points.length / 2;
+        long[] mots = new long[(n + 63) >>> 6];
+        if (n <= TAILLE_LOT) {
+            tester(points, 0, n, mots);
+        } else {
+            pool.invoke(new Lot(this, points, 0, n, mots));
+        }
+        return BitSet.valueOf(mots);
+    }
+
+    private void tester(double[] points, int debut, int fin, long[] mots) {
+        for (int i = debut; i < fin; i++) {
+            if (contient(points[2 * i], points[2 * i + 1])) {
+                mots[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    /**
+     * Teste les points d'indices [debut, fin[, en coupant l'intervalle en deux sur un
+     * multiple de 64 tant qu'il dépasse {@link #TAILLE_LOT}.
+     */
+    private static final class Lot extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Contenance contenance;
+        private final double[] points;
+        private final int debut;
+        private final int fin;
+        private final long[] mots;
+
+        Lot(Contenance contenance, double[] points, int debut, int fin, long[] mots) {
+            this.contenance = contenance;
+            this.points = points;
+            this.debut = debut;
+            this.fin = fin;
+            this.mots = mots;
+        }
+
+        @Override
+        protected void compute() {
+            if (fin - debut <= TAILLE_LOT) {
+                contenance.tester(points, debut, fin, mots);
+                return;
+            }
+            int milieu = (debut + ((fin - debut) >>> 1)) & ~63;
+            invokeAll(new Lot(contenance, points, debut, milieu, mots),
+                    new Lot(contenance, points, milieu, fin, mots));
+        }
+    }
+
+    private static final class Disque extends Contenance {
+        private final double cx;
+        private final double cy;
+        private final double rayon2;
+
+        Disque(double cx, double cy, double rayon) {
+            this.cx = cx;
+            this.cy = cy;
+            this.rayon2 = rayon * rayon;
+        }
+
+        @Override
+        public boolean contient(double x, double y) {
+            double dx = x - cx;
+            double dy = y - cy;
+            return dx * dx + dy * dy <= rayon2;
+        }
+    }
+
+    private static final class Pave extends Contenance {
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+
+        Pave(Boite boite) {
+            this.minX = boite.minX();
+            this.minY = boite.minY();
+            this.maxX = boite.maxX();
+            this.maxY = boite.maxY();
+        }
+
+        @Override
+        public boolean contient(double x, double y) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY;
+        }
+    }
+
+    /**
+     * Triangle vu comme l'intersection des trois demi-plans de ses côtés, chacun donné par
+     * une équation a x + b y + c ≥ 0 orientée vers l'intérieur.
+     */
+    private static final class Cotes extends Contenance {
+        private final double[] equations = new double[9];
+
+        Cotes(double xa, double ya, double xb, double yb, double xc, double yc) {
+            // sens de parcours des sommets : +1 si direct, -1 sinon, 0 si le triangle est plat
+            double signe = Math.signum((xb - xa) * (yc - ya) - (yb - ya) * (xc - xa));
+            double[] xs = {xa, xb, xc};
+            double[] ys = {ya, yb, yc};
+            for (int i = 0; i < 3; i++) {
+                int j = (i + 1) % 3;
+                double a = -(ys[j] - ys[i]) * signe;
+                double b = (xs[j] - xs[i]) * signe;
+                equations[3 * i] = a;
+                equations[3 * i + 1] = b;
+                equations[3 * i + 2] = -(a * xs[i] + b * ys[i]);
+            }
+            if (signe == 0) {
+                // un triangle plat ne contient aucun point
+                equations[2] = -1;
+            }
+        }
+
+        @Override
+        public boolean contient(double x, double y) {
+            double[] e = equations;
+            return e[0] * x + e[1] * y + e[2] >= 0
+                    && e[3] * x + e[4] * y + e[5] >= 0
+                    && e[6] * x + e[7] * y + e[8] >= 0;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package fr.univrennes.istic.l2gen.requete;
+
+import fr.univrennes.istic.l2gen.geometrie.VueSommets;
+
+import java.util.Arrays;
+
+/**
+ * Test d'appartenance à un polygone par découpage en bandes horizontales.
+ * </br>
+ * Les ordonnées distinctes des sommets découpent le plan en bandes ; une arête non
+ * horizontale traverse entièrement chacune des bandes qu'elle touche. Dans chaque bande,
+ * les arêtes sont triées par abscisse et leurs sens (+1 vers le bas, -1 vers le haut)
+ * cumulés dans cet ordre. Pour un point, la bande est trouvée par dichotomie sur les
+ * ordonnées, puis le nombre d'arêtes à sa gauche par dichotomie sur les arêtes de la
+ * bande : le cumul de leurs sens est l'indice d'enroulement du point, non nul si le point
+ * est dans le polygone (règle non nulle de SVG). Un test coûte O(log n).
+ * </br>
+ * Si des arêtes se croisent à l'intérieur d'une bande (polygone croisé), leur ordre n'y est
+ * pas le même partout : la bande est alors parcourue arête par arête. Le découpage peut
+ * compter jusqu'à une entrée par arête et par bande : s'il devient trop grand (beaucoup de
+ * longues arêtes traversant beaucoup de bandes), {@link #preparer(VueSommets)} utilise une
+ * grille à la place ({@link PolygoneEnGrille}).
+ */
+final class PolygoneEnBandes extends Contenance {
+    // nombre moyen de bandes par arête au-delà duquel le découpage est abandonné
+    private static final int BANDES_PAR_ARETE = 16;
+
+    // arêtes non horizontales, par leur sommet du haut (plus petit y)
+    private final int nombreAretes;
+    private final double[] xHauts;
+    private final double[] hauts;
+    private final double[] bas;
+    private final double[] pentes;
+    private final int[] sens;
+
+    // bornes des bandes : la bande k va de bornes[k] (inclus) à bornes[k + 1] (exclu)
+    private final double[] bornes;
+    // arêtes de la bande k : aretes[debuts[k]] à aretes[debuts[k + 1] - 1], triées par x
+    private final int[] debuts;
+    private final int[] aretes;
+    // cumul des sens des arêtes de la bande jusqu'à l'arête incluse
+    private final int[] cumuls;
+    private final boolean[] triees;
+
+    /**
+     * Prépare le test d'appartenance à un polygone : par découpage en bandes, ou par une
+     * grille si le découpage serait trop grand.
+     *
+     * @param sommets Les sommets du polygone.
+     * @return Le test préparé.
+     */
+    static Contenance preparer(VueSommets sommets) {
+        PolygoneEnBandes bandes = new PolygoneEnBandes(sommets);
+        return bandes.bornes != null ? bandes : new PolygoneEnGrille(sommets);
+    }
+
+    private PolygoneEnBandes(VueSommets sommets) {
+        int n = sommets.size();
+        double[] xh = new double[n];
+        double[] h = new double[n];
+        double[] b = new double[n];
+        double[] p = new double[n];
+        int[] s = new int[n];
+        double[] ordonnees = new double[n];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 < n ? i + 1 : 0;
+            double xa = sommets.x(i);
+            // + 0.0 change -0.0 en 0.0 : les bornes sont dédoublonnées avec != mais triées et
+            // cherchées par Arrays.sort et binarySearch, pour qui -0.0 précède 0.0
+            double ya = sommets.y(i) + 0.0;
+            double xb = sommets.x(j);
+            double yb = sommets.y(j) + 0.0;
+            ordonnees[i] = ya;
+            if (ya == yb) {
+                continue;
+            }
+            if (ya < yb) {
+                xh[m] = xa;
+                h[m] = ya;
+                b[m] = yb;
+                s[m] = 1;
+            } else {
+                xh[m] = xb;
+                h[m] = yb;
+                b[m] = ya;
+                s[m] = -1;
+            }
+            p[m] = (xb - xa) / (yb - ya);
+            m++;
+        }
+        this.nombreAretes = m;
+        this.xHauts = xh;
+        this.hauts = h;
+        this.bas = b;
+        this.pentes = p;
+        this.sens = s;
+
+        Arrays.sort(ordonnees);
+        int distinctes = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinctes == 0 || ordonnees[i] != ordonnees[distinctes - 1]) {
+                ordonnees[distinctes++] = ordonnees[i];
+            }
+        }
+        double[] bornes = Arrays.copyOf(ordonnees, distinctes);
+        int nombreBandes = Math.max(0, distinctes - 1);
+
+        // taille du découpage, puis nombre d'arêtes par bande et début de chaque bande
+        long total = 0;
+        long limite = (long) BANDES_PAR_ARETE * m + 1024;
+        for (int e = 0; e < m && total <= limite; e++) {
+            total += Arrays.binarySearch(bornes, b[e]) - Arrays.binarySearch(bornes, h[e]);
+        }
+        if (total > limite) {
+            this.bornes = null;
+            this.debuts = null;
+            this.aretes = null;
+            this.cumuls = null;
+            this.triees = null;
+            return;
+        }
+        int[] debuts = new int[nombreBandes + 1];
+        for (int e = 0; e < m; e++) {
+            int fin = Arrays.binarySearch(bornes, b[e]);
+            for (int k = Arrays.binarySearch(bornes, h[e]); k < fin; k++) {
+                debuts[k + 1]++;
+            }
+        }
+        for (int k = 0; k < nombreBandes; k++) {
+            debuts[k + 1] += debuts[k];
+        }
+        int[] aretes = new int[(int) total];
+        int[] places = Arrays.copyOf(debuts, nombreBandes);
+        for (int e = 0; e < m; e++) {
+            int premiere = Arrays.binarySearch(bornes, h[e]);
+            int fin = Arrays.binarySearch(bornes, b[e]);
+            for (int k = premiere; k < fin; k++) {
+                aretes[places[k]++] = e;
+            }
+        }
+
+        int[] cumuls = new int[aretes.length];
+        boolean[] triees = new boolean[nombreBandes];
+        double[] cles = new double[aretes.length];
+        for (int k = 0; k < nombreBandes; k++) {
+            int debut = debuts[k];
+            int fin = debuts[k + 1];
+            double milieu = (bornes[k] + bornes[k + 1]) / 2;
+            for (int a = debut; a < fin; a++) {
+                cles[a] = abscisse(aretes[a], milieu);
+            }
+            trier(cles, aretes, debut, fin - 1);
+            // sans croisement dans la bande, l'ordre est aussi celui des deux bords
+            boolean triee = true;
+            for (int a = debut + 1; a < fin && triee; a++) {
+                triee = abscisse(aretes[a - 1], bornes[k]) <= abscisse(aretes[a], bornes[k])
+                        && abscisse(aretes[a - 1], bornes[k + 1]) <= abscisse(aretes[a], bornes[k + 1]);
+            }
+            triees[k] = triee;
+            int cumul = 0;
+            for (int a = debut; a < fin; a++) {
+                cumul += s[aretes[a]];
+                cumuls[a] = cumul;
+            }
+        }
+        this.bornes = bornes;
+        this.debuts = debuts;
+        this.aretes = aretes;
+        this.cumuls = cumuls;
+        this.triees = triees;
+    }
+
+    private double abscisse(int arete, double y) {
+        return xHauts[arete] + (y - hauts[arete]) * pentes[arete];
+    }
+
+    @Override
+    public boolean contient(double x, double y) {
+        // dernière borne inférieure ou égale à y
+        int bas = 0;
+        int haut = bornes.length - 1;
+        if (!(y >= bornes[0] && y < bornes[haut])) {
+            return false;
+        }
+        while (haut - bas > 1) {
+            int milieu = (bas + haut) >>> 1;
+            if (bornes[milieu] <= y) {
+                bas = milieu;
+            } else {
+                haut = milieu;
+            }
+        }
+        int k = bas;
+        int debut = debuts[k];
+        int fin = debuts[k + 1];
+        if (!triees[k]) {
+            return enroulement(x, y, debut, fin) != 0;
+        }
+        // nombre d'arêtes de la bande strictement à gauche du point
+        int gauche = debut;
+        int droite = fin;
+        while (gauche < droite) {
+            int milieu = (gauche + droite) >>> 1;
+            if (abscisse(aretes[milieu], y) < x) {
+                gauche = milieu + 1;
+            } else {
+                droite = milieu;
+            }
+        }
+        return gauche > debut && cumuls[gauche - 1] != 0;
+    }
+
+    /**
+     * Calcule l'indice d'enroulement d'un point en parcourant une à une les arêtes
+     * rangées aux positions [debut, fin[.
+     */
+    private int enroulement(double x, double y, int debut, int fin) {
+        int enroulement = 0;
+        for (int a = debut; a < fin; a++) {
+            int e = aretes[a];
+            if (hauts[e] <= y && y < bas[e] && abscisse(e, y) < x) {
+                enroulement += sens[e];
+            }
+        }
+        return enroulement;
+    }
+
+    /**
+     * Trie les positions [debut, fin] de deux tableaux parallèles selon les clés.
+     */
+    static void trier(double[] cles, int[] valeurs, int debut, int fin) {
+        while (fin - debut > 16) {
+            double pivot = cles[(debut + fin) >>> 1];
+            int i = debut;
+            int j = fin;
+            while (i <= j) {
+                while (cles[i] < pivot) {
+                    i++;
+                }
+                while (cles[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    echanger(cles, valeurs, i++, j--);
+                }
+            }
+            // récursion sur la plus petite partie, boucle sur la plus grande
+            if (j - debut < fin - i) {
+                trier(cles, valeurs, debut, j);
+                debut = i;
+            } else {
+                trier(cles, valeurs, i, fin);
+                fin = j;
+            }
+        }
+        for (int i = debut + 1; i <= fin; i++) {
+            for (int j = i; j > debut && cles[j - 1] > cles[j]; j--) {
+                echanger(cles, valeurs, j - 1, j);
+            }
+        }
+    }
+
+    private static void echanger(double[] cles, int[] valeurs, int i, int j) {
+        double cle = cles[i];
+        cles[i] = cles[j];
+        cles[j] = cle;
+        int valeur = valeurs[i];
+        valeurs[i] = valeurs[j];
+        valeurs[j] = valeur;
+    }
+}
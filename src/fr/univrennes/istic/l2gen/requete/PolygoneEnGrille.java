@@ -0,0 +1,255 @@
+package fr.univrennes.istic.l2gen.requete;
+
+import fr.univrennes.istic.l2gen.geometrie.VueSommets;
+
+import java.util.Arrays;
+
+/**
+ * Test d'appartenance à un polygone par une grille uniforme, pour les polygones dont le
+ * découpage en bandes ({@link PolygoneEnBandes}) serait trop grand : longues arêtes en
+ * dents de scie, étoiles irrégulières.
+ * </br>
+ * La boîte englobante du polygone est découpée en environ une cellule par arête. Chaque
+ * cellule connaît les arêtes qui la traversent, et l'indice d'enroulement d'un point de
+ * référence choisi à l'intérieur, calculé par balayage ligne de cellules par ligne de
+ * cellules. L'indice d'un point est celui du point de référence de sa cellule, corrigé
+ * des arêtes de la cellule que coupe le segment entre les deux points : +1 pour une arête
+ * franchie de sa gauche vers sa droite, -1 dans l'autre sens. Un test ne lit ainsi que les
+ * arêtes d'une cellule, et la grille occupe une place proportionnelle à la longueur totale
+ * des arêtes, et non au produit du nombre d'arêtes par le nombre de bandes.
+ */
+final class PolygoneEnGrille extends Contenance {
+    private static final int COTE_MAX = 4096;
+    // position du point de référence dans sa cellule, loin du milieu où tombent souvent
+    // les sommets de coordonnées rondes
+    private static final double REFERENCE_X = 0.5137;
+    private static final double REFERENCE_Y = 0.4871;
+
+    // sommets du polygone ; l'arête e va du sommet e au sommet e + 1
+    private final double[] coords;
+    private final int nombreSommets;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private final int colonnes;
+    private final int lignes;
+    private final double largeurCellule;
+    private final double hauteurCellule;
+    // arêtes de la cellule c : aretes[debuts[c]] à aretes[debuts[c + 1] - 1]
+    private final int[] debuts;
+    private final int[] aretes;
+    private final int[] enroulements;
+
+    PolygoneEnGrille(VueSommets sommets) {
+        int n = sommets.size();
+        this.nombreSommets = n;
+        this.coords = new double[2 * n];
+        double x0 = Double.POSITIVE_INFINITY;
+        double y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY;
+        double y1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double x = sommets.x(i);
+            double y = sommets.y(i);
+            coords[2 * i] = x;
+            coords[2 * i + 1] = y;
+            x0 = Math.min(x0, x);
+            y0 = Math.min(y0, y);
+            x1 = Math.max(x1, x);
+            y1 = Math.max(y1, y);
+        }
+        this.minX = x0;
+        this.minY = y0;
+        this.maxX = x1;
+        this.maxY = y1;
+        double largeur = Math.max(x1 - x0, Double.MIN_NORMAL);
+        double hauteur = Math.max(y1 - y0, Double.MIN_NORMAL);
+        // environ une cellule par arête, de forme proche du carré
+        double cote = Math.sqrt(largeur * hauteur / n);
+        this.colonnes = (int) Math.max(1, Math.min(COTE_MAX, Math.ceil(largeur / cote)));
+        this.lignes = (int) Math.max(1, Math.min(COTE_MAX, Math.ceil(hauteur / cote)));
+        this.largeurCellule = largeur / colonnes;
+        this.hauteurCellule = hauteur / lignes;
+
+        int cellules = colonnes * lignes;
+        int[] nombres = new int[cellules + 1];
+        for (int e = 0; e < n; e++) {
+            parcourir(e, nombres, null);
+        }
+        for (int c = 0; c < cellules; c++) {
+            nombres[c + 1] += nombres[c];
+        }
+        this.debuts = nombres;
+        this.aretes = new int[nombres[cellules]];
+        int[] places = Arrays.copyOf(nombres, cellules);
+        for (int e = 0; e < n; e++) {
+            parcourir(e, places, aretes);
+        }
+        this.enroulements = new int[cellules];
+        calculerEnroulements();
+    }
+
+    /**
+     * Parcourt les cellules traversées par une arête, colonne par colonne. Sans tableau
+     * d'arêtes, compte l'arête dans chaque cellule (nombres[c + 1]) ; sinon, la range à la
+     * place suivante de chaque cellule (places[c]).
+     */
+    private void parcourir(int e, int[] compteurs, int[] rangement) {
+        int f = e + 1 < nombreSommets ? e + 1 : 0;
+        double xa = coords[2 * e];
+        double ya = coords[2 * e + 1];
+        double xb = coords[2 * f];
+        double yb = coords[2 * f + 1];
+        int premiere = colonne(Math.min(xa, xb));
+        int derniere = colonne(Math.max(xa, xb));
+        for (int c = premiere; c <= derniere; c++) {
+            // partie de l'arête dans la colonne
+            double yMin;
+            double yMax;
+            if (xa == xb) {
+                yMin = Math.min(ya, yb);
+                yMax = Math.max(ya, yb);
+            } else {
+                double gauche = Math.max(Math.min(xa, xb), minX + c * largeurCellule);
+                double droite = Math.min(Math.max(xa, xb), minX + (c + 1) * largeurCellule);
+                double pente = (yb - ya) / (xb - xa);
+                double yg = ya + (gauche - xa) * pente;
+                double yd = ya + (droite - xa) * pente;
+                yMin = Math.min(yg, yd);
+                yMax = Math.max(yg, yd);
+            }
+            int derniereLigne = ligne(yMax);
+            for (int l = ligne(yMin); l <= derniereLigne; l++) {
+                int cellule = l * colonnes + c;
+                if (rangement == null) {
+                    compteurs[cellule + 1]++;
+                } else {
+                    rangement[compteurs[cellule]++] = e;
+                }
+            }
+        }
+    }
+
+    private int colonne(double x) {
+        return Math.max(0, Math.min(colonnes - 1, (int) ((x - minX) / largeurCellule)));
+    }
+
+    private int ligne(double y) {
+        return Math.max(0, Math.min(lignes - 1, (int) ((y - minY) / hauteurCellule)));
+    }
+
+    /**
+     * Calcule l'indice d'enroulement du point de référence de chaque cellule : pour chaque
+     * ligne de cellules, les arêtes coupant l'horizontale des points de référence sont
+     * triées par abscisse, puis leurs sens cumulés de gauche à droite.
+     */
+    private void calculerEnroulements() {
+        // arêtes non horizontales rangées par ligne de cellules touchée
+        int[] nombres = new int[lignes + 1];
+        for (int e = 0; e < nombreSommets; e++) {
+            int f = e + 1 < nombreSommets ? e + 1 : 0;
+            double ya = coords[2 * e + 1];
+            double yb = coords[2 * f + 1];
+            if (ya != yb) {
+                for (int l = ligne(Math.min(ya, yb)), fin = ligne(Math.max(ya, yb)); l <= fin; l++) {
+                    nombres[l + 1]++;
+                }
+            }
+        }
+        for (int l = 0; l < lignes; l++) {
+            nombres[l + 1] += nombres[l];
+        }
+        int[] parLigne = new int[nombres[lignes]];
+        int[] places = Arrays.copyOf(nombres, lignes);
+        for (int e = 0; e < nombreSommets; e++) {
+            int f = e + 1 < nombreSommets ? e + 1 : 0;
+            double ya = coords[2 * e + 1];
+            double yb = coords[2 * f + 1];
+            if (ya != yb) {
+                for (int l = ligne(Math.min(ya, yb)), fin = ligne(Math.max(ya, yb)); l <= fin; l++) {
+                    parLigne[places[l]++] = e;
+                }
+            }
+        }
+
+        double[] xs = new double[16];
+        int[] sens = new int[16];
+        for (int l = 0; l < lignes; l++) {
+            double y = referenceY(l);
+            int k = 0;
+            for (int a = nombres[l]; a < nombres[l + 1]; a++) {
+                int e = parLigne[a];
+                int f = e + 1 < nombreSommets ? e + 1 : 0;
+                double xa = coords[2 * e];
+                double ya = coords[2 * e + 1];
+                double xb = coords[2 * f];
+                double yb = coords[2 * f + 1];
+                // même convention que le lancer de rayon : haut inclus, bas exclu
+                if (Math.min(ya, yb) <= y && y < Math.max(ya, yb)) {
+                    if (k == xs.length) {
+                        xs = Arrays.copyOf(xs, 2 * k);
+                        sens = Arrays.copyOf(sens, 2 * k);
+                    }
+                    xs[k] = xa + (y - ya) * (xb - xa) / (yb - ya);
+                    sens[k] = ya < yb ? 1 : -1;
+                    k++;
+                }
+            }
+            PolygoneEnBandes.trier(xs, sens, 0, k - 1);
+            int j = 0;
+            int enroulement = 0;
+            for (int c = 0; c < colonnes; c++) {
+                double x = referenceX(c);
+                while (j < k && xs[j] < x) {
+                    enroulement += sens[j++];
+                }
+                enroulements[l * colonnes + c] = enroulement;
+            }
+        }
+    }
+
+    private double referenceX(int colonne) {
+        return minX + (colonne + REFERENCE_X) * largeurCellule;
+    }
+
+    private double referenceY(int ligne) {
+        return minY + (ligne + REFERENCE_Y) * hauteurCellule;
+    }
+
+    @Override
+    public boolean contient(double x, double y) {
+        if (!(x >= minX && x <= maxX && y >= minY && y <= maxY)) {
+            return false;
+        }
+        int c = colonne(x);
+        int l = ligne(y);
+        int cellule = l * colonnes + c;
+        double rx = referenceX(c);
+        double ry = referenceY(l);
+        int enroulement = enroulements[cellule];
+        for (int a = debuts[cellule]; a < debuts[cellule + 1]; a++) {
+            int e = aretes[a];
+            int f = e + 1 < nombreSommets ? e + 1 : 0;
+            double xa = coords[2 * e];
+            double ya = coords[2 * e + 1];
+            double dx = coords[2 * f] - xa;
+            double dy = coords[2 * f + 1] - ya;
+            // côtés de l'arête où sont la référence et le point
+            double cr = dx * (ry - ya) - dy * (rx - xa);
+            double cp = dx * (y - ya) - dy * (x - xa);
+            if ((cr > 0) == (cp > 0)) {
+                continue;
+            }
+            // le segment coupe la droite de l'arête : entre ses deux extrémités ?
+            double sx = x - rx;
+            double sy = y - ry;
+            double ca = sx * (ya - ry) - sy * (xa - rx);
+            double cb = sx * (ya + dy - ry) - sy * (xa + dx - rx);
+            if ((ca > 0) != (cb > 0)) {
+                enroulement += cr > 0 ? 1 : -1;
+            }
+        }
+        return enroulement != 0;
+    }
+}
@@ -0,0 +1,75 @@
+package fr.univrennes.istic.l2gen.scratchpad;
+
+import fr.univrennes.istic.l2gen.geometrie.Polygone;
+import fr.univrennes.istic.l2gen.requete.Contenance;
+
+import java.util.Random;
+
+public class testContenance {
+    // indice d'enroulement par parcours de toutes les arêtes, règle non nulle de SVG
+    static int enroulement(double[] coords, double x, double y) {
+        int n = coords.length / 2;
+        int enroulement = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            double xa = coords[2 * i];
+            double ya = coords[2 * i + 1];
+            double xb = coords[2 * j];
+            double yb = coords[2 * j + 1];
+            if (ya == yb) {
+                continue;
+            }
+            double xHaut = ya < yb ? xa : xb;
+            double haut = Math.min(ya, yb);
+            double bas = Math.max(ya, yb);
+            if (haut <= y && y < bas && xHaut + (y - haut) * ((xb - xa) / (yb - ya)) < x) {
+                enroulement += ya < yb ? 1 : -1;
+            }
+        }
+        return enroulement;
+    }
+
+    static int comparer(double[] coords, Random hasard, int points, boolean bornes) {
+        Contenance contenance = Contenance.preparer(new Polygone(coords));
+        int erreurs = 0;
+        for (int p = 0; p < points; p++) {
+            double x = -2 + 14 * hasard.nextDouble();
+            // une fois sur deux à l'ordonnée exacte d'un sommet, pour tester les bornes des bandes
+            double y = bornes && p % 2 == 0 ? coords[2 * hasard.nextInt(coords.length / 2) + 1] : -2 + 14 * hasard.nextDouble();
+            if (contenance.contient(x, y) != (enroulement(coords, x, y) != 0)) {
+                erreurs++;
+            }
+        }
+        return erreurs;
+    }
+
+    public static void main(String[] args) {
+        // -0.0 et 0.0 sont une même ordonnée
+        double[] plat = {0, -0.0, 10, 0.0, 5, 10};
+        System.out.println("triangle -0.0/0.0 : " + comparer(plat, new Random(1), 1000, true) + " erreur(s)");
+
+        // polygones dégénérés : sommets répétés, alignés, arêtes horizontales, ±0.0, croisements
+        Random hasard = new Random(42);
+        double[] ordonnees = {-0.0, 0.0, 0.0, 5, 5, 10};
+        int erreurs = 0;
+        for (int essai = 0; essai < 2000; essai++) {
+            int n = 3 + hasard.nextInt(10);
+            double[] coords = new double[2 * n];
+            for (int i = 0; i < n; i++) {
+                coords[2 * i] = hasard.nextInt(4) * 10 / 3.0;
+                coords[2 * i + 1] = hasard.nextBoolean()
+                        ? ordonnees[hasard.nextInt(ordonnees.length)] : hasard.nextInt(11);
+            }
+            erreurs += comparer(coords, hasard, 200, true);
+        }
+        System.out.println("polygones degeneres : " + erreurs + " erreur(s)");
+
+        // assez d'arêtes longues pour passer par la grille ; elle ne suit pas la convention
+        // du lancer de rayon sur les bords (arêtes horizontales), seul l'intérieur est comparé
+        double[] grand = new double[2 * 2000];
+        for (int i = 0; i < grand.length; i++) {
+            grand[i] = i % 2 == 1 && hasard.nextInt(8) == 0 ? (hasard.nextBoolean() ? -0.0 : 0.0) : 10 * hasard.nextDouble();
+        }
+        System.out.println("grand polygone : " + comparer(grand, hasard, 20000, false) + " erreur(s)");
+    }
+}
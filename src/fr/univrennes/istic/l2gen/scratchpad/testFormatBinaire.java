@@ -0,0 +1,50 @@
+package fr.univrennes.istic.l2gen.scratchpad;
+
+import fr.univrennes.istic.l2gen.geometrie.Cercle;
+import fr.univrennes.istic.l2gen.geometrie.Fractale;
+import fr.univrennes.istic.l2gen.geometrie.Groupe;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Ligne;
+import fr.univrennes.istic.l2gen.geometrie.Polygone;
+import fr.univrennes.istic.l2gen.geometrie.Rectangle;
+import fr.univrennes.istic.l2gen.geometrie.Triangle;
+import fr.univrennes.istic.l2gen.stockage.FormatBinaire;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class testFormatBinaire {
+    static Groupe scene() {
+        Groupe scene = new Groupe();
+        scene.ajouter(new Cercle(256.25, 256, 128));
+        scene.ajouter(new Ligne(128, 128, 128, 256.5, 256, 128, 256, 256));
+        scene.ajouter(new Polygone(128, 128, 128, 256, 256, 128.125, 256, 256));
+        scene.ajouter(new Rectangle(256, 256, 256, 128));
+        scene.ajouter(new Triangle(192, 128, 256, 128, 256, 256.75));
+        Groupe deplace = new Groupe(new Cercle(10, 10, 5), new Groupe(new Triangle(0, 0, 10, 0, 5, 8)));
+        deplace.deplacer(0.1, -3.3);
+        scene.ajouter(deplace);
+        scene.ajouter(Fractale.quadrants(new Rectangle(64, 32, 128, 64), 2, 128, 64).developper());
+        return scene;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Groupe scene = scene();
+        Path fichier = Files.createTempFile("testFormatBinaire", ".l2gb");
+        try {
+            FormatBinaire.ecrire(scene, fichier);
+            IForme relue = FormatBinaire.ouvrir(fichier);
+            // le format enregistre les coordonnées réelles : les translations sont reportées
+            Groupe attendue = (Groupe) scene.dupliquer();
+            attendue.appliquerTranslation();
+            System.out.println(relue.description(0));
+            System.out.println(relue.enSVG());
+            System.out.println(attendue.enSVG().equals(relue.enSVG()) ? "enSVG identique" : "enSVG DIFFERENT");
+            System.out.println(attendue.description(0).equals(relue.description(0))
+                    ? "description identique" : "description DIFFERENTE");
+        } finally {
+            Files.deleteIfExists(fichier);
+        }
+    }
+}
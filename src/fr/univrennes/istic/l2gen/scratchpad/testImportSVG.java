@@ -0,0 +1,28 @@
+package fr.univrennes.istic.l2gen.scratchpad;
+
+import fr.univrennes.istic.l2gen.geometrie.Groupe;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.svg.ExportSVG;
+import fr.univrennes.istic.l2gen.svg.ImportSVG;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+public class testImportSVG {
+    public static void main(String[] args) throws IOException {
+        Groupe scene = testFormatBinaire.scene();
+        StringBuilder document = new StringBuilder();
+        ExportSVG.ecrireDocument(scene, 512, 512, document);
+
+        IForme relue = ImportSVG.lire(new StringReader(document.toString()));
+        StringBuilder reecrit = new StringBuilder();
+        ExportSVG.ecrireDocument(relue, 512, 512, reecrit);
+
+        System.out.println(relue.description(0));
+        System.out.println(reecrit);
+        // les sommets et les translations sont écrits sans perte, cercles et rectangles
+        // à la précision courante : relire le document doit redonner le même document
+        System.out.println(document.toString().equals(reecrit.toString()) ? "document identique" : "document DIFFERENT");
+        System.out.println(scene.enSVG().equals(relue.enSVG()) ? "enSVG identique" : "enSVG DIFFERENT");
+    }
+}
@@ -0,0 +1,184 @@
+package fr.univrennes.istic.l2gen.stockage;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.Groupe;
+import fr.univrennes.istic.l2gen.geometrie.IComposite;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Point;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Composite lu dans un fichier binaire projeté en mémoire ({@link FormatBinaire}).
+ * </br>
+ * Seuls la boîte englobante, le centre et le nombre de formes sont lus à la création ;
+ * chaque appel à {@link #forme(int)} crée la forme à partir du fichier. Rien n'est gardé
+ * en mémoire : parcourir une branche puis l'abandonner ne laisse rien derrière soi.
+ * </br>
+ * Le composite est en lecture seule : les opérations qui le modifieraient lèvent une
+ * {@link IllegalStateException}. {@link #dupliquer()} le charge en un {@link Groupe}.
+ */
+final class CompositeMappe implements IComposite {
+    private final FichierMappe mappe;
+    private final Boite boite;
+    private final Point centre;
+    private final Groupe.PolitiqueCentre politiqueCentre;
+    private final int nombre;
+    private final long positions;
+
+    /**
+     * @param mappe    Le fichier projeté.
+     * @param position Position du composite, juste après son octet de type.
+     */
+    CompositeMappe(FichierMappe mappe, long position) {
+        this.mappe = mappe;
+        double[] valeurs = new double[6];
+        mappe.lireDoubles(position, valeurs);
+        position += valeurs.length * Double.BYTES;
+        this.politiqueCentre = Groupe.PolitiqueCentre.values()[mappe.lireOctet(position)];
+        this.nombre = mappe.lireInt(position + 1);
+        this.positions = position + 1 + Integer.BYTES;
+        this.boite = nombre == 0 ? null : new Boite(valeurs[0], valeurs[1], valeurs[2], valeurs[3]);
+        this.centre = nombre == 0 ? null : new Point(valeurs[4], valeurs[5]);
+    }
+
+    /**
+     * @return La politique de calcul du centre du groupe enregistré.
+     */
+    Groupe.PolitiqueCentre politiqueCentre() {
+        return politiqueCentre;
+    }
+
+    @Override
+    public int nombreFormes() {
+        return nombre;
+    }
+
+    /**
+     * Crée la forme d'indice i à partir du fichier. Chaque appel retourne une nouvelle
+     * instance.
+     *
+     * @param i Indice de la forme.
+     * @return La forme d'indice i.
+     * @throws IndexOutOfBoundsException Si l'indice est hors des bornes.
+     */
+    @Override
+    public IForme forme(int i) {
+        if (i < 0 || i >= nombre) {
+            throw new IndexOutOfBoundsException("Indice " + i + " hors des bornes [0, " + nombre + "[.");
+        }
+        return FormatBinaire.lire(mappe, mappe.lireLong(positions + (long) i * Long.BYTES));
+    }
+
+    /**
+     * @return La boîte englobante enregistrée, sans lire les formes.
+     * @throws IllegalStateException Si le composite ne contient aucune forme.
+     */
+    @Override
+    public Boite boite() {
+        if (boite == null) {
+            throw new IllegalStateException("Le Groupe ne contient aucune forme.");
+        }
+        return boite;
+    }
+
+    /**
+     * @return Le centre enregistré, sans lire les formes.
+     * @throws IllegalStateException Si le composite ne contient aucune forme.
+     */
+    @Override
+    public Point centre() {
+        if (centre == null) {
+            throw new IllegalStateException("Le Groupe ne contient aucune forme.");
+        }
+        return centre;
+    }
+
+    @Override
+    public double hauteur() {
+        return boite().hauteur();
+    }
+
+    @Override
+    public double largeur() {
+        return boite().largeur();
+    }
+
+    @Override
+    public String description(int indentation) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("  ".repeat(indentation)).append("Groupe\n");
+        for (int i = 0; i < nombre; i++) {
+            sb.append(forme(i).description(indentation + 1));
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Écrit la représentation SVG du composite, identique à celle du groupe enregistré.
+     * Les formes sont lues au fil de l'écriture.
+     *
+     * @param sortie La sortie dans laquelle écrire les balises SVG.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    @Override
+    public void enSVG(Appendable sortie) throws IOException {
+        debutSVG(sortie);
+        for (int i = 0; i < nombre; i++) {
+            sortie.append("  ");
+            forme(i).enSVG(sortie);
+            sortie.append("\n");
+        }
+        finSVG(sortie);
+    }
+
+    @Override
+    public String enSVG() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            enSVG(sb);
+        } catch (IOException e) {
+            // un StringBuilder ne lève jamais d'IOException
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Charge le composite et toutes ses formes en mémoire.
+     *
+     * @return Un {@link Groupe} modifiable équivalent.
+     */
+    @Override
+    public IForme dupliquer() {
+        IForme[] formes = new IForme[nombre];
+        for (int i = 0; i < nombre; i++) {
+            IForme forme = forme(i);
+            formes[i] = forme instanceof CompositeMappe ? forme.dupliquer() : forme;
+        }
+        Groupe groupe = new Groupe(formes);
+        groupe.setPolitiqueCentre(politiqueCentre);
+        return groupe;
+    }
+
+    @Override
+    public void deplacer(double x, double y) {
+        throw lectureSeule();
+    }
+
+    @Override
+    public void redimensionner(double largeur, double hauteur) {
+        throw lectureSeule();
+    }
+
+    @Override
+    public IForme fractale(IForme base, int profondeur) {
+        throw lectureSeule();
+    }
+
+    private static IllegalStateException lectureSeule() {
+        return new IllegalStateException("La scène est en lecture seule : utiliser dupliquer() pour la modifier.");
+    }
+}
@@ -0,0 +1,106 @@
+package fr.univrennes.istic.l2gen.stockage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fichier projeté en mémoire en lecture seule, adressable sur 64 bits.
+ * </br>
+ * Une projection ({@link FileChannel#map}) ne peut pas dépasser 2 Go : le fichier est donc
+ * projeté en segments de taille fixe, qui se chevauchent de 8 octets pour qu'une valeur
+ * commençant dans un segment y soit toujours lue en entier. La projection ne lit rien :
+ * le système charge les pages à la première lecture, et ouvrir un fichier de plusieurs
+ * gigaoctets ne coûte que quelques appels système.
+ * </br>
+ * Les lectures sont absolues et ne modifient pas les tampons : elles peuvent être faites
+ * depuis plusieurs threads à la fois.
+ */
+final class FichierMappe {
+    /**
+     * Segments de 1 Go.
+     */
+    static final int BITS_SEGMENT = 30;
+    private static final int CHEVAUCHEMENT = Long.BYTES;
+
+    private final ByteBuffer[] segments;
+    private final int bitsSegment;
+    private final long masque;
+    private final long taille;
+
+    private FichierMappe(ByteBuffer[] segments, int bitsSegment, long taille) {
+        this.segments = segments;
+        this.bitsSegment = bitsSegment;
+        this.masque = (1L << bitsSegment) - 1;
+        this.taille = taille;
+    }
+
+    /**
+     * Projette un fichier en mémoire, en segments de 2^bitsSegment octets.
+     *
+     * @param fichier     Le fichier à projeter.
+     * @param bitsSegment Logarithme en base 2 de la taille d'un segment, au plus 30.
+     * @return Le fichier projeté.
+     * @throws IOException Si le fichier ne peut pas être ouvert ou projeté.
+     */
+    static FichierMappe ouvrir(Path fichier, int bitsSegment) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            long taille = canal.size();
+            long tailleSegment = 1L << bitsSegment;
+            int nombre = (int) Math.max(1, (taille + tailleSegment - 1) >>> bitsSegment);
+            ByteBuffer[] segments = new ByteBuffer[nombre];
+            for (int k = 0; k < nombre; k++) {
+                long debut = k * tailleSegment;
+                long longueur = Math.min(taille - debut, tailleSegment + CHEVAUCHEMENT);
+                segments[k] = canal.map(FileChannel.MapMode.READ_ONLY, debut, longueur);
+            }
+            // la projection reste valide après la fermeture du canal
+            return new FichierMappe(segments, bitsSegment, taille);
+        }
+    }
+
+    /**
+     * @return La taille du fichier, en octets.
+     */
+    long taille() {
+        return taille;
+    }
+
+    byte lireOctet(long position) {
+        return segment(position).get(decalage(position));
+    }
+
+    int lireInt(long position) {
+        return segment(position).getInt(decalage(position));
+    }
+
+    long lireLong(long position) {
+        return segment(position).getLong(decalage(position));
+    }
+
+    double lireDouble(long position) {
+        return segment(position).getDouble(decalage(position));
+    }
+
+    /**
+     * Lit des doubles consécutifs.
+     *
+     * @param position Position du premier double.
+     * @param cible    Le tableau à remplir.
+     */
+    void lireDoubles(long position, double[] cible) {
+        for (int i = 0; i < cible.length; i++) {
+            cible[i] = lireDouble(position + (long) i * Double.BYTES);
+        }
+    }
+
+    private ByteBuffer segment(long position) {
+        return segments[(int) (position >>> bitsSegment)];
+    }
+
+    private int decalage(long position) {
+        return (int) (position & masque);
+    }
+}
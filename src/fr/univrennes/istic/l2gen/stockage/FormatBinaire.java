@@ -0,0 +1,262 @@
+package fr.univrennes.istic.l2gen.stockage;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.Cercle;
+import fr.univrennes.istic.l2gen.geometrie.Groupe;
+import fr.univrennes.istic.l2gen.geometrie.IComposite;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Ligne;
+import fr.univrennes.istic.l2gen.geometrie.Point;
+import fr.univrennes.istic.l2gen.geometrie.Polygone;
+import fr.univrennes.istic.l2gen.geometrie.Rectangle;
+import fr.univrennes.istic.l2gen.geometrie.Triangle;
+import fr.univrennes.istic.l2gen.geometrie.VueSommets;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Format binaire compact pour enregistrer un arbre de formes et le relire sans le charger.
+ * </br>
+ * Le fichier commence par un nombre magique et une version, et se termine par la position
+ * de la forme racine. Chaque forme est un octet de type suivi de ses coordonnées en doubles
+ * (gros-boutistes) :
+ * <ul>
+ *     <li>{@link Cercle} : centre et rayon ;</li>
+ *     <li>{@link Rectangle} : centre, largeur et hauteur ;</li>
+ *     <li>{@link Triangle} : les trois sommets ;</li>
+ *     <li>{@link Polygone}, {@link Ligne} : nombre de sommets, puis les sommets ;</li>
+ *     <li>composite ({@link IComposite}) : boîte englobante, centre, politique de centre,
+ *     nombre de formes, puis la position de chaque forme.</li>
+ * </ul>
+ * Les formes d'un composite sont écrites avant lui : l'écriture se fait en un seul passage,
+ * sans retour en arrière. Les translations des groupes sont appliquées aux coordonnées
+ * écrites.
+ * </br>
+ * {@link #ouvrir(Path)} projette le fichier en mémoire et retourne la racine sans rien lire
+ * d'autre : un composite n'est qu'une position dans le fichier, et ses formes ne sont créées
+ * qu'à l'appel de {@link IComposite#forme(int)}. Sa boîte englobante et son centre étant
+ * enregistrés, un export ({@link fr.univrennes.istic.l2gen.svg.ExportSVGVue} par exemple)
+ * peut écarter une branche entière sans la lire.
+ */
+public final class FormatBinaire {
+    static final int MAGIQUE = 0x4C324742; // "L2GB"
+    static final int VERSION = 1;
+
+    static final byte CERCLE = 1;
+    static final byte RECTANGLE = 2;
+    static final byte TRIANGLE = 3;
+    static final byte POLYGONE = 4;
+    static final byte LIGNE = 5;
+    static final byte COMPOSITE = 6;
+
+    private static final int TAILLE_TAMPON = 1 << 16;
+
+    private FormatBinaire() {
+    }
+
+    /**
+     * Enregistre un arbre de formes dans un fichier binaire.
+     * </br>
+     * Le fichier est écrit à côté puis renommé : une scène ouverte depuis ce fichier reste
+     * lisible pendant et après l'écriture, et peut donc y être réenregistrée.
+     *
+     * @param forme   La forme à enregistrer.
+     * @param fichier Le fichier à créer ou à remplacer.
+     * @throws IOException Si l'écriture du fichier échoue.
+     * @throws IllegalArgumentException Si l'arbre contient une forme étrangère au paquetage
+     *                                  {@code geometrie}.
+     */
+    public static void ecrire(IForme forme, Path fichier) throws IOException {
+        Path dossier = fichier.toAbsolutePath().getParent();
+        Path temporaire = Files.createTempFile(dossier, fichier.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream sortie = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporaire), TAILLE_TAMPON))) {
+                Ecriture ecriture = new Ecriture(sortie);
+                sortie.writeInt(MAGIQUE);
+                sortie.writeInt(VERSION);
+                ecriture.position = 2 * Integer.BYTES;
+                long racine = ecriture.ecrire(forme, 0, 0);
+                sortie.writeLong(racine);
+            }
+            Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+    }
+
+    /**
+     * Ouvre un fichier binaire en le projetant en mémoire. Seuls l'en-tête et la racine
+     * sont lus : les formes sont créées à la demande, lors du parcours de l'arbre.
+     * </br>
+     * Les composites retournés sont en lecture seule ; {@link IForme#dupliquer()} les
+     * charge en un {@link Groupe} modifiable.
+     *
+     * @param fichier Le fichier à ouvrir.
+     * @return La forme racine.
+     * @throws IOException Si le fichier ne peut pas être lu ou n'est pas au bon format.
+     */
+    public static IForme ouvrir(Path fichier) throws IOException {
+        FichierMappe mappe = FichierMappe.ouvrir(fichier, FichierMappe.BITS_SEGMENT);
+        return ouvrir(mappe, fichier);
+    }
+
+    static IForme ouvrir(FichierMappe mappe, Path fichier) throws IOException {
+        if (mappe.taille() < 2 * Integer.BYTES + Long.BYTES || mappe.lireInt(0) != MAGIQUE) {
+            throw new IOException(fichier + " n'est pas un fichier de formes binaire.");
+        }
+        if (mappe.lireInt(Integer.BYTES) != VERSION) {
+            throw new IOException(fichier + " : version " + mappe.lireInt(Integer.BYTES) + " non prise en charge.");
+        }
+        return lire(mappe, mappe.lireLong(mappe.taille() - Long.BYTES));
+    }
+
+    /**
+     * Crée la forme enregistrée à une position. Un composite est retourné sans lire ses
+     * formes.
+     */
+    static IForme lire(FichierMappe mappe, long position) {
+        byte type = mappe.lireOctet(position);
+        long p = position + 1;
+        switch (type) {
+            case CERCLE:
+                return new Cercle(mappe.lireDouble(p), mappe.lireDouble(p + 8), mappe.lireDouble(p + 16));
+            case RECTANGLE:
+                return new Rectangle(mappe.lireDouble(p), mappe.lireDouble(p + 8),
+                        mappe.lireDouble(p + 16), mappe.lireDouble(p + 24));
+            case TRIANGLE:
+                double[] t = new double[6];
+                mappe.lireDoubles(p, t);
+                return new Triangle(t[0], t[1], t[2], t[3], t[4], t[5]);
+            case POLYGONE:
+                return new Polygone(lireSommets(mappe, p));
+            case LIGNE:
+                return new Ligne(lireSommets(mappe, p));
+            case COMPOSITE:
+                return new CompositeMappe(mappe, p);
+            default:
+                throw new IllegalStateException("Type de forme inconnu " + type + " a la position " + position + ".");
+        }
+    }
+
+    private static double[] lireSommets(FichierMappe mappe, long position) {
+        double[] coords = new double[2 * mappe.lireInt(position)];
+        mappe.lireDoubles(position + Integer.BYTES, coords);
+        return coords;
+    }
+
+    /**
+     * Écriture en profondeur d'un arbre de formes, qui suit la position courante dans le
+     * fichier pour que les composites puissent référencer leurs formes.
+     */
+    private static final class Ecriture {
+        private final DataOutputStream sortie;
+        private long position;
+
+        Ecriture(DataOutputStream sortie) {
+            this.sortie = sortie;
+        }
+
+        /**
+         * Écrit une forme déplacée de (dx, dy), après les formes qu'elle contient.
+         *
+         * @return La position de la forme dans le fichier.
+         */
+        long ecrire(IForme forme, double dx, double dy) throws IOException {
+            if (forme instanceof IComposite composite) {
+                return ecrireComposite(composite, dx, dy);
+            }
+
+            long debut = position;
+            if (forme instanceof Cercle) {
+                Point centre = forme.centre();
+                type(CERCLE);
+                doubles(centre.x() + dx, centre.y() + dy, forme.hauteur() / 2);
+            } else if (forme instanceof Rectangle) {
+                Point centre = forme.centre();
+                type(RECTANGLE);
+                doubles(centre.x() + dx, centre.y() + dy, forme.largeur(), forme.hauteur());
+            } else if (forme instanceof Triangle triangle) {
+                type(TRIANGLE);
+                sommets(triangle.sommets(), dx, dy, false);
+            } else if (forme instanceof Polygone polygone) {
+                type(POLYGONE);
+                sommets(polygone.sommets(), dx, dy, true);
+            } else if (forme instanceof Ligne ligne) {
+                type(LIGNE);
+                sommets(ligne.sommets(), dx, dy, true);
+            } else {
+                throw new IllegalArgumentException("Forme non prise en charge : " + forme.getClass().getName());
+            }
+            return debut;
+        }
+
+        private long ecrireComposite(IComposite composite, double dx, double dy) throws IOException {
+            int nombre = composite.nombreFormes();
+            double fx = dx + composite.translationX();
+            double fy = dy + composite.translationY();
+            long[] positions = new long[nombre];
+            for (int i = 0; i < nombre; i++) {
+                positions[i] = ecrire(composite.forme(i), fx, fy);
+            }
+
+            long debut = position;
+            type(COMPOSITE);
+            if (nombre == 0) {
+                // ni boîte ni centre pour un composite vide
+                doubles(Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+            } else {
+                Boite boite = composite.boite();
+                Point centre = composite.centre();
+                doubles(boite.minX() + dx, boite.minY() + dy, boite.maxX() + dx, boite.maxY() + dy,
+                        centre.x() + dx, centre.y() + dy);
+            }
+            sortie.writeByte(politiqueCentre(composite).ordinal());
+            sortie.writeInt(nombre);
+            for (long p : positions) {
+                sortie.writeLong(p);
+            }
+            position += 1 + Integer.BYTES + (long) nombre * Long.BYTES;
+            return debut;
+        }
+
+        private static Groupe.PolitiqueCentre politiqueCentre(IComposite composite) {
+            if (composite instanceof Groupe groupe) {
+                return groupe.getPolitiqueCentre();
+            }
+            if (composite instanceof CompositeMappe mappe) {
+                return mappe.politiqueCentre();
+            }
+            return Groupe.PolitiqueCentre.DIAMETRE;
+        }
+
+        private void type(byte type) throws IOException {
+            sortie.writeByte(type);
+            position++;
+        }
+
+        private void doubles(double... valeurs) throws IOException {
+            for (double valeur : valeurs) {
+                sortie.writeDouble(valeur);
+            }
+            position += (long) valeurs.length * Double.BYTES;
+        }
+
+        private void sommets(VueSommets sommets, double dx, double dy, boolean nombre) throws IOException {
+            if (nombre) {
+                sortie.writeInt(sommets.size());
+                position += Integer.BYTES;
+            }
+            for (int i = 0; i < sommets.size(); i++) {
+                sortie.writeDouble(sommets.x(i) + dx);
+                sortie.writeDouble(sommets.y(i) + dy);
+            }
+            position += 2L * sommets.size() * Double.BYTES;
+        }
+    }
+}
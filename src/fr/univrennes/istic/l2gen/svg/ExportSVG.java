@@ -0,0 +1,148 @@
+package fr.univrennes.istic.l2gen.svg;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.FormatNombre;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Export d'une forme sous forme de document SVG complet.
+ * </br>
+ * Le document est écrit au fil de l'eau dans un canal de fichier tamponné : chaque forme
+ * écrit sa balise directement dans le tampon via {@link IForme#enSVG(Appendable)}, si bien
+ * que la mémoire utilisée ne dépend pas de la taille de la scène.
+ */
+public final class ExportSVG {
+    private static final int TAILLE_TAMPON = 1 << 16;
+
+    private ExportSVG() {
+    }
+
+    /**
+     * Exporte une forme dans un fichier SVG, dimensionné pour contenir sa boîte englobante.
+     *
+     * @param forme   La forme à exporter.
+     * @param fichier Le fichier à créer ou à remplacer.
+     * @throws IOException Si l'écriture du fichier échoue.
+     */
+    public static void exporter(IForme forme, Path fichier) throws IOException {
+        Boite boite = forme.boite();
+        exporter(forme, fichier, dimension(boite.maxX()), dimension(boite.maxY()));
+    }
+
+    /**
+     * Exporte une forme dans un fichier SVG de dimensions données.
+     *
+     * @param forme   La forme à exporter.
+     * @param fichier Le fichier à créer ou à remplacer.
+     * @param largeur Largeur du document, en pixels.
+     * @param hauteur Hauteur du document, en pixels.
+     * @throws IOException Si l'écriture du fichier échoue.
+     */
+    public static void exporter(IForme forme, Path fichier, int largeur, int hauteur) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer sortie = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8), TAILLE_TAMPON)) {
+            ecrireDocument(forme, largeur, hauteur, sortie);
+        }
+    }
+
+    /**
+     * Écrit un document SVG complet, balise {@code <svg>} comprise, contenant la forme.
+     *
+     * @param forme   La forme à écrire.
+     * @param largeur Largeur du document, en pixels.
+     * @param hauteur Hauteur du document, en pixels.
+     * @param sortie  La sortie dans laquelle écrire le document.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    public static void ecrireDocument(IForme forme, int largeur, int hauteur, Appendable sortie) throws IOException {
+        ouvrirDocument(largeur, hauteur, sortie);
+        forme.enSVG(sortie);
+        fermerDocument(sortie);
+    }
+
+    /**
+     * Écrit la balise ouvrante {@code <svg>} d'un document.
+     *
+     * @param largeur Largeur du document, en pixels.
+     * @param hauteur Hauteur du document, en pixels.
+     * @param sortie  La sortie dans laquelle écrire.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    static void ouvrirDocument(int largeur, int hauteur, Appendable sortie) throws IOException {
+        ouvrirDocument(largeur, hauteur, false, sortie);
+    }
+
+    /**
+     * Écrit la balise ouvrante {@code <svg>} d'un document, en déclarant si besoin l'espace de
+     * noms XLink utilisé par les balises {@code <use>}.
+     *
+     * @param largeur Largeur du document, en pixels.
+     * @param hauteur Hauteur du document, en pixels.
+     * @param xlink   Vrai pour déclarer l'espace de noms XLink.
+     * @param sortie  La sortie dans laquelle écrire.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    static void ouvrirDocument(int largeur, int hauteur, boolean xlink, Appendable sortie) throws IOException {
+        ouvrirDocument(largeur, hauteur, null, xlink, sortie);
+    }
+
+    /**
+     * Écrit la balise ouvrante {@code <svg>} d'un document, avec si besoin la zone de la scène
+     * affichée ({@code viewBox}) et l'espace de noms XLink.
+     *
+     * @param largeur Largeur du document, en pixels.
+     * @param hauteur Hauteur du document, en pixels.
+     * @param vue     Zone de la scène affichée dans le document, ou null pour l'origine à
+     *                l'échelle 1.
+     * @param xlink   Vrai pour déclarer l'espace de noms XLink.
+     * @param sortie  La sortie dans laquelle écrire.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    static void ouvrirDocument(int largeur, int hauteur, Boite vue, boolean xlink, Appendable sortie)
+            throws IOException {
+        sortie.append("<svg version=\"1.1\"\n")
+                .append("     baseProfile=\"full\"\n")
+                .append("     width=\"").append(Integer.toString(largeur))
+                .append("\" height=\"").append(Integer.toString(hauteur)).append("\"\n");
+        if (vue != null) {
+            // pleine précision : des vues voisines, comme des tuiles, doivent se raccorder exactement
+            sortie.append("     viewBox=\"");
+            FormatNombre.ecrire(sortie, vue.minX(), FormatNombre.PRECISION_MAX);
+            sortie.append(' ');
+            FormatNombre.ecrire(sortie, vue.minY(), FormatNombre.PRECISION_MAX);
+            sortie.append(' ');
+            FormatNombre.ecrire(sortie, vue.largeur(), FormatNombre.PRECISION_MAX);
+            sortie.append(' ');
+            FormatNombre.ecrire(sortie, vue.hauteur(), FormatNombre.PRECISION_MAX);
+            sortie.append("\"\n");
+        }
+        if (xlink) {
+            sortie.append("     xmlns:xlink=\"http://www.w3.org/1999/xlink\"\n");
+        }
+        sortie.append("     xmlns=\"http://www.w3.org/2000/svg\">\n");
+    }
+
+    /**
+     * Écrit la balise fermante {@code </svg>} d'un document.
+     *
+     * @param sortie La sortie dans laquelle écrire.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    static void fermerDocument(Appendable sortie) throws IOException {
+        sortie.append("\n</svg>\n");
+    }
+
+    static int dimension(double max) {
+        return (int) Math.max(1, Math.ceil(max));
+    }
+}
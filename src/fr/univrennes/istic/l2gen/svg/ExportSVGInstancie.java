@@ -0,0 +1,188 @@
+package fr.univrennes.istic.l2gen.svg;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.FormatNombre;
+import fr.univrennes.istic.l2gen.geometrie.IComposite;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Ligne;
+import fr.univrennes.istic.l2gen.geometrie.Polygone;
+import fr.univrennes.istic.l2gen.geometrie.Triangle;
+import fr.univrennes.istic.l2gen.geometrie.VueSommets;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Export d'une forme en document SVG dont les sous-arbres répétés ne sont écrits qu'une fois.
+ * </br>
+ * Chaque forme et chaque composite ({@link IComposite}) est ramené à l'origine : le coin
+ * inférieur de sa boîte englobante sert d'ancre. Deux sous-arbres identiques à une
+ * translation près ont alors le même code SVG ; celui-ci est écrit une seule fois dans
+ * {@code <defs>}, et chaque occurrence devient une balise
+ * {@code <use xlink:href="#..." transform="translate(x,y)"/>}. Pour une fractale, où les
+ * copies d'un même niveau ne diffèrent que par leur position, le document ne contient plus
+ * qu'une définition par niveau et par taille au lieu d'une balise par forme.
+ * </br>
+ * Les formes sont comparées après arrondi à la précision de {@link FormatNombre} : deux
+ * formes qui ne diffèrent que sous cette précision partagent la même définition. Les
+ * sommets d'un {@link Polygone}, d'une {@link Ligne} ou d'un {@link Triangle}, que leur
+ * propre sortie SVG écrit sans arrondi, sont donc écrits ici à cette précision. Les
+ * décalages des balises {@code <use>} sont écrits avec deux décimales de plus, pour que
+ * l'erreur ne s'accumule pas d'un niveau à l'autre.
+ */
+public final class ExportSVGInstancie {
+    private static final int TAILLE_TAMPON = 1 << 16;
+
+    private final Appendable sortie;
+    private final int precisionDecalage;
+    private final Map<String, Integer> identifiants = new HashMap<>();
+
+    private ExportSVGInstancie(Appendable sortie) {
+        this.sortie = sortie;
+        this.precisionDecalage = Math.min(FormatNombre.PRECISION_MAX, FormatNombre.getPrecision() + 2);
+    }
+
+    /**
+     * Exporte une forme dans un fichier SVG instancié, dimensionné pour contenir sa boîte
+     * englobante.
+     *
+     * @param forme   La forme à exporter.
+     * @param fichier Le fichier à créer ou à remplacer.
+     * @throws IOException Si l'écriture du fichier échoue.
+     */
+    public static void exporter(IForme forme, Path fichier) throws IOException {
+        Boite boite = forme.boite();
+        exporter(forme, fichier, ExportSVG.dimension(boite.maxX()), ExportSVG.dimension(boite.maxY()));
+    }
+
+    /**
+     * Exporte une forme dans un fichier SVG instancié de dimensions données.
+     *
+     * @param forme   La forme à exporter.
+     * @param fichier Le fichier à créer ou à remplacer.
+     * @param largeur Largeur du document, en pixels.
+     * @param hauteur Hauteur du document, en pixels.
+     * @throws IOException Si l'écriture du fichier échoue.
+     */
+    public static void exporter(IForme forme, Path fichier, int largeur, int hauteur) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer sortie = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8), TAILLE_TAMPON)) {
+            ecrireDocument(forme, largeur, hauteur, sortie);
+        }
+    }
+
+    /**
+     * Écrit un document SVG complet dans lequel chaque sous-arbre distinct de la forme
+     * n'est défini qu'une fois.
+     *
+     * @param forme   La forme à écrire.
+     * @param largeur Largeur du document, en pixels.
+     * @param hauteur Hauteur du document, en pixels.
+     * @param sortie  La sortie dans laquelle écrire le document.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    public static void ecrireDocument(IForme forme, int largeur, int hauteur, Appendable sortie) throws IOException {
+        ExportSVGInstancie export = new ExportSVGInstancie(sortie);
+        ExportSVG.ouvrirDocument(largeur, hauteur, true, sortie);
+        sortie.append("<defs>\n");
+        double[] ancre = ancre(forme);
+        int racine = export.definir(forme, ancre);
+        sortie.append("</defs>\n");
+        export.utiliser(racine, ancre[0], ancre[1], sortie);
+        ExportSVG.fermerDocument(sortie);
+    }
+
+    /**
+     * Retourne l'identifiant de la définition d'une forme ramenée à l'origine, en écrivant
+     * cette définition si elle n'existe pas encore. Les formes d'un composite sont définies
+     * avant lui.
+     */
+    private int definir(IForme forme, double[] ancre) throws IOException {
+        StringBuilder contenu = new StringBuilder();
+        if (forme instanceof IComposite composite) {
+            // les ancres des formes filles sont dans le repère du composite, avant sa translation
+            double x = composite.translationX() - ancre[0];
+            double y = composite.translationY() - ancre[1];
+            for (int i = 0; i < composite.nombreFormes(); i++) {
+                IForme fille = composite.forme(i);
+                double[] ancreFille = ancre(fille);
+                int id = definir(fille, ancreFille);
+                contenu.append("  ");
+                utiliser(id, ancreFille[0] + x, ancreFille[1] + y, contenu);
+            }
+        } else if (forme instanceof Polygone polygone) {
+            ecrireSommets("polygon", polygone.sommets(), ancre, contenu);
+        } else if (forme instanceof Triangle triangle) {
+            ecrireSommets("polygon", triangle.sommets(), ancre, contenu);
+        } else if (forme instanceof Ligne ligne) {
+            ecrireSommets("polyline", ligne.sommets(), ancre, contenu);
+        } else {
+            IForme copie = forme.dupliquer();
+            copie.deplacer(-ancre[0], -ancre[1]);
+            copie.enSVG(contenu);
+            contenu.append('\n');
+        }
+
+        String cle = contenu.toString();
+        Integer id = identifiants.get(cle);
+        if (id == null) {
+            id = identifiants.size();
+            identifiants.put(cle, id);
+            sortie.append("<g id=\"f").append(Integer.toString(id)).append("\">\n")
+                    .append(cle)
+                    .append("</g>\n");
+        }
+        return id;
+    }
+
+    /**
+     * Écrit une forme à sommets ramenée à l'origine, sommets arrondis à la précision de
+     * {@link FormatNombre}, sans copier ni modifier la forme.
+     */
+    private static void ecrireSommets(String balise, VueSommets sommets, double[] ancre, Appendable sortie)
+            throws IOException {
+        sortie.append('<').append(balise).append(" points=\"");
+        for (int i = 0; i < sommets.size(); i++) {
+            if (i > 0) {
+                sortie.append(' ');
+            }
+            FormatNombre.ecrire(sortie, sommets.x(i) - ancre[0]);
+            sortie.append(',');
+            FormatNombre.ecrire(sortie, sommets.y(i) - ancre[1]);
+        }
+        sortie.append("\" fill=\"white\" stroke=\"black\" />\n");
+    }
+
+    private void utiliser(int id, double x, double y, Appendable sortie) throws IOException {
+        sortie.append("<use xlink:href=\"#f").append(Integer.toString(id)).append('"');
+        if (x != 0 || y != 0) {
+            sortie.append(" transform=\"translate(");
+            FormatNombre.ecrire(sortie, x, precisionDecalage);
+            sortie.append(',');
+            FormatNombre.ecrire(sortie, y, precisionDecalage);
+            sortie.append(")\"");
+        }
+        sortie.append("/>\n");
+    }
+
+    /**
+     * Retourne le coin inférieur de la boîte englobante d'une forme, ou l'origine pour un
+     * composite vide.
+     */
+    private static double[] ancre(IForme forme) {
+        if (forme instanceof IComposite composite && composite.nombreFormes() == 0) {
+            return new double[] {0, 0};
+        }
+        Boite boite = forme.boite();
+        return new double[] {boite.minX(), boite.minY()};
+    }
+}
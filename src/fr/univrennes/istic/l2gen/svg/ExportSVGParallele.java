@@ -0,0 +1,256 @@
+package fr.univrennes.istic.l2gen.svg;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.IComposite;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Export SVG d'un arbre de formes réparti sur plusieurs cœurs.
+ * </br>
+ * Le fil d'exécution appelant parcourt l'arbre dans l'ordre du document et le découpe en
+ * lots d'environ {@value #TAILLE_LOT} formes (estimées d'après la première forme de chaque
+ * composite) : des sous-arbres entiers, avec les balises des
+ * composites ({@link IComposite}) qui les entourent. Chaque lot est écrit dans son propre
+ * tampon par une tâche du pool, et les tampons sont écrits dans la sortie dans l'ordre des
+ * lots, dès qu'ils sont prêts : le document est identique, octet pour octet, à celui de
+ * {@link ExportSVG}. Seuls quelques lots par fil d'exécution sont en cours à la fois ; le
+ * parcours attend que le plus ancien soit écrit avant d'en lancer un autre. La mémoire
+ * utilisée dépend ainsi du nombre de cœurs, et non de la taille du document.
+ * </br>
+ * Les formes ne sont que lues pendant l'export : elles ne doivent pas être modifiées
+ * pendant ce temps.
+ */
+public final class ExportSVGParallele {
+    private static final int TAILLE_TAMPON = 1 << 16;
+    // nombre de formes simples d'un lot
+    private static final int TAILLE_LOT = 1024;
+    // nombre de lots en cours, par fil d'exécution du pool
+    private static final int LOTS_PAR_FIL = 4;
+
+    private ExportSVGParallele() {
+    }
+
+    /**
+     * Exporte une forme dans un fichier SVG, dimensionné pour contenir sa boîte englobante,
+     * en utilisant le pool fork/join commun.
+     *
+     * @param forme   La forme à exporter.
+     * @param fichier Le fichier à créer ou à remplacer.
+     * @throws IOException Si l'écriture du fichier échoue.
+     */
+    public static void exporter(IForme forme, Path fichier) throws IOException {
+        Boite boite = forme.boite();
+        exporter(forme, fichier, ExportSVG.dimension(boite.maxX()), ExportSVG.dimension(boite.maxY()),
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Exporte une forme dans un fichier SVG de dimensions données.
+     *
+     * @param forme   La forme à exporter.
+     * @param fichier Le fichier à créer ou à remplacer.
+     * @param largeur Largeur du document, en pixels.
+     * @param hauteur Hauteur du document, en pixels.
+     * @param pool    Le pool dans lequel exécuter les tâches.
+     * @throws IOException Si l'écriture du fichier échoue.
+     */
+    public static void exporter(IForme forme, Path fichier, int largeur, int hauteur, ForkJoinPool pool)
+            throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer sortie = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8), TAILLE_TAMPON)) {
+            ecrireDocument(forme, largeur, hauteur, sortie, pool);
+        }
+    }
+
+    /**
+     * Écrit un document SVG complet, balise {@code <svg>} comprise, contenant la forme.
+     *
+     * @param forme   La forme à écrire.
+     * @param largeur Largeur du document, en pixels.
+     * @param hauteur Hauteur du document, en pixels.
+     * @param sortie  La sortie dans laquelle écrire le document.
+     * @param pool    Le pool dans lequel exécuter les tâches.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    public static void ecrireDocument(IForme forme, int largeur, int hauteur, Appendable sortie, ForkJoinPool pool)
+            throws IOException {
+        ExportSVG.ouvrirDocument(largeur, hauteur, sortie);
+        ecrire(forme, sortie, pool);
+        ExportSVG.fermerDocument(sortie);
+    }
+
+    /**
+     * Écrit le code SVG d'une forme, identique à {@link IForme#enSVG(Appendable)}.
+     *
+     * @param forme  La forme à écrire.
+     * @param sortie La sortie dans laquelle écrire.
+     * @param pool   Le pool dans lequel exécuter les tâches.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    public static void ecrire(IForme forme, Appendable sortie, ForkJoinPool pool) throws IOException {
+        Decoupage decoupage = new Decoupage(sortie, pool);
+        try {
+            decoupage.parcourir(forme);
+            decoupage.terminer();
+        } finally {
+            decoupage.annuler();
+        }
+    }
+
+    /**
+     * Découpage de l'arbre en lots, dans l'ordre du document, et écriture des lots terminés.
+     */
+    private static final class Decoupage {
+        private final Appendable sortie;
+        private final ForkJoinPool pool;
+        private final int maxEnCours;
+        private final ArrayDeque<Lot> enCours = new ArrayDeque<>();
+        private Lot lot = new Lot();
+
+        Decoupage(Appendable sortie, ForkJoinPool pool) {
+            this.sortie = sortie;
+            this.pool = pool;
+            this.maxEnCours = LOTS_PAR_FIL * pool.getParallelism();
+        }
+
+        /**
+         * Ajoute une forme au lot courant, ou, si c'est un composite trop grand pour un lot,
+         * ses balises et ses formes filles une à une.
+         */
+        void parcourir(IForme forme) throws IOException {
+            int poids = poids(forme, TAILLE_LOT);
+            if (!(forme instanceof IComposite composite) || poids < TAILLE_LOT) {
+                lot.ajouter(forme, poids);
+                if (lot.poids >= TAILLE_LOT) {
+                    lancer();
+                }
+                return;
+            }
+            StringBuilder debut = new StringBuilder();
+            composite.debutSVG(debut);
+            lot.ajouter(debut);
+            for (int i = 0; i < composite.nombreFormes(); i++) {
+                lot.ajouter("  ");
+                parcourir(composite.forme(i));
+                lot.ajouter("\n");
+            }
+            StringBuilder fin = new StringBuilder();
+            composite.finSVG(fin);
+            lot.ajouter(fin);
+        }
+
+        /**
+         * Lance le lot courant, puis écrit les plus anciens lots tant qu'il y en a trop en
+         * cours.
+         */
+        private void lancer() throws IOException {
+            pool.execute(lot);
+            enCours.addLast(lot);
+            lot = new Lot();
+            while (enCours.size() > maxEnCours) {
+                ecrirePremier();
+            }
+        }
+
+        /**
+         * Lance le dernier lot et écrit tous les lots restants.
+         */
+        void terminer() throws IOException {
+            if (!lot.elements.isEmpty()) {
+                lancer();
+            }
+            while (!enCours.isEmpty()) {
+                ecrirePremier();
+            }
+        }
+
+        private void ecrirePremier() throws IOException {
+            CharSequence texte;
+            try {
+                texte = enCours.peekFirst().join();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            enCours.removeFirst();
+            sortie.append(texte);
+        }
+
+        /**
+         * Annule les lots encore en cours après une erreur.
+         */
+        void annuler() {
+            for (Lot enAttente : enCours) {
+                enAttente.cancel(false);
+            }
+            enCours.clear();
+        }
+    }
+
+    /**
+     * Estime le nombre de formes simples d'un sous-arbre, jusqu'à la limite, en ne
+     * descendant que dans la première forme de chaque composite : les sous-arbres d'une
+     * fractale ou d'un groupe dupliqué se ressemblent, et le parcours ne crée ainsi qu'une
+     * forme par niveau.
+     */
+    private static int poids(IForme forme, int limite) {
+        if (!(forme instanceof IComposite composite) || composite.nombreFormes() == 0) {
+            return 1;
+        }
+        long total = (long) composite.nombreFormes() * poids(composite.forme(0), limite);
+        return (int) Math.min(limite, total);
+    }
+
+    /**
+     * Suite de textes et de sous-arbres consécutifs du document, écrits dans un tampon par
+     * une tâche du pool.
+     */
+    private static final class Lot extends RecursiveTask<CharSequence> {
+        private static final long serialVersionUID = 1L;
+
+        // textes (CharSequence) et formes (IForme), dans l'ordre du document
+        private final transient List<Object> elements = new ArrayList<>();
+        private int poids;
+
+        void ajouter(CharSequence texte) {
+            elements.add(texte);
+        }
+
+        void ajouter(IForme forme, int poidsForme) {
+            elements.add(forme);
+            poids += poidsForme;
+        }
+
+        @Override
+        protected CharSequence compute() {
+            StringBuilder tampon = new StringBuilder();
+            try {
+                for (Object element : elements) {
+                    if (element instanceof IForme forme) {
+                        forme.enSVG(tampon);
+                    } else {
+                        tampon.append((CharSequence) element);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return tampon;
+        }
+    }
+}
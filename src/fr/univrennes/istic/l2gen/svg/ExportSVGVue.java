@@ -0,0 +1,166 @@
+package fr.univrennes.istic.l2gen.svg;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.IComposite;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Ligne;
+import fr.univrennes.istic.l2gen.geometrie.Point;
+import fr.univrennes.istic.l2gen.geometrie.Polygone;
+import fr.univrennes.istic.l2gen.geometrie.Rectangle;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Export SVG d'une partie d'une scène, à une taille d'affichage donnée.
+ * </br>
+ * Le document n'affiche que la zone demandée (attribut {@code viewBox}) et n'écrit que ce
+ * qui y est visible :
+ * <ul>
+ *     <li>une forme ou un composite ({@link IComposite}) dont la boîte englobante ne touche
+ *     pas la zone est ignoré en entier, sans parcourir ses formes ;</li>
+ *     <li>une forme plus petite que la taille minimale dans les deux dimensions est
+ *     omise ;</li>
+ *     <li>un composite plus petit que la taille minimale est remplacé par un rectangle
+ *     de sa boîte englobante, qui donne la même tache à l'écran ;</li>
+ *     <li>une {@link Ligne} ou un {@link Polygone} est écrit simplifié : les sommets dont
+ *     les détails sont plus petits que la taille minimale sont omis
+ *     ({@link Ligne#enSVGSimplifie(Appendable, double)}), sans copier ni modifier la forme
+ *     de la scène.</li>
+ * </ul>
+ * Le coût de l'export dépend donc de ce qui est visible, et non de la taille de la scène :
+ * c'est particulièrement utile avec une {@link fr.univrennes.istic.l2gen.geometrie.Fractale},
+ * dont les branches ignorées ne sont jamais créées.
+ */
+public final class ExportSVGVue {
+    private static final int TAILLE_TAMPON = 1 << 16;
+
+    private ExportSVGVue() {
+    }
+
+    /**
+     * Exporte la partie visible d'une forme dans un fichier SVG.
+     *
+     * @param forme            La forme à exporter.
+     * @param fichier          Le fichier à créer ou à remplacer.
+     * @param vue              La zone de la scène à afficher.
+     * @param largeur          Largeur du document, en pixels.
+     * @param hauteur          Hauteur du document, en pixels.
+     * @param taillePixelsMin  Taille, en pixels du document, en dessous de laquelle une forme
+     *                         est omise ou simplifiée.
+     * @throws IOException Si l'écriture du fichier échoue.
+     */
+    public static void exporter(IForme forme, Path fichier, Boite vue, int largeur, int hauteur,
+                                double taillePixelsMin) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer sortie = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8), TAILLE_TAMPON)) {
+            ecrireDocument(forme, vue, largeur, hauteur, taillePixelsMin, sortie);
+        }
+    }
+
+    /**
+     * Écrit un document SVG affichant une zone de la scène, avec les seules formes visibles.
+     *
+     * @param forme            La forme à écrire.
+     * @param vue              La zone de la scène à afficher.
+     * @param largeur          Largeur du document, en pixels.
+     * @param hauteur          Hauteur du document, en pixels.
+     * @param taillePixelsMin  Taille, en pixels du document, en dessous de laquelle une forme
+     *                         est omise ou simplifiée.
+     * @param sortie           La sortie dans laquelle écrire le document.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    public static void ecrireDocument(IForme forme, Boite vue, int largeur, int hauteur,
+                                      double taillePixelsMin, Appendable sortie) throws IOException {
+        // la vue est agrandie uniformément pour tenir dans le document (preserveAspectRatio par défaut)
+        double unitesParPixel = Math.max(vue.largeur() / largeur, vue.hauteur() / hauteur);
+        ExportSVG.ouvrirDocument(largeur, hauteur, vue, false, sortie);
+        ecrire(forme, vue, taillePixelsMin * unitesParPixel, sortie);
+        ExportSVG.fermerDocument(sortie);
+    }
+
+    /**
+     * Écrit le code SVG de la partie visible d'une forme, avec la même mise en forme que
+     * {@link IForme#enSVG(Appendable)}. Rien n'est écrit si la forme est hors de la zone.
+     *
+     * @param forme    La forme à écrire.
+     * @param vue      La zone visible.
+     * @param tailleMin Taille, dans les unités de la scène, en dessous de laquelle une forme
+     *                 est omise ou simplifiée.
+     * @param sortie   La sortie dans laquelle écrire.
+     * @throws IOException Si l'écriture dans la sortie échoue.
+     */
+    public static void ecrire(IForme forme, Boite vue, double tailleMin, Appendable sortie) throws IOException {
+        Boite boite = boiteOuNull(forme);
+        if (boite != null && boite.intersecte(vue)) {
+            ecrireVisible(forme, boite, vue, tailleMin, sortie);
+        }
+    }
+
+    /**
+     * Écrit une forme dont la boîte touche la zone visible, en ne descendant que dans les
+     * formes filles elles aussi visibles.
+     */
+    private static void ecrireVisible(IForme forme, Boite boite, Boite vue, double tailleMin, Appendable sortie)
+            throws IOException {
+        boolean petite = boite.largeur() < tailleMin && boite.hauteur() < tailleMin;
+        if (!(forme instanceof IComposite composite)) {
+            if (!petite) {
+                ecrireSimplifiee(forme, tailleMin, sortie);
+            }
+            return;
+        }
+        if (petite) {
+            Point centre = boite.centre();
+            new Rectangle(centre.x(), centre.y(), boite.largeur(), boite.hauteur()).enSVG(sortie);
+            return;
+        }
+
+        // les formes filles sont dans le repère du composite, avant sa translation
+        vue = vue.translater(-composite.translationX(), -composite.translationY());
+        composite.debutSVG(sortie);
+        for (int i = 0; i < composite.nombreFormes(); i++) {
+            IForme fille = composite.forme(i);
+            Boite boiteFille = boiteOuNull(fille);
+            if (boiteFille == null || !boiteFille.intersecte(vue)) {
+                continue;
+            }
+            if (!(fille instanceof IComposite)
+                    && boiteFille.largeur() < tailleMin && boiteFille.hauteur() < tailleMin) {
+                continue;
+            }
+            sortie.append("  ");
+            ecrireVisible(fille, boiteFille, vue, tailleMin, sortie);
+            sortie.append("\n");
+        }
+        composite.finSVG(sortie);
+    }
+
+    /**
+     * Écrit une forme simple, en omettant les sommets d'une ligne ou d'un polygone dont les
+     * détails sont plus petits que la taille minimale. La forme n'est ni copiée ni modifiée.
+     */
+    private static void ecrireSimplifiee(IForme forme, double tailleMin, Appendable sortie) throws IOException {
+        if (tailleMin > 0 && forme instanceof Ligne ligne && ligne.sommets().size() > 3) {
+            ligne.enSVGSimplifie(sortie, tailleMin);
+        } else if (tailleMin > 0 && forme instanceof Polygone polygone && polygone.sommets().size() > 3) {
+            polygone.enSVGSimplifie(sortie, tailleMin);
+        } else {
+            forme.enSVG(sortie);
+        }
+    }
+
+    private static Boite boiteOuNull(IForme forme) {
+        if (forme instanceof IComposite composite && composite.nombreFormes() == 0) {
+            return null;
+        }
+        return forme.boite();
+    }
+}
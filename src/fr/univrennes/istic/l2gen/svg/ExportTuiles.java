@@ -0,0 +1,172 @@
+package fr.univrennes.istic.l2gen.svg;
+
+import fr.univrennes.istic.l2gen.geometrie.Boite;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Export d'une scène en pyramide de tuiles SVG, pour un affichage zoomable.
+ * </br>
+ * La scène est placée dans un carré partant du coin inférieur de sa boîte englobante. Au
+ * niveau z, ce carré est découpé en 2^z x 2^z tuiles ; la tuile de colonne x et de ligne y
+ * est écrite dans {@code dossier/z/x/y.svg}. Chaque tuile est un document SVG autonome qui
+ * ne contient que les formes qui la touchent ({@link ExportSVGVue}) : les formes hors de la
+ * tuile ne sont pas parcourues, et celles plus petites qu'un pixel de la tuile sont omises
+ * ou simplifiées.
+ * </br>
+ * Les tuiles sont écrites en parallèle dans un pool fork/join, chacune directement dans son
+ * fichier : la mémoire utilisée ne dépend que du nombre de tâches en cours, et non du nombre
+ * de tuiles ou de la taille de la scène. Une tuile hors de la boîte englobante de la scène
+ * n'est pas écrite, pas plus que ses sous-tuiles.
+ */
+public final class ExportTuiles {
+    /**
+     * Dossier dans lequel {@link #exporter(IForme, int)} écrit les tuiles.
+     */
+    public static final Path DOSSIER = Path.of("output");
+    /**
+     * Côté d'une tuile, en pixels, utilisé par {@link #exporter(IForme, int)}.
+     */
+    public static final int TAILLE_TUILE = 256;
+
+    private static final int TAILLE_TAMPON = 1 << 16;
+
+    private ExportTuiles() {
+    }
+
+    /**
+     * Exporte une scène en tuiles de {@value #TAILLE_TUILE} pixels dans {@link #DOSSIER},
+     * des niveaux 0 à niveauMax, en utilisant le pool fork/join commun.
+     *
+     * @param forme     La scène à exporter.
+     * @param niveauMax Le niveau de zoom le plus fin.
+     * @throws IOException Si l'écriture d'une tuile échoue.
+     */
+    public static void exporter(IForme forme, int niveauMax) throws IOException {
+        exporter(forme, DOSSIER, niveauMax, TAILLE_TUILE, 1, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Exporte une scène en tuiles SVG, des niveaux 0 à niveauMax.
+     *
+     * @param forme           La scène à exporter.
+     * @param dossier         Le dossier racine de la pyramide.
+     * @param niveauMax       Le niveau de zoom le plus fin.
+     * @param tailleTuile     Côté d'une tuile, en pixels.
+     * @param taillePixelsMin Taille, en pixels de la tuile, en dessous de laquelle une forme
+     *                        est omise ou simplifiée.
+     * @param pool            Le pool dans lequel écrire les tuiles.
+     * @throws IOException Si l'écriture d'une tuile échoue.
+     * @throws IllegalArgumentException Si le niveau est négatif ou supérieur à 30.
+     */
+    public static void exporter(IForme forme, Path dossier, int niveauMax, int tailleTuile,
+                                double taillePixelsMin, ForkJoinPool pool) throws IOException {
+        if (niveauMax < 0 || niveauMax > 30) {
+            throw new IllegalArgumentException("Le niveau maximal doit etre compris entre 0 et 30.");
+        }
+        Boite scene = forme.boite();
+        double cote = Math.max(scene.largeur(), scene.hauteur());
+        Pyramide pyramide = new Pyramide(forme, dossier, niveauMax, tailleTuile, taillePixelsMin,
+                scene, scene.minX(), scene.minY(), cote > 0 ? cote : 1);
+        try {
+            pool.invoke(new Tuile(pyramide, 0, 0, 0));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Paramètres communs à toutes les tuiles d'un export.
+     */
+    private static final class Pyramide {
+        final IForme forme;
+        final Path dossier;
+        final int niveauMax;
+        final int tailleTuile;
+        final double taillePixelsMin;
+        final Boite scene;
+        final double origineX;
+        final double origineY;
+        final double cote;
+
+        Pyramide(IForme forme, Path dossier, int niveauMax, int tailleTuile, double taillePixelsMin,
+                 Boite scene, double origineX, double origineY, double cote) {
+            this.forme = forme;
+            this.dossier = dossier;
+            this.niveauMax = niveauMax;
+            this.tailleTuile = tailleTuile;
+            this.taillePixelsMin = taillePixelsMin;
+            this.scene = scene;
+            this.origineX = origineX;
+            this.origineY = origineY;
+            this.cote = cote;
+        }
+    }
+
+    /**
+     * Écrit une tuile, puis ses quatre sous-tuiles du niveau suivant en parallèle.
+     */
+    private static final class Tuile extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Pyramide pyramide;
+        private final int z;
+        private final int x;
+        private final int y;
+
+        Tuile(Pyramide pyramide, int z, int x, int y) {
+            this.pyramide = pyramide;
+            this.z = z;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        protected void compute() {
+            double cote = pyramide.cote / (1L << z);
+            double minX = pyramide.origineX + x * cote;
+            double minY = pyramide.origineY + y * cote;
+            Boite zone = new Boite(minX, minY, minX + cote, minY + cote);
+            if (!zone.intersecte(pyramide.scene)) {
+                return;
+            }
+
+            try {
+                ecrire(zone);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            if (z < pyramide.niveauMax) {
+                invokeAll(new Tuile(pyramide, z + 1, 2 * x, 2 * y),
+                        new Tuile(pyramide, z + 1, 2 * x + 1, 2 * y),
+                        new Tuile(pyramide, z + 1, 2 * x, 2 * y + 1),
+                        new Tuile(pyramide, z + 1, 2 * x + 1, 2 * y + 1));
+            }
+        }
+
+        private void ecrire(Boite zone) throws IOException {
+            Path colonne = pyramide.dossier.resolve(Integer.toString(z)).resolve(Integer.toString(x));
+            Files.createDirectories(colonne);
+            Path fichier = colonne.resolve(y + ".svg");
+            try (FileChannel canal = FileChannel.open(fichier,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 Writer sortie = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8), TAILLE_TAMPON)) {
+                ExportSVGVue.ecrireDocument(pyramide.forme, zone, pyramide.tailleTuile, pyramide.tailleTuile,
+                        pyramide.taillePixelsMin, sortie);
+            }
+        }
+    }
+}
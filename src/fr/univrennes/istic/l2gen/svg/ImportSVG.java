@@ -0,0 +1,477 @@
+package fr.univrennes.istic.l2gen.svg;
+
+import fr.univrennes.istic.l2gen.geometrie.Cercle;
+import fr.univrennes.istic.l2gen.geometrie.Groupe;
+import fr.univrennes.istic.l2gen.geometrie.IComposite;
+import fr.univrennes.istic.l2gen.geometrie.IForme;
+import fr.univrennes.istic.l2gen.geometrie.Ligne;
+import fr.univrennes.istic.l2gen.geometrie.Polygone;
+import fr.univrennes.istic.l2gen.geometrie.Rectangle;
+import fr.univrennes.istic.l2gen.geometrie.Triangle;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture d'un document SVG en arbre de formes, en flux (StAX).
+ * </br>
+ * Les éléments reconnus sont ceux qu'écrivent les formes du paquetage {@code geometrie} :
+ * {@code <circle>} ({@link Cercle}), {@code <rect>} ({@link Rectangle}), {@code <polygon>}
+ * ({@link Triangle} s'il a trois sommets, {@link Polygone} sinon), {@code <polyline>} et
+ * {@code <line>} ({@link Ligne}), {@code <g>} ({@link Groupe}), ainsi que {@code <defs>} et
+ * {@code <use>} des documents de {@link ExportSVGInstancie}. Seules les transformations
+ * {@code translate} sont prises en charge ; les autres éléments sont ignorés avec leur
+ * contenu.
+ * </br>
+ * Le document est lu élément par élément, sans jamais être chargé en entier, et les
+ * coordonnées sont lues directement dans les attributs, sans sous-chaîne
+ * ({@link LecteurNombres}). {@link #lire(Path)} construit l'arbre complet ;
+ * {@link #parcourir(Path, Visiteur)} transmet chaque forme dès qu'elle est lue, et ne garde
+ * en mémoire que les définitions {@code <defs>} : un fichier plus grand que la mémoire
+ * peut ainsi être traité.
+ */
+public final class ImportSVG {
+    private static final String XLINK = "http://www.w3.org/1999/xlink";
+    private static final int TAILLE_TAMPON = 1 << 16;
+
+    /**
+     * Reçoit les formes d'un document au fil de la lecture.
+     */
+    public interface Visiteur {
+        /**
+         * Reçoit une forme simple (tout sauf un groupe), avec ses coordonnées réelles : les
+         * translations des groupes qui la contiennent y sont déjà appliquées. La forme
+         * appartient au visiteur.
+         *
+         * @param forme La forme lue.
+         */
+        void forme(IForme forme);
+
+        /**
+         * Signale l'ouverture d'un groupe : les formes reçues jusqu'au
+         * {@link #finGroupe()} correspondant y appartiennent.
+         */
+        default void debutGroupe() {
+        }
+
+        /**
+         * Signale la fermeture du dernier groupe ouvert.
+         */
+        default void finGroupe() {
+        }
+    }
+
+    /**
+     * Destinataire interne des formes lues, dans le repère du groupe qui les contient.
+     */
+    private interface Recepteur {
+        void debutGroupe(double tx, double ty);
+
+        void forme(IForme forme);
+
+        void finGroupe();
+    }
+
+    private final XMLStreamReader lecteur;
+    private final Map<String, IForme> definitions = new HashMap<>();
+    private double[] tampon = new double[64];
+    // translation de l'élément courant, lue par lireTranslation()
+    private double tx;
+    private double ty;
+
+    private ImportSVG(XMLStreamReader lecteur) {
+        this.lecteur = lecteur;
+    }
+
+    /**
+     * Lit un document SVG en arbre de formes.
+     *
+     * @param fichier Le document à lire.
+     * @return La forme du document, ou un {@link Groupe} des formes si le document en
+     *         contient plusieurs au premier niveau.
+     * @throws IOException Si la lecture échoue ou si le document est invalide.
+     */
+    public static IForme lire(Path fichier) throws IOException {
+        try (InputStream entree = new BufferedInputStream(Files.newInputStream(fichier), TAILLE_TAMPON)) {
+            Constructeur constructeur = new Constructeur();
+            lire(fabrique().createXMLStreamReader(entree), constructeur);
+            return constructeur.racine();
+        } catch (XMLStreamException e) {
+            throw new IOException(fichier + " : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lit un document SVG en arbre de formes.
+     *
+     * @param entree Le document à lire.
+     * @return La forme du document, ou un {@link Groupe} des formes si le document en
+     *         contient plusieurs au premier niveau.
+     * @throws IOException Si la lecture échoue ou si le document est invalide.
+     */
+    public static IForme lire(Reader entree) throws IOException {
+        try {
+            Constructeur constructeur = new Constructeur();
+            lire(fabrique().createXMLStreamReader(entree), constructeur);
+            return constructeur.racine();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lit un document SVG en flux, en transmettant chaque forme au visiteur dès qu'elle
+     * est lue. Aucune forme n'est gardée après avoir été transmise.
+     *
+     * @param fichier  Le document à lire.
+     * @param visiteur Le visiteur qui reçoit les formes.
+     * @throws IOException Si la lecture échoue ou si le document est invalide.
+     */
+    public static void parcourir(Path fichier, Visiteur visiteur) throws IOException {
+        try (InputStream entree = new BufferedInputStream(Files.newInputStream(fichier), TAILLE_TAMPON)) {
+            lire(fabrique().createXMLStreamReader(entree), new Absolu(visiteur));
+        } catch (XMLStreamException e) {
+            throw new IOException(fichier + " : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lit un document SVG en flux, en transmettant chaque forme au visiteur dès qu'elle
+     * est lue.
+     *
+     * @param entree   Le document à lire.
+     * @param visiteur Le visiteur qui reçoit les formes.
+     * @throws IOException Si la lecture échoue ou si le document est invalide.
+     */
+    public static void parcourir(Reader entree, Visiteur visiteur) throws IOException {
+        try {
+            lire(fabrique().createXMLStreamReader(entree), new Absolu(visiteur));
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static XMLInputFactory fabrique() {
+        XMLInputFactory fabrique = XMLInputFactory.newFactory();
+        // un document SVG n'a besoin ni de DTD ni d'entités externes
+        fabrique.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        fabrique.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return fabrique;
+    }
+
+    private static void lire(XMLStreamReader lecteur, Recepteur recepteur) throws XMLStreamException, IOException {
+        try {
+            ImportSVG lecture = new ImportSVG(lecteur);
+            while (lecteur.hasNext()) {
+                if (lecteur.next() == XMLStreamConstants.START_ELEMENT) {
+                    lecture.element(recepteur);
+                }
+            }
+        } finally {
+            lecteur.close();
+        }
+    }
+
+    /**
+     * Lit l'élément courant et son contenu, jusqu'à sa balise fermante comprise.
+     */
+    private void element(Recepteur recepteur) throws XMLStreamException, IOException {
+        try {
+            switch (lecteur.getLocalName()) {
+                case "svg":
+                    contenu(recepteur);
+                    break;
+                case "g":
+                    lireTranslation();
+                    recepteur.debutGroupe(tx, ty);
+                    contenu(recepteur);
+                    recepteur.finGroupe();
+                    break;
+                case "defs":
+                    definitions();
+                    break;
+                case "use":
+                    utiliser(recepteur);
+                    break;
+                default:
+                    IForme forme = forme(lecteur.getLocalName());
+                    if (forme != null) {
+                        lireTranslation();
+                        if (tx != 0 || ty != 0) {
+                            forme.deplacer(tx, ty);
+                        }
+                        recepteur.forme(forme);
+                    }
+                    ignorer();
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("Ligne " + lecteur.getLocation().getLineNumber() + " : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lit les éléments contenus dans l'élément courant, jusqu'à sa balise fermante comprise.
+     */
+    private void contenu(Recepteur recepteur) throws XMLStreamException, IOException {
+        while (lecteur.hasNext()) {
+            int evenement = lecteur.next();
+            if (evenement == XMLStreamConstants.START_ELEMENT) {
+                element(recepteur);
+            } else if (evenement == XMLStreamConstants.END_ELEMENT) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Passe le contenu de l'élément courant, jusqu'à sa balise fermante comprise.
+     */
+    private void ignorer() throws XMLStreamException {
+        int profondeur = 1;
+        while (profondeur > 0 && lecteur.hasNext()) {
+            int evenement = lecteur.next();
+            if (evenement == XMLStreamConstants.START_ELEMENT) {
+                profondeur++;
+            } else if (evenement == XMLStreamConstants.END_ELEMENT) {
+                profondeur--;
+            }
+        }
+    }
+
+    /**
+     * Lit le contenu d'un élément {@code <defs>} : chaque élément ayant un identifiant est
+     * construit en mémoire, pour être repris par {@code <use>}.
+     */
+    private void definitions() throws XMLStreamException, IOException {
+        while (lecteur.hasNext()) {
+            int evenement = lecteur.next();
+            if (evenement == XMLStreamConstants.END_ELEMENT) {
+                return;
+            }
+            if (evenement == XMLStreamConstants.START_ELEMENT) {
+                String id = lecteur.getAttributeValue(null, "id");
+                Constructeur constructeur = new Constructeur();
+                element(constructeur);
+                if (id != null && !constructeur.estVide()) {
+                    definitions.put(id, constructeur.racine());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reprend une définition à l'emplacement d'un élément {@code <use>}.
+     */
+    private void utiliser(Recepteur recepteur) throws XMLStreamException, IOException {
+        String reference = lecteur.getAttributeValue(XLINK, "href");
+        if (reference == null) {
+            reference = lecteur.getAttributeValue(null, "href");
+        }
+        IForme definition = reference != null && reference.startsWith("#")
+                ? definitions.get(reference.substring(1)) : null;
+        if (definition == null) {
+            throw new IOException("Ligne " + lecteur.getLocation().getLineNumber()
+                    + " : definition inconnue " + reference + ".");
+        }
+        lireTranslation();
+        double x = tx + nombre("x", 0);
+        double y = ty + nombre("y", 0);
+        ignorer();
+
+        // une définition réduite à une forme simple (celles d'ExportSVGInstancie) est reprise sans son groupe
+        if (definition instanceof IComposite composite && composite.nombreFormes() == 1
+                && !(composite.forme(0) instanceof IComposite)) {
+            x += composite.translationX();
+            y += composite.translationY();
+            definition = composite.forme(0);
+        }
+        rejouer(definition, x, y, recepteur);
+    }
+
+    private static void rejouer(IForme forme, double tx, double ty, Recepteur recepteur) {
+        if (forme instanceof IComposite composite) {
+            recepteur.debutGroupe(tx + composite.translationX(), ty + composite.translationY());
+            for (int i = 0; i < composite.nombreFormes(); i++) {
+                rejouer(composite.forme(i), 0, 0, recepteur);
+            }
+            recepteur.finGroupe();
+        } else {
+            IForme copie = forme.dupliquer();
+            if (tx != 0 || ty != 0) {
+                copie.deplacer(tx, ty);
+            }
+            recepteur.forme(copie);
+        }
+    }
+
+    /**
+     * Crée la forme simple décrite par l'élément courant.
+     *
+     * @return La forme, ou null si l'élément n'est pas une forme reconnue.
+     */
+    private IForme forme(String nom) {
+        switch (nom) {
+            case "circle":
+                return new Cercle(nombre("cx", 0), nombre("cy", 0), nombre("r", 0));
+            case "rect":
+                double largeur = nombre("width", 0);
+                double hauteur = nombre("height", 0);
+                return new Rectangle(nombre("x", 0) + largeur / 2, nombre("y", 0) + hauteur / 2, largeur, hauteur);
+            case "line":
+                return new Ligne(nombre("x1", 0), nombre("y1", 0), nombre("x2", 0), nombre("y2", 0));
+            case "polygon":
+                int n = points();
+                if (n == 6) {
+                    return new Triangle(tampon[0], tampon[1], tampon[2], tampon[3], tampon[4], tampon[5]);
+                }
+                return new Polygone(Arrays.copyOf(tampon, n));
+            case "polyline":
+                return new Ligne(Arrays.copyOf(tampon, points()));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Lit l'attribut {@code points} de l'élément courant dans le tampon.
+     *
+     * @return Le nombre de coordonnées lues.
+     */
+    private int points() {
+        String points = lecteur.getAttributeValue(null, "points");
+        if (points == null) {
+            return 0;
+        }
+        LecteurNombres nombres = new LecteurNombres(points);
+        int n = 0;
+        while (nombres.suivant()) {
+            if (n == tampon.length) {
+                tampon = Arrays.copyOf(tampon, 2 * n);
+            }
+            tampon[n++] = nombres.lire();
+        }
+        return n;
+    }
+
+    private double nombre(String attribut, double defaut) {
+        String valeur = lecteur.getAttributeValue(null, attribut);
+        return valeur == null ? defaut : new LecteurNombres(valeur).lire();
+    }
+
+    /**
+     * Lit l'attribut {@code transform="translate(x,y)"} de l'élément courant dans
+     * (tx, ty), qui valent 0 si l'élément n'a pas de transformation.
+     *
+     * @throws IllegalArgumentException Si la transformation n'est pas une translation.
+     */
+    private void lireTranslation() {
+        tx = 0;
+        ty = 0;
+        String transform = lecteur.getAttributeValue(null, "transform");
+        if (transform == null || transform.isBlank()) {
+            return;
+        }
+        LecteurNombres nombres = new LecteurNombres(transform);
+        if (!nombres.passer("translate") || !nombres.passer("(")) {
+            throw new IllegalArgumentException("Transformation non prise en charge : " + transform);
+        }
+        tx = nombres.lire();
+        // translate(x) équivaut à translate(x, 0)
+        ty = nombres.passer(")") ? 0 : nombres.lire();
+    }
+
+    /**
+     * Construit l'arbre de formes, en gardant la translation de chaque groupe.
+     */
+    private static final class Constructeur implements Recepteur {
+        private final Deque<Groupe> pile = new ArrayDeque<>();
+        private final List<IForme> racines = new ArrayList<>();
+
+        @Override
+        public void debutGroupe(double tx, double ty) {
+            Groupe groupe = new Groupe();
+            if (tx != 0 || ty != 0) {
+                groupe.deplacer(tx, ty);
+            }
+            pile.push(groupe);
+        }
+
+        @Override
+        public void forme(IForme forme) {
+            if (pile.isEmpty()) {
+                racines.add(forme);
+            } else {
+                pile.peek().ajouter(forme);
+            }
+        }
+
+        @Override
+        public void finGroupe() {
+            forme(pile.pop());
+        }
+
+        boolean estVide() {
+            return racines.isEmpty();
+        }
+
+        IForme racine() {
+            return racines.size() == 1 ? racines.get(0) : new Groupe(racines.toArray(new IForme[0]));
+        }
+    }
+
+    /**
+     * Transmet les formes à un {@link Visiteur}, après leur avoir appliqué les translations
+     * des groupes qui les contiennent.
+     */
+    private static final class Absolu implements Recepteur {
+        private final Visiteur visiteur;
+        private double[] translations = new double[16];
+        private int profondeur;
+
+        Absolu(Visiteur visiteur) {
+            this.visiteur = visiteur;
+        }
+
+        @Override
+        public void debutGroupe(double tx, double ty) {
+            if (2 * profondeur + 3 >= translations.length) {
+                translations = Arrays.copyOf(translations, 2 * translations.length);
+            }
+            translations[2 * profondeur + 2] = translations[2 * profondeur] + tx;
+            translations[2 * profondeur + 3] = translations[2 * profondeur + 1] + ty;
+            profondeur++;
+            visiteur.debutGroupe();
+        }
+
+        @Override
+        public void forme(IForme forme) {
+            double tx = translations[2 * profondeur];
+            double ty = translations[2 * profondeur + 1];
+            if (tx != 0 || ty != 0) {
+                forme.deplacer(tx, ty);
+            }
+            visiteur.forme(forme);
+        }
+
+        @Override
+        public void finGroupe() {
+            profondeur--;
+            visiteur.finGroupe();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package fr.univrennes.istic.l2gen.svg;
+
+/**
+ * Lecture d'une suite de nombres séparés par des espaces ou des virgules, comme dans
+ * l'attribut {@code points} d'un polygone, sans expression régulière ni sous-chaîne.
+ * </br>
+ * Les chiffres sont accumulés dans un entier, puis divisés ou multipliés par une puissance
+ * de dix exacte : pour un nombre d'au plus 15 chiffres significatifs et un exposant d'au
+ * plus 22, cette unique opération est arrondie correctement et donne exactement le même
+ * double que {@link Double#parseDouble(String)}. Les autres nombres, rares dans un fichier
+ * SVG, passent par {@link Double#parseDouble(String)}.
+ */
+final class LecteurNombres {
+    private static final int CHIFFRES_EXACTS = 15;
+    private static final int CHIFFRES_MAX = 18;
+    // puissances de dix exactement représentables en double
+    private static final double[] PUISSANCES = new double[23];
+
+    static {
+        PUISSANCES[0] = 1;
+        for (int i = 1; i < PUISSANCES.length; i++) {
+            PUISSANCES[i] = PUISSANCES[i - 1] * 10;
+        }
+    }
+
+    private final CharSequence texte;
+    private final int fin;
+    private int position;
+
+    /**
+     * @param texte Le texte à lire en entier.
+     */
+    LecteurNombres(CharSequence texte) {
+        this(texte, 0, texte.length());
+    }
+
+    /**
+     * @param texte Le texte contenant les nombres.
+     * @param debut Position du premier caractère à lire.
+     * @param fin   Position suivant le dernier caractère à lire.
+     */
+    LecteurNombres(CharSequence texte, int debut, int fin) {
+        this.texte = texte;
+        this.position = debut;
+        this.fin = fin;
+    }
+
+    /**
+     * Passe les séparateurs jusqu'au nombre suivant.
+     *
+     * @return true s'il reste un nombre à lire.
+     */
+    boolean suivant() {
+        while (position < fin) {
+            char c = texte.charAt(position);
+            if (c != ',' && !Character.isWhitespace(c)) {
+                return true;
+            }
+            position++;
+        }
+        return false;
+    }
+
+    /**
+     * Lit le nombre à la position courante, après d'éventuels séparateurs.
+     *
+     * @return La valeur du nombre.
+     * @throws NumberFormatException S'il n'y a pas de nombre à la position courante.
+     */
+    double lire() {
+        if (!suivant()) {
+            throw new NumberFormatException("Nombre attendu en fin de texte.");
+        }
+        int debut = position;
+        int i = position;
+        boolean negatif = false;
+        char c = texte.charAt(i);
+        if (c == '-' || c == '+') {
+            negatif = c == '-';
+            i++;
+        }
+
+        long mantisse = 0;
+        int chiffres = 0;
+        int exposant = 0;
+        boolean chiffreLu = false;
+        boolean point = false;
+        for (; i < fin; i++) {
+            c = texte.charAt(i);
+            if (c >= '0' && c <= '9') {
+                chiffreLu = true;
+                if (chiffres < CHIFFRES_MAX) {
+                    mantisse = mantisse * 10 + (c - '0');
+                    if (mantisse != 0) {
+                        chiffres++;
+                    }
+                    if (point) {
+                        exposant--;
+                    }
+                } else if (!point) {
+                    exposant++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!chiffreLu) {
+            throw new NumberFormatException("Nombre attendu : \"" + texte.subSequence(debut, Math.min(fin, debut + 20)) + "\".");
+        }
+        if (i < fin && (texte.charAt(i) == 'e' || texte.charAt(i) == 'E')) {
+            int j = i + 1;
+            boolean exposantNegatif = false;
+            if (j < fin && (texte.charAt(j) == '-' || texte.charAt(j) == '+')) {
+                exposantNegatif = texte.charAt(j) == '-';
+                j++;
+            }
+            int valeur = 0;
+            int debutExposant = j;
+            while (j < fin && texte.charAt(j) >= '0' && texte.charAt(j) <= '9') {
+                valeur = Math.min(valeur * 10 + (texte.charAt(j) - '0'), 100_000);
+                j++;
+            }
+            // un "e" sans chiffres n'appartient pas au nombre
+            if (j > debutExposant) {
+                exposant += exposantNegatif ? -valeur : valeur;
+                i = j;
+            }
+        }
+        position = i;
+
+        if (chiffres > CHIFFRES_EXACTS || exposant < -22 || exposant > 22) {
+            return Double.parseDouble(texte.subSequence(debut, i).toString());
+        }
+        double valeur = exposant >= 0 ? mantisse * PUISSANCES[exposant] : mantisse / PUISSANCES[-exposant];
+        return negatif ? -valeur : valeur;
+    }
+
+    /**
+     * Vérifie que le texte commence, après d'éventuels espaces, par un mot donné, et passe
+     * ce mot.
+     *
+     * @param mot Le mot attendu.
+     * @return true si le mot a été trouvé et passé.
+     */
+    boolean passer(String mot) {
+        while (position < fin && Character.isWhitespace(texte.charAt(position))) {
+            position++;
+        }
+        int longueur = mot.length();
+        if (position + longueur > fin) {
+            return false;
+        }
+        for (int k = 0; k < longueur; k++) {
+            if (texte.charAt(position + k) != mot.charAt(k)) {
+                return false;
+            }
+        }
+        position += longueur;
+        return true;
+    }
+}
@@ -0,0 +1,131 @@
+package fr.univrennes.istic.l2gen.geometrie;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Version vectorielle des {@link Noyaux}, écrite avec l'API Vector (module incubateur
+ * jdk.incubator.vector), chargée par {@link Noyaux#ACTIFS} quand elle est disponible.
+ * </br>
+ * Les vecteurs ont quatre doubles, soit deux sommets entrelacés (x, y, x, y) : les
+ * constantes des noyaux (déplacement, centre, facteurs) sont des vecteurs (dx, dy, dx, dy).
+ * Chaque noyau fait les mêmes opérations que la version scalaire, dans le même ordre, et
+ * donne les mêmes résultats, au signe près d'une borne nulle de la boîte englobante. Les
+ * coordonnées qui ne remplissent pas un dernier vecteur sont traitées par les noyaux
+ * scalaires.
+ */
+final class NoyauxVectoriels extends Noyaux {
+    private static final VectorSpecies<Double> ESPECE = DoubleVector.SPECIES_256;
+    private static final VectorSpecies<Integer> ESPECE_ENTIERS = IntVector.SPECIES_128;
+
+    /**
+     * @throws UnsupportedOperationException Si le processeur n'a pas de registres
+     *                                       vectoriels de 256 bits : l'API Vector les
+     *                                       émulerait plus lentement que les noyaux scalaires.
+     */
+    NoyauxVectoriels() {
+        if (DoubleVector.SPECIES_PREFERRED.vectorBitSize() < ESPECE.vectorBitSize()) {
+            throw new UnsupportedOperationException("Registres vectoriels de moins de 256 bits.");
+        }
+    }
+
+    @Override
+    boolean vectoriels() {
+        return true;
+    }
+
+    private static DoubleVector paire(double x, double y) {
+        return DoubleVector.fromArray(ESPECE, new double[] {x, y, x, y}, 0);
+    }
+
+    @Override
+    void translater(double[] source, double[] cible, int n, double dx, double dy) {
+        DoubleVector d = paire(dx, dy);
+        int fin = ESPECE.loopBound(n);
+        for (int i = 0; i < fin; i += 4) {
+            DoubleVector.fromArray(ESPECE, source, i).add(d).intoArray(cible, i);
+        }
+        super.translater(source, cible, fin, n, dx, dy);
+    }
+
+    @Override
+    void transformer(double[] source, double[] cible, int n,
+                     double cx, double cy, double fx, double fy, double dx, double dy) {
+        DoubleVector c = paire(cx, cy);
+        DoubleVector f = paire(fx, fy);
+        DoubleVector d = paire(dx, dy);
+        int fin = ESPECE.loopBound(n);
+        for (int i = 0; i < fin; i += 4) {
+            DoubleVector v = DoubleVector.fromArray(ESPECE, source, i);
+            c.add(v.sub(c).mul(f)).add(d).intoArray(cible, i);
+        }
+        super.transformer(source, cible, fin, n, cx, cy, fx, fy, dx, dy);
+    }
+
+    @Override
+    void sommer(double[] coords, int n, double[] sommes) {
+        // (x0, y0, x1, y1) et (x2, y2, x3, y3) : les huit accumulateurs de la version scalaire
+        DoubleVector a = DoubleVector.fromArray(ESPECE, sommes, 0);
+        DoubleVector b = DoubleVector.fromArray(ESPECE, sommes, 4);
+        int i = 0;
+        for (; i + 7 < n; i += 8) {
+            a = a.add(DoubleVector.fromArray(ESPECE, coords, i));
+            b = b.add(DoubleVector.fromArray(ESPECE, coords, i + 4));
+        }
+        a.intoArray(sommes, 0);
+        b.intoArray(sommes, 4);
+        for (; i < n; i += 2) {
+            sommes[0] += coords[i];
+            sommes[1] += coords[i + 1];
+        }
+    }
+
+    @Override
+    void sommerTronque(double[] coords, int n, int[] sommes) {
+        IntVector s = IntVector.zero(ESPECE_ENTIERS);
+        int fin = ESPECE.loopBound(n);
+        for (int i = 0; i < fin; i += 4) {
+            // conversion lane par lane, comme le transtypage (int) de la version scalaire
+            s = s.add(DoubleVector.fromArray(ESPECE, coords, i)
+                    .convertShape(VectorOperators.D2I, ESPECE_ENTIERS, 0));
+        }
+        sommes[0] += s.lane(0) + s.lane(2);
+        sommes[1] += s.lane(1) + s.lane(3);
+        for (int i = fin; i < n; i += 2) {
+            sommes[0] += (int) coords[i];
+            sommes[1] += (int) coords[i + 1];
+        }
+    }
+
+    @Override
+    void borner(double[] coords, int n, double[] bornes) {
+        // chaque lane garde, comme la version scalaire, la première valeur strictement plus
+        // petite (ou plus grande) : les NaN ne remplacent jamais une borne. Seul le signe
+        // d'une borne nulle peut différer, -0.0 et 0.0 n'étant pas ordonnés
+        DoubleVector min = paire(bornes[0], bornes[1]);
+        DoubleVector max = paire(bornes[2], bornes[3]);
+        int fin = ESPECE.loopBound(n);
+        for (int i = 0; i < fin; i += 4) {
+            DoubleVector v = DoubleVector.fromArray(ESPECE, coords, i);
+            min = min.blend(v, v.lt(min));
+            max = max.blend(v, v.compare(VectorOperators.GT, max));
+        }
+        for (int lane = 0; lane < 4; lane += 2) {
+            if (min.lane(lane) < bornes[0]) {
+                bornes[0] = min.lane(lane);
+            }
+            if (min.lane(lane + 1) < bornes[1]) {
+                bornes[1] = min.lane(lane + 1);
+            }
+            if (max.lane(lane) > bornes[2]) {
+                bornes[2] = max.lane(lane);
+            }
+            if (max.lane(lane + 1) > bornes[3]) {
+                bornes[3] = max.lane(lane + 1);
+            }
+        }
+        super.borner(coords, fin, n, bornes);
+    }
+}